@@ -0,0 +1,190 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.PromptManagementServiceApplication;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import com.tahaky.promptmanagement.service.PromptContentStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the HTTP layer in platform-thread and virtual-thread request mode.
+ * <p>
+ * A burst of listing requests, each holding its connection for {@code dbLatencyMillis}
+ * to stand in for a remote database, runs next to a trickle of cached lookups that need
+ * no connection at all. With platform threads the listings occupy every Tomcat thread
+ * while they wait for the pool, and the lookups queue behind them; with virtual threads
+ * only the pool bounds the listings and the lookups keep their latency. Virtual mode
+ * needs a Java 21 JVM for the forked benchmark.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Djdk.tracePinnedThreads=short")
+@State(Scope.Group)
+public class RequestThreadingBenchmark {
+
+    private static final int PROMPTS = 200;
+
+    @Param({"platform", "virtual"})
+    String threads;
+
+    /** Tomcat request threads in platform mode; ignored on virtual threads. */
+    @Param({"32"})
+    int requestThreads;
+
+    @Param({"16"})
+    int poolSize;
+
+    @Param({"20"})
+    int dbLatencyMillis;
+
+    ConfigurableApplicationContext context;
+    HttpClient client;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && !JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("Virtual-thread mode needs Java 21, running on " + JavaVersion.getJavaVersion());
+        }
+        context = new SpringApplicationBuilder(PromptManagementServiceApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(new SlowConnections(dbLatencyMillis)))
+                .properties(
+                        "server.port=0",
+                        "spring.threads.virtual.enabled=" + virtual,
+                        "server.tomcat.threads.max=" + requestThreads,
+                        "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                        // The load comes from one tenant; its quotas would cap the measured throughput
+                        "prompt.tenants.rate-limit.integration.requests-per-second=0",
+                        "prompt.tenants.rate-limit.management.requests-per-second=0",
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.com.tahaky.promptmanagement=WARN")
+                .run();
+        seed();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        // Fill the cache so that lookups measure request scheduling, not the database
+        for (int i = 0; i < PROMPTS; i++) {
+            get("/api/integration/prompts/prompt-" + i);
+        }
+    }
+
+    private void seed() {
+        PromptRepository promptRepository = context.getBean(PromptRepository.class);
+        PromptCurrentRepository promptCurrentRepository = context.getBean(PromptCurrentRepository.class);
+        context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+            List<Prompt> prompts = new ArrayList<>();
+            for (int i = 0; i < PROMPTS; i++) {
+                prompts.add(Prompt.builder()
+                        .tenant(Prompt.DEFAULT_TENANT)
+                        .name("prompt-" + i)
+                        .content("x".repeat(512))
+                        .category("category-" + (i % 10))
+                        .version(1)
+                        .active(true)
+                        .build());
+            }
+            context.getBean(PromptContentStore.class).attach(prompts);
+            promptCurrentRepository.saveAll(promptRepository.saveAll(prompts).stream().map(PromptCurrent::of).toList());
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class NameCursor {
+
+        private int next;
+
+        String next() {
+            next = (next + 1) % PROMPTS;
+            return "prompt-" + next;
+        }
+    }
+
+    private int get(String path) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).build(),
+                HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " answered " + response.statusCode());
+        }
+        return response.body().length;
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(64)
+    public int listing() throws IOException, InterruptedException {
+        return get("/api/prompts?summary=true&limit=20");
+    }
+
+    @Benchmark
+    @Group("burst")
+    @GroupThreads(4)
+    public int cachedLookup(NameCursor cursor) throws IOException, InterruptedException {
+        return get("/api/integration/prompts/" + cursor.next());
+    }
+
+    /**
+     * Holds every borrowed connection for a fixed time, as a round trip to a remote
+     * database would.
+     */
+    static final class SlowConnections implements BeanPostProcessor {
+
+        private final long latencyMillis;
+
+        SlowConnections(long latencyMillis) {
+            this.latencyMillis = latencyMillis;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof DataSource dataSource)) {
+                return bean;
+            }
+            return new DelegatingDataSource(dataSource) {
+                @Override
+                public Connection getConnection() throws SQLException {
+                    Connection connection = super.getConnection();
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return connection;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.tahaky.promptmanagement.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.model.Prompt;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of a single prompt at different content sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptResponseBenchmark {
+
+    @Param({"256", "4096", "65536"})
+    int contentLength;
+
+    private Prompt prompt;
+    private PromptResponse response;
+    private ObjectWriter writer;
+
+    @Setup
+    public void setUp() {
+        prompt = Prompt.builder()
+                .id(1L)
+                .name("customer-support")
+                .content("x".repeat(contentLength))
+                .category("support")
+                .version(3)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+        response = PromptService.convertToResponse(prompt);
+        // Configured like the ObjectMapper Spring Boot provides to the controllers
+        writer = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build()
+                .writerFor(PromptResponse.class);
+    }
+
+    @Benchmark
+    public PromptResponse convertToResponse() {
+        return PromptService.convertToResponse(prompt);
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return writer.writeValueAsBytes(response);
+    }
+}
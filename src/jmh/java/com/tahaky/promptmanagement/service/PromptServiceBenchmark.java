@@ -0,0 +1,186 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.PromptManagementServiceApplication;
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptRequest;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.UpdatePromptRequest;
+import com.tahaky.promptmanagement.exception.PromptUpdateConflictException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read and write paths of {@link PromptService} running in the full application
+ * context against the embedded H2 database.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptServiceBenchmark {
+
+    static ConfigurableApplicationContext startApplication() {
+        return new SpringApplicationBuilder(PromptManagementServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN",
+                        "logging.level.org.hibernate.SQL=WARN",
+                        "logging.level.com.tahaky.promptmanagement=WARN",
+                        // Failed contended updates are counted by UpdateOutcome instead of logged
+                        "logging.level.org.hibernate.orm.jdbc.batch=OFF",
+                        "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF")
+                .run();
+    }
+
+    @State(Scope.Benchmark)
+    public static class ReadState {
+
+        @Param({"1000"})
+        int prompts;
+
+        @Param({"2048"})
+        int contentLength;
+
+        ConfigurableApplicationContext context;
+        PromptService promptService;
+        ActivePromptCache activePromptCache;
+        String[] names;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = startApplication();
+            promptService = context.getBean(PromptService.class);
+            activePromptCache = context.getBean(ActivePromptCache.class);
+
+            // Seeded through the repositories so that the listing has many active prompts to return
+            PromptRepository promptRepository = context.getBean(PromptRepository.class);
+            PromptCurrentRepository promptCurrentRepository = context.getBean(PromptCurrentRepository.class);
+            String content = "x".repeat(contentLength);
+            names = new String[prompts];
+            context.getBean(TransactionTemplate.class).executeWithoutResult(status -> {
+                List<Prompt> saved = new ArrayList<>();
+                for (int i = 0; i < prompts; i++) {
+                    names[i] = "prompt-" + i;
+                    saved.add(Prompt.builder()
+                            .tenant(Prompt.DEFAULT_TENANT)
+                            .name(names[i])
+                            .content(content)
+                            .category("category-" + (i % 10))
+                            .version(1)
+                            .active(true)
+                            .build());
+                }
+                context.getBean(PromptContentStore.class).attach(saved);
+                promptCurrentRepository.saveAll(promptRepository.saveAll(saved).stream().map(PromptCurrent::of).toList());
+            });
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NameCursor {
+
+        private int next;
+
+        String next(ReadState state) {
+            String name = state.names[next];
+            next = (next + 1) % state.names.length;
+            return name;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class WriteState {
+
+        static final String NAME = "contended-prompt";
+
+        ConfigurableApplicationContext context;
+        PromptService promptService;
+        UpdatePromptRequest request;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = startApplication();
+            promptService = context.getBean(PromptService.class);
+            promptService.createPrompt(Prompt.DEFAULT_TENANT, PromptRequest.builder()
+                    .name(NAME)
+                    .content("Initial content")
+                    .category("benchmark")
+                    .active(true)
+                    .build());
+            request = UpdatePromptRequest.builder()
+                    .content("x".repeat(2048))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    /**
+     * Per-thread outcome of the contended updates, reported next to the throughput.
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class UpdateOutcome {
+
+        public long updated;
+        public long failed;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            updated = 0;
+            failed = 0;
+        }
+    }
+
+    @Benchmark
+    public PromptResponse getPromptByNameCached(ReadState state, NameCursor cursor) {
+        return state.promptService.getPromptByName(Prompt.DEFAULT_TENANT, cursor.next(state));
+    }
+
+    @Benchmark
+    public PromptResponse getPromptByNameUncached(ReadState state, NameCursor cursor) {
+        String name = cursor.next(state);
+        state.activePromptCache.invalidate(Prompt.DEFAULT_TENANT, name);
+        return state.promptService.getPromptByName(Prompt.DEFAULT_TENANT, name);
+    }
+
+    @Benchmark
+    public CursorPage<PromptResponse> getAllActivePrompts(ReadState state) {
+        return state.promptService.listActivePrompts(Prompt.DEFAULT_TENANT, null, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void updatePromptContended(WriteState state, UpdateOutcome outcome) {
+        try {
+            state.promptService.updatePrompt(Prompt.DEFAULT_TENANT, WriteState.NAME, state.request);
+            outcome.updated++;
+        } catch (PromptUpdateConflictException | DataAccessException ex) {
+            // Either every retry lost to a concurrent update or the write failed outright
+            outcome.failed++;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.tahaky.promptmanagement.service;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Template compilation and rendering at different template sizes, against the
+ * replace-per-variable substitution the AI services used to do on their side.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptTemplateBenchmark {
+
+    private static final int VARIABLES = 20;
+
+    @Param({"4096", "65536", "1048576"})
+    int contentLength;
+
+    private String content;
+    private PromptTemplate template;
+    private Map<String, String> values;
+
+    @Setup
+    public void setUp() {
+        // Filler paragraphs with a placeholder roughly every 200 characters
+        StringBuilder builder = new StringBuilder(contentLength + 64);
+        int placeholder = 0;
+        while (builder.length() < contentLength) {
+            builder.append("Answer politely and cite the relevant policy section when asked about ");
+            builder.append("{{var").append(placeholder++ % VARIABLES).append("}}");
+            builder.append(". Keep answers short and never reveal internal notes to the customer.\n");
+        }
+        content = builder.toString();
+        template = PromptTemplate.compile(content);
+        values = new HashMap<>();
+        for (int i = 0; i < VARIABLES; i++) {
+            values.put("var" + i, "value-" + i);
+        }
+    }
+
+    @Benchmark
+    public PromptTemplate compile() {
+        return PromptTemplate.compile(content);
+    }
+
+    @Benchmark
+    public String render() {
+        return template.render(values);
+    }
+
+    @Benchmark
+    public String replacePerVariable() {
+        String rendered = content;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            rendered = rendered.replace("{{" + entry.getKey() + "}}", entry.getValue());
+        }
+        return rendered;
+    }
+}
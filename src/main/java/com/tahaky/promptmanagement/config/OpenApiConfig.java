@@ -1,10 +1,19 @@
 package com.tahaky.promptmanagement.config;
 
+import com.tahaky.promptmanagement.controller.Tenants;
+import com.tahaky.promptmanagement.model.Prompt;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.info.Contact;
 import io.swagger.v3.oas.models.info.Info;
+import io.swagger.v3.oas.models.media.StringSchema;
+import io.swagger.v3.oas.models.parameters.HeaderParameter;
+import io.swagger.v3.oas.models.responses.ApiResponse;
+import org.springdoc.core.customizers.OperationCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.bind.annotation.RequestAttribute;
+
+import java.util.Arrays;
 
 @Configuration
 public class OpenApiConfig {
@@ -20,4 +29,29 @@ public class OpenApiConfig {
                                 .name("tahaky")
                                 .url("https://github.com/tahaky/prompt-managemetn-service")));
     }
+
+    /**
+     * Documents the tenant header and the rate limit response on every tenant-scoped operation.
+     */
+    @Bean
+    public OperationCustomizer tenantHeaderCustomizer() {
+        return (operation, handlerMethod) -> {
+            boolean tenantScoped = Arrays.stream(handlerMethod.getMethodParameters())
+                    .map(parameter -> parameter.getParameterAnnotation(RequestAttribute.class))
+                    .anyMatch(attribute -> attribute != null && Tenants.ATTRIBUTE.equals(attribute.value()));
+            // Handlers of the same path that differ only in the media type are merged into one operation
+            boolean documented = operation.getParameters() != null && operation.getParameters().stream()
+                    .anyMatch(parameter -> Tenants.HEADER.equals(parameter.getName()));
+            if (tenantScoped && !documented) {
+                operation.addParametersItem(new HeaderParameter()
+                        .name(Tenants.HEADER)
+                        .description("Tenant the request belongs to; the default tenant when omitted")
+                        .required(false)
+                        .schema(new StringSchema()._default(Prompt.DEFAULT_TENANT)));
+                operation.getResponses().addApiResponse("429", new ApiResponse()
+                        .description("Request rate limit of the tenant exceeded; retry after the Retry-After delay"));
+            }
+            return operation;
+        };
+    }
 }
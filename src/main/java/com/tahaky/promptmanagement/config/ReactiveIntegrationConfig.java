@@ -0,0 +1,86 @@
+package com.tahaky.promptmanagement.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tahaky.promptmanagement.controller.ReactiveAIIntegrationHandler;
+import com.tahaky.promptmanagement.service.ReactivePromptService;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.core.Disposable;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Starts the reactive AI integration read API on its own Reactor Netty server. The rest
+ * of the application stays on the servlet stack (SSE emitters and streaming exports are
+ * Spring MVC features), so the event-loop server listens on a separate port.
+ * <p>
+ * The R2DBC connection pool is deliberately not a bean: Spring Boot stops
+ * auto-configuring the JDBC {@code DataSource}, and with it JPA, as soon as a
+ * {@link ConnectionFactory} bean exists.
+ */
+@Configuration
+@ConditionalOnProperty(name = "prompt.integration.reactive.enabled", havingValue = "true")
+@Slf4j
+public class ReactiveIntegrationConfig {
+
+    private ConnectionFactory connectionFactory;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${prompt.integration.reactive.r2dbc-url}") String url,
+                                                 @Value("${prompt.integration.reactive.username:}") String username,
+                                                 @Value("${prompt.integration.reactive.password:}") String password) {
+        connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    @PreDestroy
+    public void closeConnectionFactory() {
+        if (connectionFactory instanceof Disposable pool) {
+            pool.dispose();
+        }
+    }
+
+    @Bean
+    public ReactiveAIIntegrationHandler reactiveAIIntegrationHandler(ReactivePromptService reactivePromptService,
+                                                                     TenantRateLimiter tenantRateLimiter) {
+        return new ReactiveAIIntegrationHandler(reactivePromptService, tenantRateLimiter);
+    }
+
+    @Bean(destroyMethod = "disposeNow")
+    public DisposableServer reactiveIntegrationServer(ReactiveAIIntegrationHandler handler,
+                                                      ObjectMapper objectMapper,
+                                                      @Value("${prompt.integration.reactive.port:8081}") int port) {
+        // Same JSON settings as the servlet endpoints, e.g. ISO-8601 timestamps
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                })
+                .build();
+        HttpHandler httpHandler = RouterFunctions.toHttpHandler(handler.routes(), strategies);
+        DisposableServer server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(httpHandler))
+                .bindNow();
+        log.info("Reactive integration API listening on port {}", server.port());
+        return server;
+    }
+}
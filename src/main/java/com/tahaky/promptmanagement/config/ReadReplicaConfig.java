@@ -0,0 +1,70 @@
+package com.tahaky.promptmanagement.config;
+
+import com.tahaky.promptmanagement.service.ReplicaLagMonitor;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the auto-configured data source with one that routes read-only transactions
+ * to read replicas. The primary pool is still configured with the
+ * {@code spring.datasource.*} properties; every replica pool copies its settings and only
+ * changes the URL and credentials.
+ * <p>
+ * The replica pools are deliberately not beans, so the readiness probe's {@code db}
+ * check keeps following the primary: a replica that is down only moves reads back to
+ * the primary.
+ */
+@Configuration
+@ConditionalOnProperty(name = "prompt.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource,
+                                               @Value("${prompt.datasource.replicas.urls}") List<String> urls,
+                                               @Value("${prompt.datasource.replicas.username:${spring.datasource.username:}}") String username,
+                                               @Value("${prompt.datasource.replicas.password:${spring.datasource.password:}}") String password,
+                                               @Value("${prompt.datasource.replicas.heartbeat-interval:PT0.2S}") Duration heartbeatInterval,
+                                               @Value("${prompt.datasource.replicas.max-lag:PT2S}") Duration maxLag) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            String name = "replica-" + (replicas.size() + 1);
+            HikariDataSource replica = new HikariDataSource();
+            primaryDataSource.copyStateTo(replica);
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        return new ReplicaLagMonitor(primaryDataSource, replicas, heartbeatInterval, maxLag);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor));
+    }
+}
@@ -0,0 +1,28 @@
+package com.tahaky.promptmanagement.config;
+
+import com.tahaky.promptmanagement.controller.TenantInterceptor;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Resolves the tenant of every API request. The AI integration endpoints and the
+ * management endpoints are rate limited separately; the health check is not limited.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class TenantWebConfig implements WebMvcConfigurer {
+
+    private final TenantRateLimiter tenantRateLimiter;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new TenantInterceptor(tenantRateLimiter, TenantRateLimiter.Traffic.INTEGRATION))
+                .addPathPatterns("/api/integration/**")
+                .excludePathPatterns("/api/integration/health");
+        registry.addInterceptor(new TenantInterceptor(tenantRateLimiter, TenantRateLimiter.Traffic.MANAGEMENT))
+                .addPathPatterns("/api/prompts", "/api/prompts/**");
+    }
+}
@@ -0,0 +1,25 @@
+package com.tahaky.promptmanagement.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Guards the {@code virtual-threads} profile. Spring Boot silently keeps the platform
+ * thread pool when virtual threads are requested on a JVM older than 21, so the
+ * profile fails fast instead of running in a mode the operator did not ask for.
+ */
+@Configuration
+@Profile("virtual-threads")
+@Slf4j
+public class VirtualThreadsConfig {
+
+    public VirtualThreadsConfig() {
+        if (!JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("The virtual-threads profile requires Java 21 or newer, running on "
+                    + JavaVersion.getJavaVersion());
+        }
+        log.info("Serving requests on virtual threads");
+    }
+}
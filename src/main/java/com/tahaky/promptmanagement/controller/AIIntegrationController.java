@@ -1,15 +1,38 @@
 package com.tahaky.promptmanagement.controller;
 
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.CacheStatsResponse;
+import com.tahaky.promptmanagement.dto.PromptRenderRequest;
+import com.tahaky.promptmanagement.dto.PromptRenderResponse;
 import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.service.PromptChangeNotifier;
+import com.tahaky.promptmanagement.service.PromptRenderService;
 import com.tahaky.promptmanagement.service.PromptService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * Integration endpoint for AI services to fetch current system prompts
@@ -21,6 +44,9 @@ import org.springframework.web.bind.annotation.*;
 public class AIIntegrationController {
 
     private final PromptService promptService;
+    private final PromptRenderService promptRenderService;
+    private final PromptChangeNotifier promptChangeNotifier;
+    private final HealthEndpoint healthEndpoint;
 
     /**
      * Get the current active prompt for AI services
@@ -30,22 +56,154 @@ public class AIIntegrationController {
     @Operation(summary = "Get current prompt for AI", description = "Returns the current active version of the specified prompt for use by AI services")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Prompt returned successfully"),
+            @ApiResponse(responseCode = "304", description = "Caller already holds the active version"),
             @ApiResponse(responseCode = "404", description = "Prompt not found")
     })
     @GetMapping("/prompts/{name}")
     public ResponseEntity<PromptResponse> getCurrentPrompt(
-            @Parameter(description = "Unique name of the prompt") @PathVariable String name) {
-        PromptResponse response = promptService.getCurrentPromptForAI(name);
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Entity tag of the version the caller already holds")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Answer revalidation from the version identity alone, without loading the content
+        if (ifNoneMatch != null) {
+            Optional<PromptVersionInfo> current = promptService.findActivePromptVersion(tenant, name);
+            String etag = current.map(PromptETags::of).orElse(null);
+            if (etag != null && PromptETags.matchesNoneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+
+        PromptResponse response = promptService.getCurrentPromptForAI(tenant, name);
+        return ResponseEntity.ok()
+                .eTag(PromptETags.of(response))
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+    /**
+     * Get the current active version of several prompts in one round trip, e.g. to
+     * assemble a system prompt out of named fragments
+     */
+    @Operation(summary = "Get current prompts for AI in bulk", description = "Returns the current active version of each requested prompt; missing names are reported per entry")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lookup results returned"),
+            @ApiResponse(responseCode = "400", description = "Too many names requested")
+    })
+    @GetMapping(value = "/prompts", params = "names")
+    public ResponseEntity<BatchPromptResponse> getCurrentPrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Comma-separated prompt names") @RequestParam List<String> names) {
+        BatchPromptResponse response = promptService.getPromptsByNames(tenant, names);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Render the current active prompt with the given variables, so AI services no
+     * longer substitute {{variable}} placeholders themselves
+     */
+    @Operation(summary = "Render current prompt for AI", description = "Substitutes the {{variable}} placeholders of the current active version; every placeholder needs a value and unknown variables are rejected")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Prompt rendered successfully"),
+            @ApiResponse(responseCode = "400", description = "Missing or unknown variables"),
+            @ApiResponse(responseCode = "404", description = "Prompt not found")
+    })
+    @PostMapping("/prompts/{name}/render")
+    public ResponseEntity<PromptRenderResponse> renderPrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Valid @RequestBody PromptRenderRequest request) {
+        PromptRenderResponse response = promptRenderService.render(tenant, name, request.getVariables());
         return ResponseEntity.ok(response);
     }
 
     /**
-     * Health check endpoint for integration services
+     * Render the current active prompt with many variable sets, e.g. for offline
+     * evaluation jobs. The prompt version is resolved once, before streaming starts, and
+     * reported in the ETag header
      */
-    @Operation(summary = "Health check", description = "Returns the health status of the AI Integration Service")
-    @ApiResponse(responseCode = "200", description = "Service is running")
+    @Operation(summary = "Batch render current prompt for AI", description = "Renders the current active version with every variable set of an NDJSON stream and streams one NDJSON result per set, in input order")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Results streamed; failed variable sets carry a message"),
+            @ApiResponse(responseCode = "404", description = "Prompt not found")
+    })
+    @PostMapping(value = "/prompts/{name}/render/batch",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> renderPrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            HttpServletRequest request) {
+        PromptResponse prompt = promptService.getCurrentPromptForAI(tenant, name);
+        // The request body is read while the results are written, so neither is held in memory
+        StreamingResponseBody body = out -> promptRenderService.renderBatch(prompt,
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8), out);
+        return ResponseEntity.ok()
+                .eTag(PromptETags.of(prompt))
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Server-Sent Events stream of version changes of a single prompt, so AI services
+     * can react to updates instead of polling
+     */
+    @Operation(summary = "Subscribe to prompt changes", description = "Streams an event whenever the specified prompt is created, updated or deactivated")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "503", description = "Subscriber limit reached")
+    })
+    @GetMapping(value = "/prompts/{name}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToPrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name) {
+        return promptChangeNotifier.subscribeToPrompt(tenant, name);
+    }
+
+    /**
+     * Server-Sent Events stream of version changes of all prompts, optionally
+     * restricted to one category
+     */
+    @Operation(summary = "Subscribe to prompt changes by category", description = "Streams an event whenever a prompt in the category (or any prompt) is created, updated or deactivated")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Event stream opened"),
+            @ApiResponse(responseCode = "503", description = "Subscriber limit reached")
+    })
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToCategory(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Category name; all prompts when omitted") @RequestParam(required = false) String category) {
+        return promptChangeNotifier.subscribeToCategory(tenant, category);
+    }
+
+    /**
+     * Hit/miss/eviction counters of the tenant's active prompt cache
+     */
+    @Operation(summary = "Active prompt cache statistics", description = "Returns hit, miss and eviction counters of the tenant's active prompt cache")
+    @ApiResponse(responseCode = "200", description = "Cache statistics returned")
+    @GetMapping("/cache/stats")
+    public ResponseEntity<CacheStatsResponse> cacheStats(@RequestAttribute(Tenants.ATTRIBUTE) String tenant) {
+        return ResponseEntity.ok(promptService.getCacheStats(tenant));
+    }
+
+    /**
+     * Readiness check for integration services, backed by the actuator readiness
+     * group (application state and database connectivity)
+     */
+    @Operation(summary = "Health check", description = "Returns the readiness of the AI Integration Service, including database connectivity")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Service is ready"),
+            @ApiResponse(responseCode = "503", description = "Service or database is not ready")
+    })
     @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("AI Integration Service is running");
+    public ResponseEntity<HealthComponent> health() {
+        HealthComponent health = healthEndpoint.healthForPath("readiness");
+        if (health == null) {
+            health = healthEndpoint.health();
+        }
+        HttpStatus status = Status.UP.equals(health.getStatus()) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(health);
     }
 }
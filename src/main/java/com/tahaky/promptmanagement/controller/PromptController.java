@@ -1,21 +1,50 @@
 package com.tahaky.promptmanagement.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tahaky.promptmanagement.dto.BatchPromptRequest;
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptDiffResponse;
+import com.tahaky.promptmanagement.dto.PromptImportItem;
+import com.tahaky.promptmanagement.dto.PromptImportResponse;
 import com.tahaky.promptmanagement.dto.PromptRequest;
 import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptSearchHit;
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.dto.PromptVersionDelta;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
 import com.tahaky.promptmanagement.dto.UpdatePromptRequest;
+import com.tahaky.promptmanagement.service.ApproximateTokenizer;
+import com.tahaky.promptmanagement.service.PromptDiffService;
+import com.tahaky.promptmanagement.service.PromptExportService;
+import com.tahaky.promptmanagement.service.PromptImportService;
+import com.tahaky.promptmanagement.service.PromptSearchService;
 import com.tahaky.promptmanagement.service.PromptService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/prompts")
@@ -24,6 +53,11 @@ import java.util.List;
 public class PromptController {
 
     private final PromptService promptService;
+    private final PromptImportService promptImportService;
+    private final PromptExportService promptExportService;
+    private final PromptDiffService promptDiffService;
+    private final PromptSearchService promptSearchService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Create a new prompt", description = "Creates a new AI system prompt")
     @ApiResponses({
@@ -32,45 +66,151 @@ public class PromptController {
             @ApiResponse(responseCode = "409", description = "Prompt with the same name already exists")
     })
     @PostMapping
-    public ResponseEntity<PromptResponse> createPrompt(@Valid @RequestBody PromptRequest request) {
-        PromptResponse response = promptService.createPrompt(request);
+    public ResponseEntity<PromptResponse> createPrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Valid @RequestBody PromptRequest request) {
+        PromptResponse response = promptService.createPrompt(tenant, request);
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Update an existing prompt", description = "Updates the content or status of an existing prompt and increments its version")
+    @Operation(summary = "Update an existing prompt", description = "Updates the content or status of an existing prompt and increments its version. "
+            + "With If-Match the update only applies while the given ETag still identifies the active version")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Prompt updated successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid request body"),
-            @ApiResponse(responseCode = "404", description = "Prompt not found")
+            @ApiResponse(responseCode = "404", description = "Prompt not found"),
+            @ApiResponse(responseCode = "409", description = "Prompt kept being modified concurrently; retry the request"),
+            @ApiResponse(responseCode = "412", description = "The If-Match ETag no longer identifies the active version")
     })
     @PutMapping("/{name}")
     public ResponseEntity<PromptResponse> updatePrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
             @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Valid @RequestBody UpdatePromptRequest request) {
-        PromptResponse response = promptService.updatePrompt(name, request);
-        return ResponseEntity.ok(response);
+        PromptResponse response = promptService.updatePrompt(tenant, name, request, PromptETags.ifMatch(ifMatch));
+        return ResponseEntity.ok()
+                .eTag(PromptETags.of(response))
+                .body(response);
+    }
+
+    @Operation(summary = "Bulk import prompts", description = "Applies a stream of create/update operations, given as NDJSON or a JSON array, in batched transactions and reports the result of every operation")
+    @ApiResponse(responseCode = "200", description = "Import processed; see per-item results")
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<PromptImportResponse> importPrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            HttpServletRequest request) throws IOException {
+        // Items are read one at a time so the request body is never held in memory as a whole
+        try (MappingIterator<PromptImportItem> items = objectMapper.readerFor(PromptImportItem.class)
+                .readValues(request.getInputStream())) {
+            PromptImportResponse response = promptImportService.importPrompts(tenant, items);
+            return ResponseEntity.ok(response);
+        }
     }
 
-    @Operation(summary = "Get the active prompt", description = "Retrieves the currently active prompt")
+    @Operation(summary = "Get the most recently activated prompt", description = "Each prompt name has its own active version; returns the prompt whose active version changed last, optionally within a category")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Active prompt returned"),
             @ApiResponse(responseCode = "404", description = "No active prompt found")
     })
     @GetMapping("/active")
-    public ResponseEntity<PromptResponse> getActivePrompt() {
-        PromptResponse response = promptService.getActivePrompt();
+    public ResponseEntity<PromptResponse> getActivePrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Restrict to this category") @RequestParam(required = false) String category) {
+        PromptResponse response = promptService.getActivePrompt(tenant, category);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Search prompts", description = "Ranked full-text search over name, category and content of all prompt versions; supports phrases, prefixes and fuzzy terms")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of matching versions returned, best match first"),
+            @ApiResponse(responseCode = "400", description = "Blank query, invalid page size or cursor")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<CursorPage<PromptSearchHit>> searchPrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Search query, e.g. refund \"order number\" polic*") @RequestParam String q,
+            @Parameter(description = "Only match active versions") @RequestParam(defaultValue = "false") boolean activeOnly,
+            @Parameter(description = "Also match terms with small spelling differences") @RequestParam(defaultValue = "false") boolean fuzzy,
+            @Parameter(description = "Maximum number of hits to return (1-100)") @RequestParam(defaultValue = "20") int limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String cursor) {
+        CursorPage<PromptSearchHit> response = promptSearchService.search(tenant, q, activeOnly, fuzzy, cursor, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Find prompts over a token budget", description = "Returns the active prompts whose content exceeds the given number of tokens for a tokenizer, largest first, from the counts computed when the content was stored")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Prompts over the budget returned"),
+            @ApiResponse(responseCode = "400", description = "Unknown tokenizer, negative budget or invalid limit")
+    })
+    @GetMapping("/over-token-budget")
+    public ResponseEntity<List<PromptTokenUsage>> getPromptsOverTokenBudget(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Token budget; prompts with more tokens are returned") @RequestParam int maxTokens,
+            @Parameter(description = "Tokenizer the budget refers to") @RequestParam(defaultValue = ApproximateTokenizer.NAME) String tokenizer,
+            @Parameter(description = "Maximum number of prompts to return (1-500)") @RequestParam(defaultValue = "100") int limit) {
+        List<PromptTokenUsage> response = promptService.getActivePromptsOverTokenBudget(tenant, tokenizer, maxTokens, limit);
         return ResponseEntity.ok(response);
     }
 
     @Operation(summary = "Get prompt by name", description = "Retrieves a prompt by its unique name")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Prompt found"),
+            @ApiResponse(responseCode = "304", description = "Caller already holds the active version"),
             @ApiResponse(responseCode = "404", description = "Prompt not found")
     })
     @GetMapping("/{name}")
     public ResponseEntity<PromptResponse> getPromptByName(
-            @Parameter(description = "Unique name of the prompt") @PathVariable String name) {
-        PromptResponse response = promptService.getPromptByName(name);
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Entity tag of the version the caller already holds")
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Answer revalidation from the version identity alone, without loading the content
+        if (ifNoneMatch != null) {
+            Optional<PromptVersionInfo> current = promptService.findActivePromptVersion(tenant, name);
+            String etag = current.map(PromptETags::of).orElse(null);
+            if (etag != null && PromptETags.matchesNoneMatch(ifNoneMatch, etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build();
+            }
+        }
+
+        PromptResponse response = promptService.getPromptByName(tenant, name);
+        return ResponseEntity.ok()
+                .eTag(PromptETags.of(response))
+                .cacheControl(CacheControl.noCache())
+                .body(response);
+    }
+
+    @Operation(summary = "Find similar prompts", description = "Returns the prompt versions whose content is most similar to the active content of the given prompt, by cosine similarity of locally computed embeddings")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Similar versions returned, most similar first"),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or minimum similarity"),
+            @ApiResponse(responseCode = "404", description = "Prompt not found")
+    })
+    @GetMapping("/{name}/similar")
+    public ResponseEntity<List<PromptSearchHit>> findSimilarPrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Maximum number of versions to return (1-100)") @RequestParam(defaultValue = "10") int limit,
+            @Parameter(description = "Only return active versions") @RequestParam(defaultValue = "false") boolean activeOnly,
+            @Parameter(description = "Minimum cosine similarity (-1 to 1)") @RequestParam(defaultValue = "0") double minSimilarity) {
+        List<PromptSearchHit> response = promptSearchService.similar(tenant, name, limit, activeOnly, minSimilarity);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Get several prompts by name", description = "Returns the active version of each requested prompt in one round trip; missing names are reported per entry")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Lookup results returned"),
+            @ApiResponse(responseCode = "400", description = "Invalid request body or too many names")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BatchPromptResponse> getPromptsByNames(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Valid @RequestBody BatchPromptRequest request) {
+        BatchPromptResponse response = promptService.getPromptsByNames(tenant, request.getNames());
         return ResponseEntity.ok(response);
     }
 
@@ -81,43 +221,125 @@ public class PromptController {
     })
     @GetMapping("/id/{id}")
     public ResponseEntity<PromptResponse> getPromptById(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
             @Parameter(description = "Numeric ID of the prompt") @PathVariable Long id) {
-        PromptResponse response = promptService.getPromptById(id);
+        PromptResponse response = promptService.getPromptById(tenant, id);
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Get all active prompts", description = "Returns a list of all active prompts")
-    @ApiResponse(responseCode = "200", description = "List of active prompts")
+    @Operation(summary = "Get active prompts", description = "Lists the active prompts ordered by id. "
+            + "With summary=true only their metadata is returned and the prompt content is not read; "
+            + "with limit the listing is keyset-paginated, otherwise a single page holds every prompt")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Page of active prompts"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor")
+    })
     @GetMapping
-    public ResponseEntity<List<PromptResponse>> getAllActivePrompts() {
-        List<PromptResponse> response = promptService.getAllActivePrompts();
+    public ResponseEntity<CursorPage<?>> getActivePrompts(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Return metadata only, without prompt content") @RequestParam(defaultValue = "false") boolean summary,
+            @Parameter(description = "Maximum number of prompts per page (1-500); without it all prompts are returned") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String cursor) {
+        CursorPage<?> response = summary
+                ? promptService.listActivePromptSummaries(tenant, cursor, limit)
+                : promptService.listActivePrompts(tenant, cursor, limit);
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Get prompts by category", description = "Returns all prompts that belong to the specified category")
+    @Operation(summary = "Stream all active prompts", description = "Streams every active prompt as newline-delimited JSON with constant memory use")
+    @ApiResponse(responseCode = "200", description = "NDJSON stream of active prompts")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportActivePrompts(@RequestAttribute(Tenants.ATTRIBUTE) String tenant) {
+        return this.<PromptResponse>ndjson(sink -> promptExportService.exportActivePrompts(tenant, sink));
+    }
+
+    @Operation(summary = "Get prompts by category", description = "Lists the active prompts of a category ordered by id. "
+            + "With summary=true only their metadata is returned and the prompt content is not read; "
+            + "with limit the listing is keyset-paginated, otherwise a single page holds every prompt")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Prompts found"),
-            @ApiResponse(responseCode = "404", description = "No prompts found for the category")
+            @ApiResponse(responseCode = "200", description = "Page of prompts"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor")
     })
     @GetMapping("/category/{category}")
-    public ResponseEntity<List<PromptResponse>> getPromptsByCategory(
-            @Parameter(description = "Category name") @PathVariable String category) {
-        List<PromptResponse> response = promptService.getPromptsByCategory(category);
+    public ResponseEntity<CursorPage<?>> getPromptsByCategory(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Category name") @PathVariable String category,
+            @Parameter(description = "Return metadata only, without prompt content") @RequestParam(defaultValue = "false") boolean summary,
+            @Parameter(description = "Maximum number of prompts per page (1-500); without it all prompts are returned") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String cursor) {
+        CursorPage<?> response = summary
+                ? promptService.listPromptSummariesByCategory(tenant, category, cursor, limit)
+                : promptService.listPromptsByCategory(tenant, category, cursor, limit);
         return ResponseEntity.ok(response);
     }
 
-    @Operation(summary = "Get version history of a prompt", description = "Returns all versions of the specified prompt")
+    @Operation(summary = "Stream prompts by category", description = "Streams the active prompts of a category as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "NDJSON stream of prompts")
+    @GetMapping(value = "/category/{category}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPromptsByCategory(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Category name") @PathVariable String category) {
+        return this.<PromptResponse>ndjson(sink -> promptExportService.exportPromptsByCategory(tenant, category, sink));
+    }
+
+    @Operation(summary = "Get version history of a prompt", description = "Lists the versions of a prompt, newest first. "
+            + "With summary=true only their metadata is returned and the prompt content is not read; "
+            + "with limit the history is keyset-paginated, otherwise a single page holds every version")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Version history returned"),
+            @ApiResponse(responseCode = "200", description = "Page of versions"),
+            @ApiResponse(responseCode = "400", description = "Invalid page size or cursor"),
             @ApiResponse(responseCode = "404", description = "Prompt not found")
     })
     @GetMapping("/{name}/versions")
-    public ResponseEntity<List<PromptResponse>> getPromptVersionHistory(
+    public ResponseEntity<CursorPage<?>> getPromptVersionHistory(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Return metadata only, without prompt content") @RequestParam(defaultValue = "false") boolean summary,
+            @Parameter(description = "Maximum number of versions per page (1-500); without it all versions are returned") @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor returned with the previous page") @RequestParam(required = false) String cursor) {
+        CursorPage<?> response = summary
+                ? promptService.listPromptVersionSummaries(tenant, name, cursor, limit)
+                : promptService.listPromptVersions(tenant, name, cursor, limit);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Stream the version history", description = "Streams every version of a prompt, newest first, as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "NDJSON stream of versions; empty for an unknown prompt")
+    @GetMapping(value = "/{name}/versions", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPromptVersionHistory(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
             @Parameter(description = "Unique name of the prompt") @PathVariable String name) {
-        List<PromptResponse> response = promptService.getPromptVersionHistory(name);
+        return this.<PromptResponse>ndjson(sink -> promptExportService.exportPromptVersionHistory(tenant, name, sink));
+    }
+
+    @Operation(summary = "Diff two versions of a prompt", description = "Returns the changed regions between two versions, compared line by line or word by word")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Changes returned; no chunks when the content is identical"),
+            @ApiResponse(responseCode = "400", description = "Invalid version number"),
+            @ApiResponse(responseCode = "404", description = "Prompt or version not found")
+    })
+    @GetMapping("/{name}/diff")
+    public ResponseEntity<PromptDiffResponse> diffPromptVersions(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Version to compare from") @RequestParam int from,
+            @Parameter(description = "Version to compare to") @RequestParam int to,
+            @Parameter(description = "Compare by LINE or WORD") @RequestParam(defaultValue = "LINE") PromptDiffResponse.Granularity granularity) {
+        PromptDiffResponse response = promptDiffService.diff(tenant, name, from, to, granularity);
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Stream the delta-encoded version history", description = "Streams every version of a prompt, oldest first, as newline-delimited JSON. "
+            + "The first version carries its full content, every later one only the edits to its predecessor")
+    @ApiResponse(responseCode = "200", description = "NDJSON stream of version deltas; empty for an unknown prompt")
+    @GetMapping(value = "/{name}/versions/deltas", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportPromptVersionDeltas(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
+            @Parameter(description = "Unique name of the prompt") @PathVariable String name,
+            @Parameter(description = "Tokenize the content by LINE or WORD") @RequestParam(defaultValue = "LINE") PromptDiffResponse.Granularity granularity) {
+        return this.<PromptVersionDelta>ndjson(sink -> promptDiffService.exportVersionDeltas(tenant, name, granularity, sink));
+    }
+
     @Operation(summary = "Delete a prompt", description = "Deletes the prompt with the specified name")
     @ApiResponses({
             @ApiResponse(responseCode = "204", description = "Prompt deleted successfully"),
@@ -125,8 +347,33 @@ public class PromptController {
     })
     @DeleteMapping("/{name}")
     public ResponseEntity<Void> deletePrompt(
+            @RequestAttribute(Tenants.ATTRIBUTE) String tenant,
             @Parameter(description = "Unique name of the prompt") @PathVariable String name) {
-        promptService.deletePrompt(name);
+        promptService.deletePrompt(tenant, name);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Writes the exported items as newline-delimited JSON. The export runs on the async
+     * request thread and every item is serialized as soon as it is read.
+     */
+    private <T> ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<T>> export) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                export.accept(item -> {
+                    try {
+                        writer.writeValue(generator, item);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
 }
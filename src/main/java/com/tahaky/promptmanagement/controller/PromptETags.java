@@ -0,0 +1,82 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.exception.PromptPreconditionFailedException;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Strong entity tags for prompt versions. A prompt row is immutable once written
+ * (updates create a new row), so its id and version identify the representation.
+ */
+final class PromptETags {
+
+    private PromptETags() {
+    }
+
+    static String of(Long id, Integer version) {
+        return "\"" + id + "-" + version + "\"";
+    }
+
+    static String of(PromptResponse response) {
+        return of(response.getId(), response.getVersion());
+    }
+
+    static String of(PromptVersionInfo versionInfo) {
+        return of(versionInfo.getId(), versionInfo.getVersion());
+    }
+
+    /**
+     * Evaluates an {@code If-None-Match} header against the current entity tag using
+     * the weak comparison required for that header (RFC 9110, section 13.1.2).
+     */
+    static boolean matchesNoneMatch(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Turns an {@code If-Match} header into the precondition an update checks against the
+     * active version: the version's entity tag has to equal one of the listed tags.
+     * Returns {@code null} when the header is absent or {@code *}, which any existing
+     * prompt satisfies. {@code If-Match} uses strong comparison (RFC 9110, section
+     * 13.1.1), so weak tags never match, and a header listing only weak tags fails the
+     * precondition right away.
+     */
+    static Predicate<PromptVersionInfo> ifMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        Set<String> tags = new HashSet<>();
+        for (String candidate : ifMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return null;
+            }
+            if (!tag.isEmpty() && !tag.startsWith("W/")) {
+                tags.add(tag);
+            }
+        }
+        if (tags.isEmpty()) {
+            throw new PromptPreconditionFailedException("If-Match " + ifMatch.trim() + " has no strong entity tag");
+        }
+        return version -> tags.contains(of(version));
+    }
+}
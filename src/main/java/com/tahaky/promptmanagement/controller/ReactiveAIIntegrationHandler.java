@@ -0,0 +1,131 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.exception.ErrorResponse;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.exception.TenantRateLimitExceededException;
+import com.tahaky.promptmanagement.service.ReactivePromptService;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Non-blocking implementation of the read endpoints of {@link AIIntegrationController},
+ * served by WebFlux functional routes when {@code prompt.integration.reactive.enabled}
+ * is set. Paths, headers, status codes and bodies match the blocking controller, and
+ * requests count against the same per-tenant rate limits.
+ */
+@RequiredArgsConstructor
+public class ReactiveAIIntegrationHandler {
+
+    private final ReactivePromptService reactivePromptService;
+    private final TenantRateLimiter tenantRateLimiter;
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route()
+                .GET("/api/integration/prompts/{name}", this::getCurrentPrompt)
+                .GET("/api/integration/prompts", RequestPredicates.queryParam("names", names -> true), this::getCurrentPrompts)
+                .onError(PromptNotFoundException.class, (ex, request) -> error(HttpStatus.NOT_FOUND, ex.getMessage()))
+                .onError(InvalidPromptRequestException.class, (ex, request) -> error(HttpStatus.BAD_REQUEST, ex.getMessage()))
+                .filter(this::resolveTenant)
+                .build();
+    }
+
+    /**
+     * Resolves the tenant into the {@link Tenants#ATTRIBUTE} request attribute and
+     * charges the request to the tenant's integration rate limit, like
+     * {@link TenantInterceptor} does for the blocking endpoints. Error handlers of the
+     * routes only see errors of the handlers, so rejections are answered here.
+     */
+    private Mono<ServerResponse> resolveTenant(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        String tenant;
+        try {
+            tenant = Tenants.resolve(request.headers().firstHeader(Tenants.HEADER));
+            tenantRateLimiter.acquire(tenant, TenantRateLimiter.Traffic.INTEGRATION);
+        } catch (InvalidPromptRequestException ex) {
+            return error(HttpStatus.BAD_REQUEST, ex.getMessage());
+        } catch (TenantRateLimitExceededException ex) {
+            return ServerResponse.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(errorBody(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage()));
+        }
+        request.attributes().put(Tenants.ATTRIBUTE, tenant);
+        return next.handle(request);
+    }
+
+    /**
+     * Get the current active prompt for AI services, answering revalidation from
+     * the version identity alone like {@link AIIntegrationController#getCurrentPrompt}
+     */
+    Mono<ServerResponse> getCurrentPrompt(ServerRequest request) {
+        String tenant = tenant(request);
+        String name = request.pathVariable("name");
+        Mono<ServerResponse> full = reactivePromptService.getCurrentPromptForAI(tenant, name)
+                .flatMap(response -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .eTag(PromptETags.of(response))
+                        .cacheControl(CacheControl.noCache())
+                        .bodyValue(response));
+
+        String ifNoneMatch = request.headers().firstHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return full;
+        }
+        return reactivePromptService.findActivePromptVersion(tenant, name)
+                .map(PromptETags::of)
+                .filter(etag -> PromptETags.matchesNoneMatch(ifNoneMatch, etag))
+                .flatMap(etag -> ServerResponse.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(etag)
+                        .cacheControl(CacheControl.noCache())
+                        .build())
+                .switchIfEmpty(full);
+    }
+
+    /**
+     * Get the current active version of several prompts in one round trip
+     */
+    Mono<ServerResponse> getCurrentPrompts(ServerRequest request) {
+        List<String> names = request.queryParams().get("names").stream()
+                .flatMap(value -> Arrays.stream(value.split(",")))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+        return reactivePromptService.getPromptsByNames(tenant(request), names)
+                .flatMap(response -> ServerResponse.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(response));
+    }
+
+    private static String tenant(ServerRequest request) {
+        return (String) request.attributes().get(Tenants.ATTRIBUTE);
+    }
+
+    private static Mono<ServerResponse> error(HttpStatus status, String message) {
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(errorBody(status, message));
+    }
+
+    private static ErrorResponse errorBody(HttpStatus status, String message) {
+        return ErrorResponse.builder()
+                .status(status.value())
+                .message(message)
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+}
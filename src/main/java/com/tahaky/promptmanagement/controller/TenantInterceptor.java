@@ -0,0 +1,36 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Resolves the tenant of a request into the {@link Tenants#ATTRIBUTE} request attribute
+ * and charges the request to the tenant's rate limit for the given kind of traffic;
+ * the instance's own warm-up requests are not charged.
+ * Errors are thrown before the handler runs and reported by the exception handler.
+ */
+@RequiredArgsConstructor
+public class TenantInterceptor implements HandlerInterceptor {
+
+    private final TenantRateLimiter tenantRateLimiter;
+    private final TenantRateLimiter.Traffic traffic;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Streaming responses are dispatched again once they complete; that is still the same request
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        String tenant = Tenants.resolve(request.getHeader(Tenants.HEADER));
+        request.setAttribute(Tenants.ATTRIBUTE, tenant);
+
+        if (!tenantRateLimiter.isInternal(request.getHeader(Tenants.INTERNAL_HEADER))) {
+            tenantRateLimiter.acquire(tenant, traffic);
+        }
+        return true;
+    }
+}
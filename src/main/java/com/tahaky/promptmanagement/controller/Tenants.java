@@ -0,0 +1,40 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.model.Prompt;
+
+import java.util.regex.Pattern;
+
+/**
+ * Identifies the tenant of a request. Clients name their tenant in the
+ * {@value #HEADER} header; requests without it belong to the default tenant, so
+ * single-tenant clients keep working unchanged.
+ */
+public final class Tenants {
+
+    public static final String HEADER = "X-Tenant-Id";
+
+    // Carries TenantRateLimiter#internalToken on requests the instance sends to itself
+    public static final String INTERNAL_HEADER = "X-Prompt-Internal";
+
+    // Request attribute holding the resolved tenant, see TenantInterceptor
+    public static final String ATTRIBUTE = "com.tahaky.promptmanagement.controller.Tenants.tenant";
+
+    // No '/', which separates the tenant from the name in cache, event and search keys
+    private static final Pattern TENANT_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9._-]{0,63}");
+
+    private Tenants() {
+    }
+
+    public static String resolve(String header) {
+        if (header == null || header.isBlank()) {
+            return Prompt.DEFAULT_TENANT;
+        }
+        String tenant = header.strip();
+        if (!TENANT_ID.matcher(tenant).matches()) {
+            throw new InvalidPromptRequestException("Tenant id must be 1 to 64 letters, digits, '.', '_' or '-', "
+                    + "starting with a letter or digit");
+        }
+        return tenant;
+    }
+}
@@ -0,0 +1,23 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request body for fetching several active prompts at once")
+public class BatchPromptRequest {
+
+    @NotEmpty(message = "At least one name is required")
+    @Schema(description = "Names of the prompts to fetch", example = "[\"customer-support\", \"tone-of-voice\"]")
+    private List<@NotBlank(message = "Names must not be blank") String> names;
+}
@@ -0,0 +1,26 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Active prompts resolved in a single batch, keyed by name in request order")
+public class BatchPromptResponse {
+
+    @Schema(description = "Lookup result per requested name")
+    private Map<String, PromptLookupResult> prompts;
+
+    @Schema(description = "Number of names that resolved to an active prompt", example = "2")
+    private int found;
+
+    @Schema(description = "Number of names without an active prompt", example = "1")
+    private int missing;
+}
@@ -0,0 +1,30 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Statistics of the active prompt cache")
+public class CacheStatsResponse {
+
+    @Schema(description = "Approximate number of cached prompts", example = "42")
+    private long size;
+
+    @Schema(description = "Number of lookups served from the cache", example = "1250000")
+    private long hitCount;
+
+    @Schema(description = "Number of lookups that had to load from the database", example = "310")
+    private long missCount;
+
+    @Schema(description = "Number of entries evicted due to size or expiry", example = "12")
+    private long evictionCount;
+
+    @Schema(description = "Ratio of hits to total lookups", example = "0.9997")
+    private double hitRate;
+}
@@ -0,0 +1,26 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of a keyset-paginated listing")
+public class CursorPage<T> {
+
+    @Schema(description = "Items of this page")
+    private List<T> items;
+
+    @Schema(description = "Opaque cursor to pass as 'cursor' to fetch the next page; absent on the last page", example = "MTI4")
+    private String nextCursor;
+
+    @Schema(description = "Whether more items follow this page", example = "true")
+    private boolean hasMore;
+}
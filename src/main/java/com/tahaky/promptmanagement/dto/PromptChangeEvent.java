@@ -0,0 +1,50 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Notification that the active version of a prompt changed")
+public class PromptChangeEvent {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DEACTIVATED
+    }
+
+    @Schema(description = "Kind of change", example = "UPDATED")
+    private Type type;
+
+    @Schema(description = "Numeric identifier of the affected version", example = "2")
+    private Long id;
+
+    @Schema(description = "Tenant the prompt belongs to", example = "default")
+    private String tenant;
+
+    @Schema(description = "Unique name of the prompt", example = "customer-support")
+    private String name;
+
+    @Schema(description = "Category of the prompt", example = "support")
+    private String category;
+
+    @Schema(description = "Category the prompt was in before an update moved it to another one; absent otherwise", example = "general")
+    private String previousCategory;
+
+    @Schema(description = "Version number of the affected version", example = "2")
+    private Integer version;
+
+    @Schema(description = "Whether the affected version is active after the change", example = "true")
+    private Boolean active;
+
+    @Schema(description = "Timestamp when the change was made")
+    private LocalDateTime timestamp;
+}
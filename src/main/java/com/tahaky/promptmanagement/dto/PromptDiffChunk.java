@@ -0,0 +1,36 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One changed region between two prompt versions")
+public class PromptDiffChunk {
+
+    public enum Type {
+        INSERT,
+        DELETE,
+        CHANGE
+    }
+
+    @Schema(description = "Kind of change", example = "CHANGE")
+    private Type type;
+
+    @Schema(description = "Zero-based index of the first affected line or word in the old version", example = "3")
+    private int sourcePosition;
+
+    @Schema(description = "Text removed from the old version", example = "Always be polite.\n")
+    private String sourceText;
+
+    @Schema(description = "Zero-based index of the first affected line or word in the new version", example = "3")
+    private int targetPosition;
+
+    @Schema(description = "Text added in the new version", example = "Always be polite and concise.\n")
+    private String targetText;
+}
@@ -0,0 +1,41 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes between two versions of a prompt")
+public class PromptDiffResponse {
+
+    /**
+     * Unit the content is compared in. Tokens always concatenate back to the content,
+     * so a line keeps its line break and a word run is followed by its own whitespace token.
+     */
+    public enum Granularity {
+        LINE,
+        WORD
+    }
+
+    @Schema(description = "Name of the prompt", example = "customer-support")
+    private String name;
+
+    @Schema(description = "Version the changes are computed from", example = "2")
+    private Integer fromVersion;
+
+    @Schema(description = "Version the changes lead to", example = "5")
+    private Integer toVersion;
+
+    @Schema(description = "Unit the content was compared in", example = "LINE")
+    private Granularity granularity;
+
+    @Schema(description = "Changed regions in content order; empty when the content is identical")
+    private List<PromptDiffChunk> chunks;
+}
@@ -0,0 +1,39 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One create or update operation of a bulk import")
+public class PromptImportItem {
+
+    public enum Operation {
+        CREATE,
+        UPDATE,
+        UPSERT
+    }
+
+    @Schema(description = "Operation to apply; UPSERT creates the prompt or adds a version when it exists", example = "UPSERT", defaultValue = "UPSERT")
+    private Operation operation;
+
+    @NotBlank(message = "Name is required")
+    @Schema(description = "Unique name of the prompt", example = "customer-support")
+    private String name;
+
+    @NotBlank(message = "Content is required")
+    @Schema(description = "The system prompt content", example = "You are a helpful customer support assistant.")
+    private String content;
+
+    @Schema(description = "Category of the prompt; required when the prompt is created", example = "support")
+    private String category;
+
+    @Schema(description = "Whether the new version is active", example = "true", defaultValue = "true")
+    private Boolean active;
+}
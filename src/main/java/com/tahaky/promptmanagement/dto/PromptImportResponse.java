@@ -0,0 +1,35 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Summary and per-item results of a bulk import")
+public class PromptImportResponse {
+
+    @Schema(description = "Number of operations read", example = "1200")
+    private int total;
+
+    @Schema(description = "Number of prompts created", example = "150")
+    private int created;
+
+    @Schema(description = "Number of new versions written", example = "40")
+    private int updated;
+
+    @Schema(description = "Number of operations that matched the active version and wrote nothing", example = "1005")
+    private int unchanged;
+
+    @Schema(description = "Number of operations that failed", example = "5")
+    private int failed;
+
+    @Schema(description = "Result of every operation in input order")
+    private List<PromptImportResult> results;
+}
@@ -0,0 +1,42 @@
+package com.tahaky.promptmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of one bulk import operation")
+public class PromptImportResult {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        UNCHANGED,
+        FAILED
+    }
+
+    @Schema(description = "Zero-based position of the operation in the import stream", example = "0")
+    private int index;
+
+    @Schema(description = "Name of the prompt", example = "customer-support")
+    private String name;
+
+    @Schema(description = "Outcome of the operation", example = "UPDATED")
+    private Status status;
+
+    @Schema(description = "Numeric identifier of the written or unchanged version", example = "12")
+    private Long id;
+
+    @Schema(description = "Version number of the written or unchanged version", example = "3")
+    private Integer version;
+
+    @Schema(description = "Reason the operation failed", example = "Prompt with name 'customer-support' not found")
+    private String message;
+}
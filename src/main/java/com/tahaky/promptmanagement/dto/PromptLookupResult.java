@@ -0,0 +1,42 @@
+package com.tahaky.promptmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of looking up one prompt in a batch")
+public class PromptLookupResult {
+
+    public enum Status {
+        FOUND,
+        NOT_FOUND
+    }
+
+    @Schema(description = "Whether an active prompt exists for the name", example = "FOUND")
+    private Status status;
+
+    @Schema(description = "The active prompt, present when found")
+    private PromptResponse prompt;
+
+    @Schema(description = "Reason the prompt could not be returned", example = "Prompt with name 'legacy-bot' not found")
+    private String message;
+
+    public static PromptLookupResult found(PromptResponse prompt) {
+        return PromptLookupResult.builder().status(Status.FOUND).prompt(prompt).build();
+    }
+
+    public static PromptLookupResult notFound(String name) {
+        return PromptLookupResult.builder()
+                .status(Status.NOT_FOUND)
+                .message("Prompt with name '" + name + "' not found")
+                .build();
+    }
+}
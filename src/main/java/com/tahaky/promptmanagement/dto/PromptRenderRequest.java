@@ -0,0 +1,22 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Request body for rendering a prompt template")
+public class PromptRenderRequest {
+
+    @NotNull(message = "Variables are required")
+    @Schema(description = "Value of every {{variable}} placeholder in the prompt", example = "{\"customerName\": \"Ada\", \"product\": \"Router X2\"}")
+    private Map<String, String> variables;
+}
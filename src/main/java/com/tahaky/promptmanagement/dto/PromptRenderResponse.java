@@ -0,0 +1,27 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A prompt rendered with the supplied variables")
+public class PromptRenderResponse {
+
+    @Schema(description = "Id of the rendered prompt version", example = "1")
+    private Long id;
+
+    @Schema(description = "Unique name of the prompt", example = "customer-service-bot")
+    private String name;
+
+    @Schema(description = "Rendered version number", example = "3")
+    private Integer version;
+
+    @Schema(description = "Prompt content with every placeholder substituted", example = "You are helping Ada with the Router X2.")
+    private String content;
+}
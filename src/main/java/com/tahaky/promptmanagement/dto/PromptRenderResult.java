@@ -0,0 +1,26 @@
+package com.tahaky.promptmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of rendering one variable set in a batch")
+public class PromptRenderResult {
+
+    @Schema(description = "Zero-based position of the variable set in the request stream", example = "0")
+    private long index;
+
+    @Schema(description = "Rendered prompt content, present when rendering succeeded", example = "You are helping Ada with the Router X2.")
+    private String content;
+
+    @Schema(description = "Reason the variable set could not be rendered", example = "Missing variables: product")
+    private String message;
+}
@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.Map;
 
 @Data
 @Builder
@@ -18,6 +19,9 @@ public class PromptResponse {
     @Schema(description = "Unique numeric identifier", example = "1")
     private Long id;
 
+    @Schema(description = "Tenant the prompt belongs to", example = "default")
+    private String tenant;
+
     @Schema(description = "Unique name of the prompt", example = "customer-support")
     private String name;
 
@@ -33,6 +37,16 @@ public class PromptResponse {
     @Schema(description = "Whether this prompt is active", example = "true")
     private Boolean active;
 
+    @Schema(description = "Length of the content in characters (Unicode code points)", example = "45")
+    private Integer characterCount;
+
+    @Schema(description = "Size of the content in UTF-8 bytes", example = "45")
+    private Integer byteCount;
+
+    @Schema(description = "Token count of the content per configured tokenizer, computed when the content was stored",
+            example = "{\"estimate\": 10, \"cl100k_base\": 9}")
+    private Map<String, Integer> tokenCounts;
+
     @Schema(description = "Timestamp when the prompt was created")
     private LocalDateTime createdAt;
 
@@ -0,0 +1,33 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A prompt version matching a search query or similar to a prompt")
+public class PromptSearchHit {
+
+    @Schema(description = "Numeric identifier of the matching version", example = "12")
+    private Long id;
+
+    @Schema(description = "Unique name of the prompt", example = "customer-support")
+    private String name;
+
+    @Schema(description = "Category of the prompt", example = "support")
+    private String category;
+
+    @Schema(description = "Version number of the matching version", example = "3")
+    private Integer version;
+
+    @Schema(description = "Whether the matching version is the active one", example = "true")
+    private boolean active;
+
+    @Schema(description = "Relevance score of a search, or cosine similarity (-1 to 1) of a similarity search; higher is better", example = "4.27")
+    private float score;
+}
@@ -0,0 +1,36 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Prompt metadata without its content. Also used as a query projection, so the
+ * content column is not read from the database when only a summary is needed.
+ */
+@Value
+@Schema(description = "Prompt metadata without the prompt content")
+public class PromptSummary {
+
+    @Schema(description = "Unique numeric identifier", example = "1")
+    Long id;
+
+    @Schema(description = "Unique name of the prompt", example = "customer-support")
+    String name;
+
+    @Schema(description = "Category of the prompt", example = "support")
+    String category;
+
+    @Schema(description = "Version number of this prompt", example = "3")
+    Integer version;
+
+    @Schema(description = "Whether this prompt is active", example = "true")
+    Boolean active;
+
+    @Schema(description = "Timestamp when the prompt was created")
+    LocalDateTime createdAt;
+
+    @Schema(description = "Timestamp when the prompt was last updated")
+    LocalDateTime updatedAt;
+}
@@ -0,0 +1,37 @@
+package com.tahaky.promptmanagement.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Value;
+
+/**
+ * Size of an active prompt version for one tokenizer. Used as a query projection, so
+ * the content itself is not read.
+ */
+@Value
+@Schema(description = "Size of an active prompt version, without the prompt content")
+public class PromptTokenUsage {
+
+    @Schema(description = "Unique numeric identifier", example = "1")
+    Long id;
+
+    @Schema(description = "Unique name of the prompt", example = "customer-support")
+    String name;
+
+    @Schema(description = "Category of the prompt", example = "support")
+    String category;
+
+    @Schema(description = "Version number of this prompt", example = "3")
+    Integer version;
+
+    @Schema(description = "Tokenizer the token count refers to", example = "cl100k_base")
+    String tokenizer;
+
+    @Schema(description = "Token count of the content", example = "5120")
+    Integer tokens;
+
+    @Schema(description = "Length of the content in characters (Unicode code points)", example = "21877")
+    Integer characterCount;
+
+    @Schema(description = "Size of the content in UTF-8 bytes", example = "22014")
+    Integer byteCount;
+}
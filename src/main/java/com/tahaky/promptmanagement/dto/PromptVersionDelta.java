@@ -0,0 +1,63 @@
+package com.tahaky.promptmanagement.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One entry of a delta-encoded version history. The oldest version carries its full
+ * content; every later version carries the edits that turn the content of
+ * {@code baseVersion} into its own. Edit positions are token indexes in the base
+ * content, so applying the edits from last to first leaves earlier positions valid.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "A prompt version encoded as a delta to the previous version")
+public class PromptVersionDelta {
+
+    @Schema(description = "Unique numeric identifier of the version", example = "7")
+    private Long id;
+
+    @Schema(description = "Version number", example = "3")
+    private Integer version;
+
+    @Schema(description = "Category of the version", example = "support")
+    private String category;
+
+    @Schema(description = "Timestamp when the version was created")
+    private LocalDateTime createdAt;
+
+    @Schema(description = "Version the edits apply to; absent for the first entry", example = "2")
+    private Integer baseVersion;
+
+    @Schema(description = "Full content; only present on the first entry")
+    private String content;
+
+    @Schema(description = "Edits to the base content in ascending position order; empty when the content is unchanged")
+    private List<Edit> edits;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Schema(description = "Replaces a run of base tokens with new text")
+    public static class Edit {
+
+        @Schema(description = "Zero-based index of the first replaced token in the base content", example = "3")
+        private int position;
+
+        @Schema(description = "Number of base tokens removed", example = "1")
+        private int deleted;
+
+        @Schema(description = "Text inserted in place of the removed tokens", example = "Always be polite and concise.\n")
+        private String inserted;
+    }
+}
@@ -0,0 +1,15 @@
+package com.tahaky.promptmanagement.dto;
+
+import lombok.Value;
+
+/**
+ * Identity of a prompt version without its content, used for cheap freshness checks.
+ */
+@Value
+public class PromptVersionInfo {
+
+    Long id;
+    String tenant;
+    String name;
+    Integer version;
+}
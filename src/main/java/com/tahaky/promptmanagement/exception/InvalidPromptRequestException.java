@@ -0,0 +1,8 @@
+package com.tahaky.promptmanagement.exception;
+
+public class InvalidPromptRequestException extends RuntimeException {
+    
+    public InvalidPromptRequestException(String message) {
+        super(message);
+    }
+}
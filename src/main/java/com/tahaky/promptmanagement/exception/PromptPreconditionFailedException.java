@@ -0,0 +1,8 @@
+package com.tahaky.promptmanagement.exception;
+
+public class PromptPreconditionFailedException extends RuntimeException {
+
+    public PromptPreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.tahaky.promptmanagement.exception;
+
+public class PromptUpdateConflictException extends RuntimeException {
+
+    public PromptUpdateConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package com.tahaky.promptmanagement.exception;
+
+import lombok.Getter;
+
+@Getter
+public class TenantRateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TenantRateLimitExceededException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
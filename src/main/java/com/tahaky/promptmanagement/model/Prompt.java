@@ -4,13 +4,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
+/**
+ * One immutable version of a prompt. Prompt names are unique within a tenant, so the
+ * same name may exist in several tenants with independent version histories.
+ */
 @Entity
 @Table(name = "prompts", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"name", "version"})
+    @UniqueConstraint(name = Prompt.VERSION_CONSTRAINT, columnNames = {"tenant", "name", "version"})
 })
 @Data
 @Builder
@@ -18,14 +26,36 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class Prompt {
 
+    public static final String DEFAULT_TENANT = "default";
+
+    // Named so that a concurrent update taking the same version can be told apart from other violations
+    public static final String VERSION_CONSTRAINT = "uk_prompts_tenant_name_version";
+
+    // Pooled sequence ids keep JDBC insert batching enabled, which IDENTITY columns disable
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prompt_seq")
+    @SequenceGenerator(name = "prompt_seq", sequenceName = "prompt_seq", allocationSize = 50)
     private Long id;
 
+    // Rows written before tenants existed belong to the default tenant
+    @Column(nullable = false, length = 64)
+    @ColumnDefault("'" + DEFAULT_TENANT + "'")
+    private String tenant;
+
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false, columnDefinition = "TEXT")
+    // Shared with every other version that has the same text; see PromptContent
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "content_hash", nullable = false)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private PromptContent body;
+
+    // Decompressed text of the body, resolved on first access
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private String content;
 
     @Column(nullable = false)
@@ -34,7 +64,8 @@ public class Prompt {
     @Column(nullable = false)
     private Integer version;
 
-    @Column(nullable = false)
+    // Derived from the prompt_current pointer table, which is the source of truth for activation
+    @Formula("(case when exists (select 1 from prompt_current c where c.prompt_id = id) then true else false end)")
     private Boolean active;
 
     @Column(nullable = false)
@@ -43,6 +74,21 @@ public class Prompt {
     @Column(nullable = false)
     private LocalDateTime updatedAt;
 
+    public String getContent() {
+        if (content == null && body != null) {
+            content = body.text();
+        }
+        return content;
+    }
+
+    /**
+     * Hash of the content, taken from the body when there is one so that the body is
+     * neither loaded nor decompressed.
+     */
+    public String contentHash() {
+        return body != null ? body.getHash() : PromptContent.hash(content);
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -50,9 +96,6 @@ public class Prompt {
         if (version == null) {
             version = 1;
         }
-        if (active == null) {
-            active = true;
-        }
     }
 
     @PreUpdate
@@ -0,0 +1,176 @@
+package com.tahaky.promptmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.springframework.data.domain.Persistable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A prompt body, stored once per distinct text and shared by every version that uses it.
+ * The primary key is the SHA-256 hash of the text, so identical content always maps to
+ * the same row; the text itself is stored deflate-compressed. The text never changes.
+ * <p>
+ * Sizes of the text are measured once when it is stored: characters (Unicode code
+ * points), UTF-8 bytes and the token count of every configured tokenizer. Counts of
+ * tokenizers configured later are added to existing rows at startup.
+ */
+@Entity
+@Table(name = "prompt_contents")
+// Version lists load their distinct bodies with a few IN queries instead of one select per version
+@BatchSize(size = 50)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class PromptContent implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String hash;
+
+    // BYTEA rather than a BLOB, so the data is read inline with the row on H2 and PostgreSQL alike
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] data;
+
+    // Null only for bodies stored before sizes were recorded, until they are measured at startup
+    private Integer characterCount;
+
+    private Integer byteCount;
+
+    // Keyed by tokenizer name. Queries that build responses fetch it with the body; lists load it in batches
+    @ElementCollection
+    @CollectionTable(name = "prompt_token_counts", joinColumns = @JoinColumn(name = "content_hash"))
+    @MapKeyColumn(name = "tokenizer", length = 64)
+    @Column(name = "tokens", nullable = false)
+    @BatchSize(size = 50)
+    private Map<String, Integer> tokenCounts = new HashMap<>();
+
+    // The id is assigned, so without this flag every save would first select the row to decide between insert and update
+    @Transient
+    private boolean newContent;
+
+    private PromptContent(String hash, byte[] data) {
+        this.hash = hash;
+        this.data = data;
+        this.newContent = true;
+    }
+
+    public static PromptContent of(String text) {
+        return of(text, Map.of());
+    }
+
+    public static PromptContent of(String text, Map<String, Integer> tokenCounts) {
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        PromptContent content = new PromptContent(hash(text), compress(utf8));
+        content.characterCount = text.codePointCount(0, text.length());
+        content.byteCount = utf8.length;
+        content.tokenCounts.putAll(tokenCounts);
+        return content;
+    }
+
+    /**
+     * Reconstructs a stored body from its columns, for reads that bypass JPA.
+     */
+    public static PromptContent restore(String hash, byte[] data, Integer characterCount, Integer byteCount,
+                                        Map<String, Integer> tokenCounts) {
+        PromptContent content = new PromptContent(hash, data);
+        content.newContent = false;
+        content.characterCount = characterCount;
+        content.byteCount = byteCount;
+        content.tokenCounts.putAll(tokenCounts);
+        return content;
+    }
+
+    /**
+     * Records the sizes of a body stored before they were measured, or token counts of
+     * tokenizers configured since it was stored.
+     */
+    public void measure(Map<String, Integer> tokenCounts) {
+        if (characterCount == null || byteCount == null) {
+            String text = text();
+            characterCount = text.codePointCount(0, text.length());
+            byteCount = text.getBytes(StandardCharsets.UTF_8).length;
+        }
+        this.tokenCounts.putAll(tokenCounts);
+    }
+
+    public static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Decompresses the stored text.
+     */
+    public String text() {
+        return decompress(data);
+    }
+
+    @Override
+    public String getId() {
+        return hash;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newContent;
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        newContent = false;
+    }
+
+    static byte[] compress(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, bytes.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    public static String decompress(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalStateException("Truncated prompt content");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toString(StandardCharsets.UTF_8);
+        } catch (DataFormatException ex) {
+            throw new IllegalStateException("Corrupt prompt content", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+}
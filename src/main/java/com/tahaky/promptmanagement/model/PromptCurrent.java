@@ -0,0 +1,116 @@
+package com.tahaky.promptmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
+import org.springframework.data.domain.Persistable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Points each prompt name of a tenant at its current (active) version. Activating a
+ * version updates this single row, and reading the active prompt is a primary-key lookup
+ * plus a join. A name without a row here has no active version.
+ * <p>
+ * Every index leads with the tenant, so listings of one tenant only scan its own entries.
+ */
+@Entity
+@Table(name = "prompt_current", indexes = {
+    @Index(name = "idx_prompt_current_tenant", columnList = "tenant, prompt_id"),
+    @Index(name = "idx_prompt_current_category", columnList = "tenant, category, prompt_id"),
+    @Index(name = "idx_prompt_current_updated_at", columnList = "tenant, updated_at")
+})
+@IdClass(PromptCurrent.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PromptCurrent implements Persistable<PromptCurrent.Key> {
+
+    @Id
+    @Column(length = 64)
+    private String tenant;
+
+    @Id
+    private String name;
+
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "prompt_id", nullable = false, unique = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Prompt prompt;
+
+    // Copied from the current version so category listings are served from this table's index
+    @Column(nullable = false)
+    private String category;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    // Every activation writes this row, so concurrent updates of the same prompt conflict here
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long lockVersion;
+
+    // The id is assigned, so without this flag every save would first select the row to decide between insert and update
+    @Transient
+    @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean newPointer = true;
+
+    public static PromptCurrent of(Prompt prompt) {
+        return PromptCurrent.builder()
+                .tenant(prompt.getTenant())
+                .name(prompt.getName())
+                .prompt(prompt)
+                .category(prompt.getCategory())
+                .build();
+    }
+
+    /**
+     * Moves this pointer to the given version of the same prompt.
+     */
+    public void pointTo(Prompt prompt) {
+        this.prompt = prompt;
+        this.category = prompt.getCategory();
+    }
+
+    @Override
+    public Key getId() {
+        return new Key(tenant, name);
+    }
+
+    @Override
+    public boolean isNew() {
+        return newPointer;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    protected void markPersisted() {
+        newPointer = false;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+
+        private String tenant;
+        private String name;
+    }
+}
@@ -0,0 +1,36 @@
+package com.tahaky.promptmanagement.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Heartbeat row that every application instance writes to the primary database while
+ * read replicas are enabled. Replication carries it to the replicas in commit order, so
+ * a replica showing position {@code n} has applied every write committed before beat
+ * {@code n} was written.
+ * <p>
+ * Mapped so that schema generation creates the table; it is written and read with plain
+ * JDBC by {@code ReplicaLagMonitor}, because each replica has to be queried directly.
+ */
+@Entity
+@Table(name = "replica_heartbeat")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaHeartbeat {
+
+    @Id
+    @Column(length = 36)
+    private String instanceId;
+
+    @Column(nullable = false)
+    private Long position;
+
+    // Wall-clock time of the writing instance, compared only against that instance's own clock
+    @Column(nullable = false)
+    private Long beatAtMillis;
+}
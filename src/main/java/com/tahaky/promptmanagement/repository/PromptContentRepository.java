@@ -0,0 +1,17 @@
+package com.tahaky.promptmanagement.repository;
+
+import com.tahaky.promptmanagement.model.PromptContent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PromptContentRepository extends JpaRepository<PromptContent, String> {
+
+    @Query("SELECT c.hash FROM PromptContent c WHERE c.characterCount IS NULL OR c.byteCount IS NULL "
+            + "OR (SELECT COUNT(*) FROM PromptContent m JOIN m.tokenCounts t WHERE m = c AND KEY(t) IN :tokenizers) < :tokenizerCount")
+    List<String> findHashesMissingTokenCounts(Collection<String> tokenizers, long tokenizerCount);
+}
@@ -0,0 +1,26 @@
+package com.tahaky.promptmanagement.repository;
+
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PromptCurrentRepository extends JpaRepository<PromptCurrent, PromptCurrent.Key> {
+
+    @EntityGraph(attributePaths = "prompt")
+    Optional<PromptCurrent> findWithPromptByTenantAndName(String tenant, String name);
+
+    @EntityGraph(attributePaths = "prompt")
+    List<PromptCurrent> findWithPromptByTenantAndNameIn(String tenant, Collection<String> names);
+
+    @EntityGraph(attributePaths = {"prompt", "prompt.body"})
+    Optional<PromptCurrent> findFirstWithPromptByTenantOrderByUpdatedAtDesc(String tenant);
+
+    @EntityGraph(attributePaths = {"prompt", "prompt.body"})
+    Optional<PromptCurrent> findFirstWithPromptByTenantAndCategoryOrderByUpdatedAtDesc(String tenant, String category);
+}
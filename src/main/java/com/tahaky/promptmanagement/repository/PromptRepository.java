@@ -1,26 +1,125 @@
 package com.tahaky.promptmanagement.repository;
 
+import com.tahaky.promptmanagement.dto.PromptSummary;
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
 import com.tahaky.promptmanagement.model.Prompt;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Prompt versions. Queries for active prompts start from the {@code prompt_current}
+ * pointer table and join to the version by primary key. Every query that serves a
+ * request is restricted to one tenant; only the search indexer and the startup warm-up
+ * read across tenants.
+ */
 @Repository
 public interface PromptRepository extends JpaRepository<Prompt, Long> {
 
-    Optional<Prompt> findByNameAndActive(String name, Boolean active);
+    interface NameVersion {
+        String getName();
+
+        Integer getVersion();
+    }
+
+    String SUMMARY = "new com.tahaky.promptmanagement.dto.PromptSummary(p.id, p.name, p.category, p.version, true, p.createdAt, p.updatedAt)";
+
+    String VERSION_INFO = "new com.tahaky.promptmanagement.dto.PromptVersionInfo(p.id, p.tenant, p.name, p.version)";
+
+    // The single-prompt lookups fetch the body and its token counts in the same query; lists load bodies in batches
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p JOIN FETCH p.body b LEFT JOIN FETCH b.tokenCounts "
+            + "WHERE c.tenant = :tenant AND c.name = :name")
+    Optional<Prompt> findActiveByName(String tenant, String name);
+
+    @Query("SELECT " + VERSION_INFO + " FROM PromptCurrent c JOIN c.prompt p WHERE c.tenant = :tenant AND c.name = :name")
+    Optional<PromptVersionInfo> findActiveVersionInfoByName(String tenant, String name);
+
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p JOIN FETCH p.body b LEFT JOIN FETCH b.tokenCounts "
+            + "WHERE c.tenant = :tenant AND c.name IN :names")
+    List<Prompt> findActiveByNameIn(String tenant, Collection<String> names);
+
+    // All tenants, for the search index and the startup warm-up
+    @Query("SELECT " + VERSION_INFO + " FROM PromptCurrent c JOIN c.prompt p ORDER BY c.prompt.id")
+    List<PromptVersionInfo> findAllActiveVersionInfos();
+
+    Optional<Prompt> findByIdAndTenant(Long id, String tenant);
+
+    // Listings pass Limit.unlimited() for the whole list and the page size plus one for a page
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p WHERE c.tenant = :tenant AND c.prompt.id > :id ORDER BY c.prompt.id")
+    List<Prompt> findActiveByIdGreaterThan(String tenant, Long id, Limit limit);
+
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p "
+            + "WHERE c.tenant = :tenant AND c.category = :category AND c.prompt.id > :id ORDER BY c.prompt.id")
+    List<Prompt> findActiveByCategoryAndIdGreaterThan(String tenant, String category, Long id, Limit limit);
+
+    List<Prompt> findByTenantAndNameAndVersionLessThanOrderByVersionDesc(String tenant, String name, Integer version, Limit limit);
+
+    // Content-free projections; only the columns in the PromptSummary constructor are selected
+
+    @Query("SELECT " + SUMMARY + " FROM PromptCurrent c JOIN c.prompt p "
+            + "WHERE c.tenant = :tenant AND c.prompt.id > :id ORDER BY c.prompt.id")
+    List<PromptSummary> findActiveSummariesByIdGreaterThan(String tenant, Long id, Limit limit);
+
+    @Query("SELECT " + SUMMARY + " FROM PromptCurrent c JOIN c.prompt p "
+            + "WHERE c.tenant = :tenant AND c.category = :category AND c.prompt.id > :id ORDER BY c.prompt.id")
+    List<PromptSummary> findActiveSummariesByCategoryAndIdGreaterThan(String tenant, String category, Long id, Limit limit);
+
+    List<PromptSummary> findSummariesByTenantAndNameAndVersionLessThanOrderByVersionDesc(String tenant, String name,
+                                                                                          Integer version, Limit limit);
+
+    // Token counts are stored per distinct content, so the filter runs on the small count table instead of the texts
+    @Query("SELECT new com.tahaky.promptmanagement.dto.PromptTokenUsage(p.id, p.name, p.category, p.version, KEY(t), VALUE(t), "
+            + "b.characterCount, b.byteCount) FROM PromptCurrent c JOIN c.prompt p JOIN p.body b JOIN b.tokenCounts t "
+            + "WHERE c.tenant = :tenant AND KEY(t) = :tokenizer AND VALUE(t) > :maxTokens ORDER BY VALUE(t) DESC, p.id")
+    List<PromptTokenUsage> findActiveTokenUsageAbove(String tenant, String tokenizer, int maxTokens, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p JOIN FETCH p.body b LEFT JOIN FETCH b.tokenCounts "
+            + "WHERE c.tenant = :tenant ORDER BY c.prompt.id")
+    Stream<Prompt> streamAllActive(String tenant);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM PromptCurrent c JOIN c.prompt p JOIN FETCH p.body b LEFT JOIN FETCH b.tokenCounts "
+            + "WHERE c.tenant = :tenant AND c.category = :category ORDER BY c.prompt.id")
+    Stream<Prompt> streamActiveByCategory(String tenant, String category);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Prompt p JOIN FETCH p.body b LEFT JOIN FETCH b.tokenCounts "
+            + "WHERE p.tenant = :tenant AND p.name = :name ORDER BY p.version DESC")
+    Stream<Prompt> streamByNameOrderByVersionDesc(String tenant, String name);
+
+    @Query("SELECT p FROM Prompt p JOIN FETCH p.body WHERE p.tenant = :tenant AND p.name = :name AND p.version IN :versions")
+    List<Prompt> findWithBodyByNameAndVersionIn(String tenant, String name, Collection<Integer> versions);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Prompt p JOIN FETCH p.body WHERE p.tenant = :tenant AND p.name = :name ORDER BY p.version")
+    Stream<Prompt> streamWithBodyByNameOrderByVersion(String tenant, String name);
 
-    List<Prompt> findByActive(Boolean active);
+    @Query("SELECT p FROM Prompt p JOIN FETCH p.body WHERE p.id IN :ids")
+    List<Prompt> findWithBodyByIdIn(Collection<Long> ids);
 
-    List<Prompt> findByCategoryAndActive(String category, Boolean active);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p FROM Prompt p JOIN FETCH p.body WHERE p.id > :id ORDER BY p.id")
+    Stream<Prompt> streamWithBodyByIdGreaterThanOrderById(long id);
 
-    @Query("SELECT p FROM Prompt p WHERE p.name = :name ORDER BY p.version DESC")
-    List<Prompt> findAllVersionsByName(String name);
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "5000"))
+    @Query("SELECT p.id FROM Prompt p WHERE p.id <= :id ORDER BY p.id")
+    List<Long> findIdsByIdLessThanEqualOrderById(long id);
 
-    Optional<Prompt> findTopByNameOrderByVersionDesc(String name);
+    Optional<Prompt> findTopByTenantAndNameOrderByVersionDesc(String tenant, String name);
 
-    Optional<Prompt> findFirstByActive(Boolean active);
+    @Query("SELECT p.name AS name, MAX(p.version) AS version FROM Prompt p "
+            + "WHERE p.tenant = :tenant AND p.name IN :names GROUP BY p.name")
+    List<NameVersion> findLatestVersionsByNameIn(String tenant, Collection<String> names);
 }
@@ -0,0 +1,112 @@
+package com.tahaky.promptmanagement.repository;
+
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Non-blocking counterpart of the active-version lookups in {@link PromptRepository},
+ * running over R2DBC against the same tables. Like the JPA queries, every lookup
+ * goes through the {@code prompt_current} pointer table.
+ */
+@Repository
+@ConditionalOnProperty(name = "prompt.integration.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ReactivePromptRepository {
+
+    private static final String FROM_ACTIVE = "FROM prompt_current c JOIN prompts p ON p.id = c.prompt_id ";
+    private static final String SELECT_ACTIVE = "SELECT p.id, p.tenant, p.name, p.content_hash, b.data, b.character_count, b.byte_count, "
+            + "p.category, p.version, p.created_at, p.updated_at " + FROM_ACTIVE
+            + "JOIN prompt_contents b ON b.hash = p.content_hash ";
+    private static final String SELECT_TOKEN_COUNTS = "SELECT content_hash, tokenizer, tokens FROM prompt_token_counts "
+            + "WHERE content_hash IN (:hashes)";
+    private static final String BY_NAME = "WHERE c.tenant = :tenant AND c.name = :name";
+    private static final String BY_NAMES = "WHERE c.tenant = :tenant AND c.name IN (:names)";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<Prompt> findActiveByName(String tenant, String name) {
+        return withTokenCounts(databaseClient.sql(SELECT_ACTIVE + BY_NAME)
+                .bind("tenant", tenant)
+                .bind("name", name)
+                .map(ReactivePromptRepository::toActivePrompt)
+                .all())
+                .singleOrEmpty();
+    }
+
+    public Mono<PromptVersionInfo> findActiveVersionInfoByName(String tenant, String name) {
+        return databaseClient.sql("SELECT p.id, p.tenant, p.name, p.version " + FROM_ACTIVE + BY_NAME)
+                .bind("tenant", tenant)
+                .bind("name", name)
+                .map(row -> new PromptVersionInfo(row.get("id", Long.class), row.get("tenant", String.class),
+                        row.get("name", String.class), row.get("version", Integer.class)))
+                .one();
+    }
+
+    public Flux<Prompt> findActiveByNameIn(String tenant, Collection<String> names) {
+        return withTokenCounts(databaseClient.sql(SELECT_ACTIVE + BY_NAMES)
+                .bind("tenant", tenant)
+                .bind("names", names)
+                .map(ReactivePromptRepository::toActivePrompt)
+                .all());
+    }
+
+    private record TokenCount(String hash, String tokenizer, int tokens) {
+    }
+
+    // Counts are looked up by the content hash of the rows already read. Bodies are content-addressed
+    // and never change, so a concurrent update cannot pair a body with another body's counts
+    private Flux<Prompt> withTokenCounts(Flux<Prompt> prompts) {
+        return prompts.collectList().flatMapMany(rows -> {
+            if (rows.isEmpty()) {
+                return Flux.empty();
+            }
+            Set<String> hashes = rows.stream().map(prompt -> prompt.getBody().getHash()).collect(Collectors.toSet());
+            return databaseClient.sql(SELECT_TOKEN_COUNTS)
+                    .bind("hashes", hashes)
+                    .map(row -> new TokenCount(row.get("content_hash", String.class), row.get("tokenizer", String.class),
+                            row.get("tokens", Integer.class)))
+                    .all()
+                    .collect(Collectors.groupingBy(TokenCount::hash,
+                            Collectors.toMap(TokenCount::tokenizer, TokenCount::tokens)))
+                    .flatMapIterable(counts -> {
+                        rows.forEach(prompt -> prompt.setBody(restore(prompt.getBody(),
+                                counts.getOrDefault(prompt.getBody().getHash(), Map.of()))));
+                        return rows;
+                    });
+        });
+    }
+
+    private static PromptContent restore(PromptContent body, Map<String, Integer> tokenCounts) {
+        return PromptContent.restore(body.getHash(), body.getData(), body.getCharacterCount(), body.getByteCount(),
+                tokenCounts);
+    }
+
+    private static Prompt toActivePrompt(Readable row) {
+        return Prompt.builder()
+                .id(row.get("id", Long.class))
+                .tenant(row.get("tenant", String.class))
+                .name(row.get("name", String.class))
+                .body(PromptContent.restore(row.get("content_hash", String.class), row.get("data", byte[].class),
+                        row.get("character_count", Integer.class), row.get("byte_count", Integer.class), Map.of()))
+                .category(row.get("category", String.class))
+                .version(row.get("version", Integer.class))
+                .active(true)
+                .createdAt(row.get("created_at", LocalDateTime.class))
+                .updatedAt(row.get("updated_at", LocalDateTime.class))
+                .build();
+    }
+}
@@ -0,0 +1,229 @@
+package com.tahaky.promptmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of the active version of each prompt, keyed by prompt name.
+ * Entries are loaded on read and invalidated once the writing transaction has committed,
+ * so a reader never observes a version older than the last committed write.
+ * <p>
+ * Every tenant has its own cache with its own size bound, so a tenant that reads many
+ * distinct prompts only evicts its own entries. A tenant's cache is created when the
+ * first prompt of the tenant is cached, so reads of unknown tenants allocate nothing.
+ * The tenant caches are themselves held in a bounded cache: caches of tenants that have
+ * not been read for a while, or beyond the maximum number of tenants, are dropped
+ * together with their meters.
+ * <p>
+ * Size, hit/miss and eviction counts are published as {@code cache.*} meters tagged
+ * {@code cache=active-prompts} and {@code tenant}.
+ */
+@Component
+@Slf4j
+public class ActivePromptCache implements MeterBinder {
+
+    static final String CACHE_NAME = "active-prompts";
+
+    private final Cache<String, Cache<String, PromptResponse>> caches;
+    private final long maximumSize;
+    private final Duration expireAfterWrite;
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile MeterRegistry registry;
+
+    ActivePromptCache(long maximumSize, Duration expireAfterWrite) {
+        this(maximumSize, expireAfterWrite, 1000, Duration.ofHours(1));
+    }
+
+    @Autowired
+    public ActivePromptCache(@Value("${prompt.cache.maximum-size:10000}") long maximumSize,
+                             @Value("${prompt.cache.expire-after-write:PT10M}") Duration expireAfterWrite,
+                             @Value("${prompt.cache.maximum-tenants:1000}") long maximumTenants,
+                             @Value("${prompt.cache.tenant-expire-after-access:PT1H}") Duration tenantExpireAfterAccess) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWrite = expireAfterWrite;
+        // Removal runs on the evicting thread, so the meters are gone before the tenant's cache can be created again
+        this.caches = Caffeine.newBuilder()
+                .maximumSize(maximumTenants)
+                .expireAfterAccess(tenantExpireAfterAccess)
+                .executor(Runnable::run)
+                .<String, Cache<String, PromptResponse>>removalListener(this::onTenantRemoved)
+                .build();
+    }
+
+    /**
+     * Returns the cached prompt, loading it with the given function on a miss.
+     * The loader may return {@code null}, in which case nothing is cached.
+     * <p>
+     * The loader runs outside of the cache's per-key lock: it blocks on JDBC, and a
+     * virtual thread blocking inside that monitor would pin its carrier thread.
+     * Concurrent misses for the same name may therefore load it more than once.
+     */
+    public PromptResponse get(String tenant, String name, Function<String, PromptResponse> loader) {
+        PromptResponse cached = getIfPresent(tenant, name);
+        if (cached != null) {
+            return cached;
+        }
+        long stamp = stamp();
+        PromptResponse loaded = loader.apply(name);
+        if (loaded != null) {
+            putIfNotInvalidatedSince(tenant, name, loaded, stamp);
+        }
+        return loaded;
+    }
+
+    public PromptResponse getIfPresent(String tenant, String name) {
+        Cache<String, PromptResponse> cache = caches.getIfPresent(tenant);
+        return cache != null ? cache.getIfPresent(name) : null;
+    }
+
+    public Map<String, PromptResponse> getAllPresent(String tenant, Iterable<String> names) {
+        Cache<String, PromptResponse> cache = caches.getIfPresent(tenant);
+        return cache != null ? cache.getAllPresent(names) : Map.of();
+    }
+
+    /**
+     * Returns a stamp to take before reading prompts from the database outside of
+     * {@link #get(String, String, Function)}; pass it to {@link #putIfNotInvalidatedSince}.
+     */
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches a prompt that was read after {@code stamp} was taken, unless an
+     * invalidation ran in the meantime and the value may therefore be stale.
+     */
+    public void putIfNotInvalidatedSince(String tenant, String name, PromptResponse response, long stamp) {
+        // The check runs under the key's lock, which evict() also takes after bumping the counter
+        cache(tenant).asMap()
+                .compute(name, (key, current) -> invalidations.get() == stamp ? response : current);
+    }
+
+    /**
+     * Invalidates the entry for the given prompt. Inside a transaction the eviction is
+     * deferred until after commit, otherwise it happens immediately.
+     */
+    public void invalidate(String tenant, String name) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(tenant, name);
+                }
+            });
+        } else {
+            evict(tenant, name);
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        caches.asMap().values().forEach(Cache::invalidateAll);
+    }
+
+    private void evict(String tenant, String name) {
+        invalidations.incrementAndGet();
+        Cache<String, PromptResponse> cache = caches.getIfPresent(tenant);
+        if (cache != null) {
+            cache.invalidate(name);
+        }
+    }
+
+    public long size(String tenant) {
+        Cache<String, PromptResponse> cache = caches.getIfPresent(tenant);
+        return cache != null ? cache.estimatedSize() : 0;
+    }
+
+    /**
+     * Maximum number of prompts cached per tenant.
+     */
+    public long maximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Returns a point-in-time copy of the cached prompts of every tenant.
+     */
+    public List<PromptResponse> values() {
+        return caches.asMap().values().stream()
+                .flatMap(cache -> cache.asMap().values().stream())
+                .toList();
+    }
+
+    /**
+     * Number of tenants that currently have a cache.
+     */
+    public long tenantCount() {
+        caches.cleanUp();
+        return caches.estimatedSize();
+    }
+
+    public CacheStats stats(String tenant) {
+        Cache<String, PromptResponse> cache = caches.getIfPresent(tenant);
+        return cache != null ? cache.stats() : CacheStats.empty();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+        caches.asMap().forEach((tenant, cache) -> monitor(registry, tenant, cache));
+    }
+
+    private Cache<String, PromptResponse> cache(String tenant) {
+        return caches.get(tenant, this::newCache);
+    }
+
+    private Cache<String, PromptResponse> newCache(String tenant) {
+        log.info("Creating active prompt cache for tenant {}", tenant);
+        Cache<String, PromptResponse> cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry != null) {
+            monitor(meterRegistry, tenant, cache);
+        }
+        return cache;
+    }
+
+    private static void monitor(MeterRegistry registry, String tenant, Cache<String, PromptResponse> cache) {
+        // Registering again under an existing id would return meters bound to the dropped cache
+        removeMeters(registry, tenant);
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME, "tenant", tenant);
+    }
+
+    private void onTenantRemoved(String tenant, Cache<String, PromptResponse> cache, RemovalCause cause) {
+        if (cause == RemovalCause.REPLACED) {
+            return;
+        }
+        log.info("Dropping active prompt cache of tenant {} ({})", tenant, cause);
+        MeterRegistry meterRegistry = registry;
+        if (meterRegistry != null) {
+            removeMeters(meterRegistry, tenant);
+        }
+    }
+
+    private static void removeMeters(MeterRegistry registry, String tenant) {
+        Search.in(registry).tags("cache", CACHE_NAME, "tenant", tenant).meters().forEach(registry::remove);
+    }
+}
@@ -0,0 +1,37 @@
+package com.tahaky.promptmanagement.service;
+
+import java.util.regex.Matcher;
+
+/**
+ * Vocabulary-free token estimate, always available as {@value #NAME}. The text is split
+ * like the BPE tokenizers split it before merging, and every piece is counted as one
+ * token per five characters, rounded up. For English prose this lands close to the
+ * counts of common BPE vocabularies; for code and non-Latin scripts it is rougher.
+ */
+public final class ApproximateTokenizer implements PromptTokenizer {
+
+    public static final String NAME = "estimate";
+
+    private static final int CHARACTERS_PER_TOKEN = 5;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public int count(String text) {
+        int tokens = 0;
+        Matcher pieces = BpeTokenizer.PRE_TOKENIZER.matcher(text);
+        while (pieces.find()) {
+            int start = pieces.start();
+            // The space a word piece starts with is part of its first token
+            if (pieces.end() - start > 1 && text.charAt(start) == ' ') {
+                start++;
+            }
+            int characters = text.codePointCount(start, pieces.end());
+            tokens += (characters + CHARACTERS_PER_TOKEN - 1) / CHARACTERS_PER_TOKEN;
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,131 @@
+package com.tahaky.promptmanagement.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Byte-level BPE token counter for vocabularies in the {@code .tiktoken} format: one
+ * line per token, holding the Base64 encoded token bytes and its merge rank. The text
+ * is split into pieces with the {@code cl100k_base} pattern; each piece is encoded as
+ * UTF-8 and adjacent parts are merged lowest rank first until no merge is left.
+ * <p>
+ * Pieces longer than {@value #MAX_PIECE_BYTES} bytes, e.g. long runs of whitespace or
+ * encoded blobs, are counted in slices of that size so that merging stays linear in
+ * the text length; this may count a token more per slice. Instances are immutable and
+ * thread-safe.
+ */
+public final class BpeTokenizer implements PromptTokenizer {
+
+    static final Pattern PRE_TOKENIZER = Pattern.compile(
+            "(?i:'s|'t|'re|'ve|'m|'ll|'d)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}"
+                    + "| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+(?!\\S)|\\s+",
+            Pattern.UNICODE_CHARACTER_CLASS);
+
+    static final int MAX_PIECE_BYTES = 256;
+
+    private final String name;
+    // Token bytes as ISO-8859-1 strings, one char per byte, so that slices of a piece can be looked up without copying into arrays
+    private final Map<String, Integer> ranks;
+
+    private BpeTokenizer(String name, Map<String, Integer> ranks) {
+        this.name = name;
+        this.ranks = ranks;
+    }
+
+    public static BpeTokenizer load(String name, InputStream vocabulary) throws IOException {
+        Map<String, Integer> ranks = new HashMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(vocabulary, StandardCharsets.US_ASCII));
+        int lineNumber = 0;
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            int space = line.indexOf(' ');
+            try {
+                byte[] token = Base64.getDecoder().decode(line.substring(0, space));
+                ranks.put(new String(token, StandardCharsets.ISO_8859_1), Integer.parseInt(line.substring(space + 1).strip()));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException ex) {
+                throw new IOException("Invalid entry on line " + lineNumber + " of vocabulary " + name, ex);
+            }
+        }
+        if (ranks.isEmpty()) {
+            throw new IOException("Vocabulary " + name + " is empty");
+        }
+        return new BpeTokenizer(name, Map.copyOf(ranks));
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public int count(String text) {
+        int tokens = 0;
+        Matcher pieces = PRE_TOKENIZER.matcher(text);
+        while (pieces.find()) {
+            byte[] utf8 = text.substring(pieces.start(), pieces.end()).getBytes(StandardCharsets.UTF_8);
+            String piece = new String(utf8, StandardCharsets.ISO_8859_1);
+            for (int from = 0; from < piece.length(); from += MAX_PIECE_BYTES) {
+                tokens += countPiece(piece.substring(from, Math.min(piece.length(), from + MAX_PIECE_BYTES)));
+            }
+        }
+        return tokens;
+    }
+
+    private int countPiece(String piece) {
+        int parts = piece.length();
+        if (parts == 1 || ranks.containsKey(piece)) {
+            return 1;
+        }
+        // Part i spans bounds[i] to bounds[i + 1]; pairRanks[i] is the rank of parts i and i + 1 merged
+        int[] bounds = new int[parts + 1];
+        for (int i = 0; i <= parts; i++) {
+            bounds[i] = i;
+        }
+        int[] pairRanks = new int[parts - 1];
+        for (int i = 0; i < parts - 1; i++) {
+            pairRanks[i] = rank(piece, i, i + 2);
+        }
+
+        while (parts > 1) {
+            int best = -1;
+            int bestRank = Integer.MAX_VALUE;
+            for (int i = 0; i < parts - 1; i++) {
+                if (pairRanks[i] < bestRank) {
+                    best = i;
+                    bestRank = pairRanks[i];
+                }
+            }
+            if (best < 0) {
+                break;
+            }
+            System.arraycopy(bounds, best + 2, bounds, best + 1, parts - best - 1);
+            if (parts - best - 3 > 0) {
+                System.arraycopy(pairRanks, best + 2, pairRanks, best + 1, parts - best - 3);
+            }
+            parts--;
+            if (best < parts - 1) {
+                pairRanks[best] = rank(piece, bounds[best], bounds[best + 2]);
+            }
+            if (best > 0) {
+                pairRanks[best - 1] = rank(piece, bounds[best - 1], bounds[best + 1]);
+            }
+        }
+        return parts;
+    }
+
+    private int rank(String piece, int from, int to) {
+        Integer rank = ranks.get(piece.substring(from, to));
+        return rank != null ? rank : Integer.MAX_VALUE;
+    }
+}
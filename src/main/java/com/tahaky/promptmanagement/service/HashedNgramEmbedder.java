@@ -0,0 +1,117 @@
+package com.tahaky.promptmanagement.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Bag-of-n-grams embedding computed locally, without a model: word unigrams, word
+ * bigrams and character trigrams of every word are hashed into a fixed number of
+ * buckets (the hashing trick), each with a hash-derived sign so that collisions cancel
+ * out on average instead of piling up. Counts are damped with a square root, so a
+ * repeated phrase does not dominate, and the vector is normalised to unit length.
+ * <p>
+ * Texts that share wording, word order and word stems end up close to each other,
+ * which is what near-duplicate detection needs. It does not capture synonyms.
+ */
+@Component
+public class HashedNgramEmbedder implements PromptEmbedder {
+
+    private static final float CHARACTER_GRAM_WEIGHT = 0.5f;
+
+    private final int dimension;
+
+    public HashedNgramEmbedder(@Value("${prompt.similarity.dimension:256}") int dimension) {
+        if (dimension < 8) {
+            throw new IllegalArgumentException("Embedding dimension must be at least 8, got " + dimension);
+        }
+        this.dimension = dimension;
+    }
+
+    @Override
+    public String id() {
+        return "hashed-ngram-" + dimension;
+    }
+
+    @Override
+    public int dimension() {
+        return dimension;
+    }
+
+    @Override
+    public float[] embed(String text) {
+        float[] vector = new float[dimension];
+        String normalized = text.toLowerCase(Locale.ROOT);
+        int previousWordHash = 0;
+        boolean hasPrevious = false;
+        int i = 0;
+        while (i < normalized.length()) {
+            if (!Character.isLetterOrDigit(normalized.charAt(i))) {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i))) {
+                i++;
+            }
+            int wordHash = hash(normalized, start, i, 0x9747b28c);
+            add(vector, wordHash, 1f);
+            if (hasPrevious) {
+                add(vector, mix(previousWordHash * 31 + wordHash), 1f);
+            }
+            // Trigrams of the word padded with boundaries, e.g. "^re", "ref", ..., "nd$"
+            for (int g = start - 1; g + 3 <= i + 1; g++) {
+                add(vector, trigramHash(normalized, g, start, i), CHARACTER_GRAM_WEIGHT);
+            }
+            previousWordHash = wordHash;
+            hasPrevious = true;
+        }
+
+        double norm = 0;
+        for (int d = 0; d < dimension; d++) {
+            float damped = (float) Math.copySign(Math.sqrt(Math.abs(vector[d])), vector[d]);
+            vector[d] = damped;
+            norm += damped * damped;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int d = 0; d < dimension; d++) {
+                vector[d] *= scale;
+            }
+        }
+        return vector;
+    }
+
+    private void add(float[] vector, int hash, float weight) {
+        // Low bits choose the bucket, the top bit the sign
+        vector[Math.floorMod(hash, dimension)] += hash < 0 ? -weight : weight;
+    }
+
+    private static int trigramHash(String text, int from, int wordStart, int wordEnd) {
+        int h = 0x5bd1e995;
+        for (int k = from; k < from + 3; k++) {
+            char c = k < wordStart ? '^' : k >= wordEnd ? '$' : text.charAt(k);
+            h = h * 31 + c;
+        }
+        return mix(h);
+    }
+
+    private static int hash(String text, int from, int to, int seed) {
+        int h = seed;
+        for (int k = from; k < to; k++) {
+            h = h * 31 + text.charAt(k);
+        }
+        return mix(h);
+    }
+
+    // Murmur3 finalizer, spreads similar inputs over all bits
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
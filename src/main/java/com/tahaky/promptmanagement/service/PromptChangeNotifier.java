@@ -0,0 +1,265 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.exception.SubscriberLimitExceededException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes {@link PromptChangeEvent}s to Server-Sent Events subscribers once the
+ * writing transaction has committed. Subscribers only receive changes of their own tenant.
+ * <p>
+ * Subscriptions are asynchronous servlet responses, so an idle subscriber holds a
+ * connection but no request thread. A single dispatcher thread fans events out into a
+ * bounded buffer per subscriber, which keeps events in commit order for every
+ * subscriber without ever blocking on a client. A pool of writer threads drains the
+ * buffers, one subscriber at a time per writer, so a client that stops reading only
+ * occupies one writer until its socket write times out. A subscriber whose buffer is
+ * full has fallen behind and is completed; {@code EventSource} clients reconnect and
+ * re-read the prompt to catch up.
+ * <p>
+ * The number of open subscriptions is published as the {@code prompt.events.subscribers} gauge,
+ * and subscribers dropped for falling behind are counted in {@code prompt.events.dropped}.
+ */
+@Component
+@Slf4j
+public class PromptChangeNotifier implements MeterBinder {
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(daemon("prompt-events-dispatch"));
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(daemon("prompt-events-heartbeat"));
+
+    private final long emitterTimeoutMillis;
+    private final int maxSubscribers;
+    private final int bufferSize;
+
+    public PromptChangeNotifier(@Value("${prompt.events.emitter-timeout:PT30M}") Duration emitterTimeout,
+                                @Value("${prompt.events.heartbeat-interval:PT30S}") Duration heartbeatInterval,
+                                @Value("${prompt.events.max-subscribers:50000}") int maxSubscribers,
+                                @Value("${prompt.events.writer-threads:8}") int writerThreads,
+                                @Value("${prompt.events.subscriber-buffer-size:64}") int bufferSize) {
+        this.emitterTimeoutMillis = emitterTimeout.toMillis();
+        this.maxSubscribers = maxSubscribers;
+        this.bufferSize = bufferSize;
+        CustomizableThreadFactory writerThreadFactory = new CustomizableThreadFactory("prompt-events-writer-");
+        writerThreadFactory.setDaemon(true);
+        this.writers = Executors.newFixedThreadPool(writerThreads, writerThreadFactory);
+        long interval = heartbeatInterval.toMillis();
+        heartbeat.scheduleAtFixedRate(() -> dispatcher.execute(this::sendHeartbeat), interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribes to changes of a single prompt.
+     */
+    public SseEmitter subscribeToPrompt(String tenant, String name) {
+        return subscribe(nameTopic(tenant, name));
+    }
+
+    /**
+     * Subscribes to changes of every prompt in a category, or of every prompt when
+     * no category is given.
+     */
+    public SseEmitter subscribeToCategory(String tenant, String category) {
+        return subscribe(category == null ? allTopic(tenant) : categoryTopic(tenant, category));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("prompt.events.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open Server-Sent Events subscriptions")
+                .register(registry);
+        FunctionCounter.builder("prompt.events.dropped", dropped, AtomicLong::get)
+                .description("Server-Sent Events subscribers completed because they fell behind")
+                .register(registry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromptChange(PromptChangeEvent event) {
+        dispatcher.execute(() -> {
+            String tenant = event.getTenant();
+            List<String> topics = new ArrayList<>(List.of(
+                    nameTopic(tenant, event.getName()), categoryTopic(tenant, event.getCategory()), allTopic(tenant)));
+            // A prompt moved to another category also leaves the one it was in
+            if (event.getPreviousCategory() != null) {
+                topics.add(categoryTopic(tenant, event.getPreviousCategory()));
+            }
+            for (String topic : topics) {
+                Set<Subscriber> topicSubscribers = subscribers.get(topic);
+                if (topicSubscribers == null) {
+                    continue;
+                }
+                for (Subscriber subscriber : topicSubscribers) {
+                    enqueue(subscriber, SseEmitter.event()
+                            .name("prompt-change")
+                            .id(event.getId() + "-" + event.getVersion())
+                            .data(event));
+                }
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        dispatcher.shutdownNow();
+        writers.shutdownNow();
+        subscribers.values().forEach(topicSubscribers -> topicSubscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        subscribers.clear();
+    }
+
+    private SseEmitter subscribe(String topic) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new SubscriberLimitExceededException("Prompt event subscriber limit of " + maxSubscribers + " reached");
+        }
+
+        SseEmitter emitter = createEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = new Subscriber(topic, emitter, bufferSize);
+        subscribers.compute(topic, (key, topicSubscribers) -> {
+            Set<Subscriber> updated = topicSubscribers != null ? topicSubscribers : ConcurrentHashMap.newKeySet();
+            updated.add(subscriber);
+            return updated;
+        });
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(error -> remove(subscriber));
+
+        // Flush the response headers so the client sees the stream open immediately
+        enqueue(subscriber, SseEmitter.event().comment("subscribed"));
+        log.debug("New prompt event subscriber on topic {}", topic);
+        return emitter;
+    }
+
+    SseEmitter createEmitter(long timeoutMillis) {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private void sendHeartbeat() {
+        subscribers.values().forEach(topicSubscribers ->
+                topicSubscribers.forEach(subscriber -> enqueue(subscriber, SseEmitter.event().comment("heartbeat"))));
+    }
+
+    private void enqueue(Subscriber subscriber, SseEmitter.SseEventBuilder event) {
+        if (!subscriber.buffer.offer(event)) {
+            // The client is not reading fast enough; it reconnects and catches up by re-reading
+            if (remove(subscriber)) {
+                dropped.incrementAndGet();
+                log.debug("Dropping prompt event subscriber on topic {} that fell behind", subscriber.topic);
+                subscriber.emitter.complete();
+            }
+            return;
+        }
+        schedule(subscriber);
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            try {
+                writers.execute(() -> flush(subscriber));
+            } catch (RejectedExecutionException ex) {
+                subscriber.scheduled.set(false);
+            }
+        }
+    }
+
+    // Runs on a writer thread; the scheduled flag keeps a subscriber on one writer at a time
+    private void flush(Subscriber subscriber) {
+        for (SseEmitter.SseEventBuilder event; (event = subscriber.buffer.poll()) != null; ) {
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException ex) {
+                // The client went away; drop the subscription and release the connection
+                remove(subscriber);
+                subscriber.buffer.clear();
+                subscriber.emitter.completeWithError(ex);
+                return;
+            }
+        }
+        subscriber.scheduled.set(false);
+        // An event may have been buffered after the last poll but before the flag was cleared
+        if (!subscriber.buffer.isEmpty()) {
+            schedule(subscriber);
+        }
+    }
+
+    private boolean remove(Subscriber subscriber) {
+        boolean[] removed = {false};
+        subscribers.computeIfPresent(subscriber.topic, (key, topicSubscribers) -> {
+            if (topicSubscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+                removed[0] = true;
+            }
+            return topicSubscribers.isEmpty() ? null : topicSubscribers;
+        });
+        return removed[0];
+    }
+
+    private static String nameTopic(String tenant, String name) {
+        return tenant + "/name:" + name;
+    }
+
+    private static String categoryTopic(String tenant, String category) {
+        return tenant + "/category:" + category;
+    }
+
+    private static String allTopic(String tenant) {
+        return tenant + "/*";
+    }
+
+    private static ThreadFactory daemon(String threadName) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Subscriber {
+
+        private final String topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(String topic, SseEmitter emitter, int bufferSize) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+    }
+}
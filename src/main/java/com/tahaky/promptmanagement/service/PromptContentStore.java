@@ -0,0 +1,153 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.repository.PromptContentRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed storage of prompt bodies. Versions that share a text, e.g. an
+ * update that only changes the category, reference the same {@link PromptContent} row
+ * instead of storing another copy, and its sizes and token counts are computed only
+ * when the text is first stored.
+ * <p>
+ * New bodies are inserted with the database's insert-if-absent statement in the
+ * transaction that writes the versions, on its connection. Two writes that store the
+ * same new text at the same time therefore do not fail on the primary key: the second
+ * waits for the first to commit, skips the row and reads it back.
+ */
+@Service
+@Slf4j
+public class PromptContentStore implements ApplicationRunner {
+
+    private static final int MEASURE_CHUNK_SIZE = 500;
+
+    private final PromptContentRepository promptContentRepository;
+    private final PromptTokenizers promptTokenizers;
+    private final TransactionTemplate transactionTemplate;
+    // Takes part in the JPA transaction, which exposes its connection to JDBC access
+    private final JdbcTemplate jdbcTemplate;
+    private volatile InsertStatements insertStatements;
+
+    public PromptContentStore(PromptContentRepository promptContentRepository,
+                              PromptTokenizers promptTokenizers,
+                              TransactionTemplate transactionTemplate,
+                              JdbcTemplate jdbcTemplate) {
+        this.promptContentRepository = promptContentRepository;
+        this.promptTokenizers = promptTokenizers;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Sets the body of each new prompt version from its content, reusing stored bodies
+     * with the same hash and inserting the missing ones in one batch. Must run in the
+     * transaction that saves the versions.
+     */
+    public void attach(Collection<Prompt> prompts) {
+        Map<String, String> texts = new LinkedHashMap<>();
+        prompts.forEach(prompt -> texts.putIfAbsent(PromptContent.hash(prompt.getContent()), prompt.getContent()));
+        if (texts.isEmpty()) {
+            return;
+        }
+        // Loaded in one query rather than referenced, because responses report the sizes of
+        // the body; the stored text is not decompressed, the versions already carry it
+        Map<String, PromptContent> bodies = new HashMap<>();
+        promptContentRepository.findAllById(texts.keySet()).forEach(body -> bodies.put(body.getHash(), body));
+
+        List<PromptContent> missing = new ArrayList<>();
+        texts.forEach((hash, text) -> {
+            if (!bodies.containsKey(hash)) {
+                missing.add(PromptContent.of(text, promptTokenizers.count(text)));
+            }
+        });
+        if (!missing.isEmpty()) {
+            insertIfAbsent(missing);
+            promptContentRepository.findAllById(missing.stream().map(PromptContent::getHash).toList())
+                    .forEach(body -> bodies.put(body.getHash(), body));
+        }
+
+        for (Prompt prompt : prompts) {
+            prompt.setBody(bodies.get(PromptContent.hash(prompt.getContent())));
+        }
+    }
+
+    void insertIfAbsent(List<PromptContent> missing) {
+        InsertStatements statements = insertStatements();
+        jdbcTemplate.batchUpdate(statements.body(), missing, missing.size(), (ps, body) -> {
+            ps.setString(1, body.getHash());
+            ps.setBytes(2, body.getData());
+            ps.setObject(3, body.getCharacterCount());
+            ps.setObject(4, body.getByteCount());
+        });
+        List<Object[]> tokenCounts = new ArrayList<>();
+        missing.forEach(body -> body.getTokenCounts()
+                .forEach((tokenizer, tokens) -> tokenCounts.add(new Object[] {body.getHash(), tokenizer, tokens})));
+        if (!tokenCounts.isEmpty()) {
+            jdbcTemplate.batchUpdate(statements.tokenCount(), tokenCounts);
+        }
+    }
+
+    private InsertStatements insertStatements() {
+        InsertStatements statements = insertStatements;
+        if (statements == null) {
+            String database = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            statements = InsertStatements.forDatabase(database);
+            insertStatements = statements;
+        }
+        return statements;
+    }
+
+    /**
+     * Insert-if-absent statements for the body and its token counts. H2's {@code MERGE}
+     * waits for a concurrent insert of the same key and then overwrites the row with the
+     * identical values; PostgreSQL skips the conflicting row.
+     */
+    record InsertStatements(String body, String tokenCount) {
+
+        static InsertStatements forDatabase(String database) {
+            return switch (database) {
+                case "H2" -> new InsertStatements(
+                        "MERGE INTO prompt_contents (hash, data, character_count, byte_count) KEY (hash) VALUES (?, ?, ?, ?)",
+                        "MERGE INTO prompt_token_counts (content_hash, tokenizer, tokens) KEY (content_hash, tokenizer) VALUES (?, ?, ?)");
+                case "PostgreSQL" -> new InsertStatements(
+                        "INSERT INTO prompt_contents (hash, data, character_count, byte_count) VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                        "INSERT INTO prompt_token_counts (content_hash, tokenizer, tokens) VALUES (?, ?, ?) ON CONFLICT DO NOTHING");
+                default -> throw new IllegalStateException("Storing prompt content is not supported on " + database);
+            };
+        }
+    }
+
+    /**
+     * Measures the bodies that lack sizes or the count of a configured tokenizer, i.e.
+     * bodies stored before sizes were recorded or before a vocabulary was added.
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        List<String> unmeasured = promptContentRepository.findHashesMissingTokenCounts(
+                promptTokenizers.names(), promptTokenizers.names().size());
+        if (unmeasured.isEmpty()) {
+            return;
+        }
+        log.info("Measuring {} stored prompt bodies", unmeasured.size());
+        for (int from = 0; from < unmeasured.size(); from += MEASURE_CHUNK_SIZE) {
+            List<String> chunk = unmeasured.subList(from, Math.min(unmeasured.size(), from + MEASURE_CHUNK_SIZE));
+            transactionTemplate.executeWithoutResult(status -> promptContentRepository.findAllById(chunk)
+                    .forEach(body -> body.measure(promptTokenizers.count(body.text()))));
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.tahaky.promptmanagement.service;
+
+import com.github.difflib.DiffUtils;
+import com.github.difflib.algorithm.myers.MeyersDiffWithLinearSpace;
+import com.github.difflib.patch.AbstractDelta;
+import com.github.difflib.patch.ChangeDelta;
+import com.github.difflib.patch.Chunk;
+import com.tahaky.promptmanagement.dto.PromptDiffChunk;
+import com.tahaky.promptmanagement.dto.PromptDiffResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionDelta;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Differences between prompt versions. Content is split into line or word tokens and
+ * compared with Myers' algorithm in linear space. The common prefix and suffix are
+ * stripped first, so a local edit to a large prompt only diffs the edited region, and
+ * versions sharing a stored body are recognised by hash without being compared.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromptDiffService {
+
+    static final long MAX_TOKEN_COMPARISONS = 10_000_000;
+
+    private final PromptRepository promptRepository;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public PromptDiffResponse diff(String tenant, String name, int fromVersion, int toVersion, PromptDiffResponse.Granularity granularity) {
+        log.info("Diffing prompt {} from version {} to version {}", name, fromVersion, toVersion);
+        if (fromVersion < 1 || toVersion < 1) {
+            throw new InvalidPromptRequestException("Versions must be positive");
+        }
+
+        Map<Integer, Prompt> versions = promptRepository.findWithBodyByNameAndVersionIn(tenant, name, List.of(fromVersion, toVersion))
+                .stream()
+                .collect(Collectors.toMap(Prompt::getVersion, Function.identity()));
+        Prompt from = requireVersion(versions, name, fromVersion);
+        Prompt to = requireVersion(versions, name, toVersion);
+
+        List<PromptDiffChunk> chunks = new ArrayList<>();
+        if (!from.contentHash().equals(to.contentHash())) {
+            List<String> source = tokenize(from.getContent(), granularity);
+            List<String> target = tokenize(to.getContent(), granularity);
+            for (AbstractDelta<String> delta : diff(source, target)) {
+                chunks.add(PromptDiffChunk.builder()
+                        .type(PromptDiffChunk.Type.valueOf(delta.getType().name()))
+                        .sourcePosition(delta.getSource().getPosition())
+                        .sourceText(String.join("", delta.getSource().getLines()))
+                        .targetPosition(delta.getTarget().getPosition())
+                        .targetText(String.join("", delta.getTarget().getLines()))
+                        .build());
+            }
+        }
+
+        return PromptDiffResponse.builder()
+                .name(name)
+                .fromVersion(fromVersion)
+                .toVersion(toVersion)
+                .granularity(granularity)
+                .chunks(chunks)
+                .build();
+    }
+
+    /**
+     * Streams the version history oldest first, each version encoded as edits to the
+     * previous one. Only the previous version's tokens are held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void exportVersionDeltas(String tenant, String name, PromptDiffResponse.Granularity granularity, Consumer<PromptVersionDelta> sink) {
+        log.info("Exporting delta-encoded version history for prompt: {}", name);
+
+        try (Stream<Prompt> prompts = promptRepository.streamWithBodyByNameOrderByVersion(tenant, name)) {
+            Prompt previous = null;
+            List<String> previousTokens = List.of();
+            for (Iterator<Prompt> it = prompts.iterator(); it.hasNext(); ) {
+                Prompt prompt = it.next();
+                PromptVersionDelta.PromptVersionDeltaBuilder delta = PromptVersionDelta.builder()
+                        .id(prompt.getId())
+                        .version(prompt.getVersion())
+                        .category(prompt.getCategory())
+                        .createdAt(prompt.getCreatedAt());
+                if (previous == null) {
+                    delta.content(prompt.getContent());
+                    previousTokens = tokenize(prompt.getContent(), granularity);
+                } else {
+                    List<PromptVersionDelta.Edit> edits = new ArrayList<>();
+                    if (!previous.contentHash().equals(prompt.contentHash())) {
+                        List<String> tokens = tokenize(prompt.getContent(), granularity);
+                        for (AbstractDelta<String> change : diff(previousTokens, tokens)) {
+                            edits.add(new PromptVersionDelta.Edit(change.getSource().getPosition(),
+                                    change.getSource().size(), String.join("", change.getTarget().getLines())));
+                        }
+                        previousTokens = tokens;
+                    }
+                    delta.baseVersion(previous.getVersion()).edits(edits);
+                }
+                sink.accept(delta.build());
+                previous = prompt;
+                entityManager.detach(prompt);
+                entityManager.detach(prompt.getBody());
+            }
+        }
+    }
+
+    /**
+     * Splits content into tokens that concatenate back to the content: lines including
+     * their line break, or alternating runs of non-whitespace and whitespace.
+     */
+    static List<String> tokenize(String content, PromptDiffResponse.Granularity granularity) {
+        List<String> tokens = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < content.length(); i++) {
+            boolean boundary = granularity == PromptDiffResponse.Granularity.LINE
+                    ? content.charAt(i) == '\n'
+                    : i + 1 < content.length()
+                            && Character.isWhitespace(content.charAt(i)) != Character.isWhitespace(content.charAt(i + 1));
+            if (boundary) {
+                tokens.add(content.substring(start, i + 1));
+                start = i + 1;
+            }
+        }
+        if (start < content.length()) {
+            tokens.add(content.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Diffs two token lists, running the diff algorithm only on the region between
+     * their common prefix and suffix. Positions in the result refer to the full lists,
+     * and a deletion directly followed by an insertion is reported as one change.
+     */
+    static List<AbstractDelta<String>> diff(List<String> source, List<String> target) {
+        int prefix = 0;
+        int max = Math.min(source.size(), target.size());
+        while (prefix < max && source.get(prefix).equals(target.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && source.get(source.size() - 1 - suffix).equals(target.get(target.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<String> sourceMiddle = source.subList(prefix, source.size() - suffix);
+        List<String> targetMiddle = target.subList(prefix, target.size() - suffix);
+        List<AbstractDelta<String>> changes;
+        try {
+            changes = DiffUtils.diff(sourceMiddle, targetMiddle, new MeyersDiffWithLinearSpace<>(budgetedEquals())).getDeltas();
+        } catch (ComparisonBudgetExceededException ex) {
+            // Largely rewritten content: report the differing region as a single change
+            return List.of(new ChangeDelta<>(new Chunk<>(prefix, sourceMiddle), new Chunk<>(prefix, targetMiddle)));
+        }
+
+        List<AbstractDelta<String>> deltas = new ArrayList<>();
+        for (AbstractDelta<String> delta : changes) {
+            Chunk<String> from = new Chunk<>(delta.getSource().getPosition() + prefix, delta.getSource().getLines());
+            Chunk<String> to = new Chunk<>(delta.getTarget().getPosition() + prefix, delta.getTarget().getLines());
+            AbstractDelta<String> last = deltas.isEmpty() ? null : deltas.get(deltas.size() - 1);
+            if (last != null
+                    && last.getSource().getPosition() + last.getSource().size() == from.getPosition()
+                    && last.getTarget().getPosition() + last.getTarget().size() == to.getPosition()) {
+                from = new Chunk<>(last.getSource().getPosition(), concat(last.getSource().getLines(), from.getLines()));
+                to = new Chunk<>(last.getTarget().getPosition(), concat(last.getTarget().getLines(), to.getLines()));
+                deltas.set(deltas.size() - 1, new ChangeDelta<>(from, to));
+            } else {
+                deltas.add(delta.withChunks(from, to));
+            }
+        }
+        return deltas;
+    }
+
+    /**
+     * Myers' algorithm takes time proportional to the input size times the number of
+     * differences, so diffs of largely rewritten large prompts are cut off after a
+     * fixed number of token comparisons.
+     */
+    private static BiPredicate<String, String> budgetedEquals() {
+        long[] comparisons = new long[1];
+        return (a, b) -> {
+            if (++comparisons[0] > MAX_TOKEN_COMPARISONS) {
+                throw new ComparisonBudgetExceededException();
+            }
+            return a.equals(b);
+        };
+    }
+
+    private static final class ComparisonBudgetExceededException extends RuntimeException {
+
+        ComparisonBudgetExceededException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static List<String> concat(List<String> first, List<String> second) {
+        List<String> lines = new ArrayList<>(first.size() + second.size());
+        lines.addAll(first);
+        lines.addAll(second);
+        return lines;
+    }
+
+    private static Prompt requireVersion(Map<Integer, Prompt> versions, String name, int version) {
+        Prompt prompt = versions.get(version);
+        if (prompt == null) {
+            throw new PromptNotFoundException("Version " + version + " of prompt '" + name + "' not found");
+        }
+        return prompt;
+    }
+}
@@ -0,0 +1,22 @@
+package com.tahaky.promptmanagement.service;
+
+/**
+ * Turns prompt content into a fixed-size vector for similarity search. Vectors must be
+ * unit length (or all zeros when the text has no features), so that their dot product
+ * is the cosine similarity.
+ * <p>
+ * The default is {@link HashedNgramEmbedder}; declaring another implementation as a
+ * {@code @Primary} bean replaces it. A persistent search index records the
+ * {@link #id()} it was built with and is rebuilt when the embedder changes.
+ */
+public interface PromptEmbedder {
+
+    /**
+     * Identifies the embedding model and its parameters, e.g. {@code hashed-ngram-256}.
+     */
+    String id();
+
+    int dimension();
+
+    float[] embed(String text);
+}
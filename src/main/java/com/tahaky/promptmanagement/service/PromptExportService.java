@@ -0,0 +1,62 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Streams listings row by row from a scrolling result set. Every entity is detached
+ * once it has been handed to the sink, so memory use does not grow with the result.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromptExportService {
+
+    private final PromptRepository promptRepository;
+    private final EntityManager entityManager;
+
+    @Transactional(readOnly = true)
+    public void exportActivePrompts(String tenant, Consumer<PromptResponse> sink) {
+        log.info("Exporting all active prompts of tenant: {}", tenant);
+
+        try (Stream<Prompt> prompts = promptRepository.streamAllActive(tenant)) {
+            export(prompts, sink);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPromptsByCategory(String tenant, String category, Consumer<PromptResponse> sink) {
+        log.info("Exporting prompts by category: {}", category);
+
+        try (Stream<Prompt> prompts = promptRepository.streamActiveByCategory(tenant, category)) {
+            export(prompts, sink);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void exportPromptVersionHistory(String tenant, String name, Consumer<PromptResponse> sink) {
+        log.info("Exporting version history for prompt: {}", name);
+
+        try (Stream<Prompt> prompts = promptRepository.streamByNameOrderByVersionDesc(tenant, name)) {
+            export(prompts, sink);
+        }
+    }
+
+    private void export(Stream<Prompt> prompts, Consumer<PromptResponse> sink) {
+        prompts.forEach(prompt -> {
+            sink.accept(PromptService.convertToResponse(prompt));
+            entityManager.detach(prompt);
+            // Bodies are fetched with their rows, so they are detached along with them
+            entityManager.detach(prompt.getBody());
+        });
+    }
+}
@@ -0,0 +1,325 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.dto.PromptImportItem;
+import com.tahaky.promptmanagement.dto.PromptImportResponse;
+import com.tahaky.promptmanagement.dto.PromptImportResult;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Applies a stream of create/update operations in chunks. Each chunk runs in its own
+ * transaction, resolves the current state of all its prompts with a few set-based
+ * queries and writes the new versions and pointer changes as JDBC batches.
+ */
+@Service
+@Slf4j
+public class PromptImportService {
+
+    private final PromptRepository promptRepository;
+    private final PromptCurrentRepository promptCurrentRepository;
+    private final PromptContentStore promptContentStore;
+    private final ActivePromptCache activePromptCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final int chunkSize;
+
+    public PromptImportService(PromptRepository promptRepository,
+                               PromptCurrentRepository promptCurrentRepository,
+                               PromptContentStore promptContentStore,
+                               ActivePromptCache activePromptCache,
+                               ApplicationEventPublisher eventPublisher,
+                               TransactionTemplate transactionTemplate,
+                               Validator validator,
+                               @Value("${prompt.import.chunk-size:500}") int chunkSize) {
+        this.promptRepository = promptRepository;
+        this.promptCurrentRepository = promptCurrentRepository;
+        this.promptContentStore = promptContentStore;
+        this.activePromptCache = activePromptCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.validator = validator;
+        this.chunkSize = chunkSize;
+    }
+
+    public PromptImportResponse importPrompts(String tenant, Iterator<PromptImportItem> items) {
+        log.info("Starting bulk import for tenant {} with chunk size {}", tenant, chunkSize);
+
+        List<PromptImportResult> results = new ArrayList<>();
+        List<PromptImportItem> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        String readError = null;
+        while (true) {
+            PromptImportItem item;
+            try {
+                if (!items.hasNext()) {
+                    break;
+                }
+                item = items.next();
+            } catch (RuntimeException ex) {
+                // A malformed item leaves the parser at an unknown position, so stop reading
+                readError = "Malformed import item, import stopped: " + ex.getMessage();
+                break;
+            }
+            chunk.add(item);
+            index++;
+            if (chunk.size() == chunkSize) {
+                results.addAll(importChunk(tenant, index - chunk.size(), chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(tenant, index - chunk.size(), chunk));
+        }
+        if (readError != null) {
+            results.add(failed(index, null, readError));
+        }
+
+        Map<PromptImportResult.Status, Long> counts = results.stream()
+                .collect(Collectors.groupingBy(PromptImportResult::getStatus, Collectors.counting()));
+        log.info("Bulk import finished: {} operations, {}", results.size(), counts);
+
+        return PromptImportResponse.builder()
+                .total(results.size())
+                .created(counts.getOrDefault(PromptImportResult.Status.CREATED, 0L).intValue())
+                .updated(counts.getOrDefault(PromptImportResult.Status.UPDATED, 0L).intValue())
+                .unchanged(counts.getOrDefault(PromptImportResult.Status.UNCHANGED, 0L).intValue())
+                .failed(counts.getOrDefault(PromptImportResult.Status.FAILED, 0L).intValue())
+                .results(results)
+                .build();
+    }
+
+    private List<PromptImportResult> importChunk(String tenant, int firstIndex, List<PromptImportItem> chunk) {
+        PromptImportResult[] results = new PromptImportResult[chunk.size()];
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyChunk(tenant, firstIndex, chunk, results));
+        } catch (DataAccessException | TransactionException ex) {
+            log.warn("Bulk import chunk starting at item {} was rolled back", firstIndex, ex);
+            for (int i = 0; i < results.length; i++) {
+                PromptImportResult result = results[i];
+                if (result == null || result.getStatus() == PromptImportResult.Status.CREATED
+                        || result.getStatus() == PromptImportResult.Status.UPDATED) {
+                    results[i] = failed(firstIndex + i, nameOf(chunk.get(i)),
+                            "Chunk rolled back: " + ex.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void applyChunk(String tenant, int firstIndex, List<PromptImportItem> chunk, PromptImportResult[] results) {
+        // A JSON null line or array element is reported by validate() like any invalid item
+        Set<String> names = chunk.stream()
+                .filter(Objects::nonNull)
+                .map(PromptImportItem::getName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+
+        Map<String, PromptCurrent> pointers = new HashMap<>();
+        promptCurrentRepository.findWithPromptByTenantAndNameIn(tenant, names)
+                .forEach(pointer -> pointers.put(pointer.getName(), pointer));
+        Map<String, Integer> latestVersions = new HashMap<>();
+        promptRepository.findLatestVersionsByNameIn(tenant, names)
+                .forEach(latest -> latestVersions.put(latest.getName(), latest.getVersion()));
+        ChunkState state = new ChunkState(pointers);
+        Map<String, Prompt> activeByName = state.activeByName;
+
+        List<Prompt> inserts = new ArrayList<>();
+        List<Integer> insertSlots = new ArrayList<>();
+        List<String> previousCategories = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            PromptImportItem item = chunk.get(i);
+            int index = firstIndex + i;
+
+            String error = validate(item);
+            if (error != null) {
+                results[i] = failed(index, nameOf(item), error);
+                continue;
+            }
+
+            Prompt existing = activeByName.get(item.getName());
+            PromptImportItem.Operation operation = item.getOperation() != null ? item.getOperation() : PromptImportItem.Operation.UPSERT;
+            if (operation == PromptImportItem.Operation.UPSERT) {
+                operation = existing != null ? PromptImportItem.Operation.UPDATE : PromptImportItem.Operation.CREATE;
+            }
+            boolean active = item.getActive() == null || item.getActive();
+
+            if (operation == PromptImportItem.Operation.CREATE) {
+                if (existing != null) {
+                    results[i] = failed(index, item.getName(), "Prompt with name '" + item.getName() + "' already exists");
+                    continue;
+                }
+                if (item.getCategory() == null || item.getCategory().isBlank()) {
+                    results[i] = failed(index, item.getName(), "Category is required to create a prompt");
+                    continue;
+                }
+            } else {
+                if (existing == null) {
+                    results[i] = failed(index, item.getName(), "Prompt with name '" + item.getName() + "' not found");
+                    continue;
+                }
+                if (isUnchanged(existing, item, active)) {
+                    results[i] = result(index, PromptImportResult.Status.UNCHANGED, existing);
+                    continue;
+                }
+                state.deactivate(existing);
+            }
+
+            int version = latestVersions.getOrDefault(item.getName(), 0) + 1;
+            latestVersions.put(item.getName(), version);
+            Prompt prompt = Prompt.builder()
+                    .tenant(tenant)
+                    .name(item.getName())
+                    .content(item.getContent())
+                    .category(item.getCategory() != null ? item.getCategory() : existing.getCategory())
+                    .active(active)
+                    .version(version)
+                    .build();
+            if (active) {
+                state.activate(prompt);
+            }
+
+            inserts.add(prompt);
+            insertSlots.add(i);
+            previousCategories.add(existing != null ? existing.getCategory() : null);
+            results[i] = PromptImportResult.builder()
+                    .index(index)
+                    .name(item.getName())
+                    .status(operation == PromptImportItem.Operation.CREATE
+                            ? PromptImportResult.Status.CREATED
+                            : PromptImportResult.Status.UPDATED)
+                    .build();
+        }
+
+        promptContentStore.attach(inserts);
+        List<Prompt> saved = promptRepository.saveAll(inserts);
+        state.syncPointers(promptCurrentRepository);
+
+        for (int k = 0; k < saved.size(); k++) {
+            Prompt prompt = saved.get(k);
+            PromptImportResult result = results[insertSlots.get(k)];
+            result.setId(prompt.getId());
+            result.setVersion(prompt.getVersion());
+            activePromptCache.invalidate(tenant, prompt.getName());
+            eventPublisher.publishEvent(PromptService.changeEvent(result.getStatus() == PromptImportResult.Status.CREATED
+                    ? PromptChangeEvent.Type.CREATED
+                    : PromptChangeEvent.Type.UPDATED, prompt, previousCategories.get(k)));
+        }
+    }
+
+    private String validate(PromptImportItem item) {
+        if (item == null) {
+            return "Import item is empty";
+        }
+        Set<ConstraintViolation<PromptImportItem>> violations = validator.validate(item);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String nameOf(PromptImportItem item) {
+        return item != null ? item.getName() : null;
+    }
+
+    private static boolean isUnchanged(Prompt existing, PromptImportItem item, boolean active) {
+        return active
+                && existing.contentHash().equals(PromptContent.hash(item.getContent()))
+                && (item.getCategory() == null || existing.getCategory().equals(item.getCategory()));
+    }
+
+    private static PromptImportResult result(int index, PromptImportResult.Status status, Prompt prompt) {
+        return PromptImportResult.builder()
+                .index(index)
+                .name(prompt.getName())
+                .status(status)
+                .id(prompt.getId())
+                .version(prompt.getVersion())
+                .build();
+    }
+
+    private static PromptImportResult failed(int index, String name, String message) {
+        return PromptImportResult.builder()
+                .index(index)
+                .name(name)
+                .status(PromptImportResult.Status.FAILED)
+                .message(message)
+                .build();
+    }
+
+    /**
+     * Tracks which prompts are active while a chunk is planned, applying the same
+     * activation rules as {@link PromptService}, and moves the current-version
+     * pointers to the planned state once the new versions are saved.
+     */
+    private static final class ChunkState {
+
+        private final Map<String, PromptCurrent> pointers;
+        private final Map<String, Prompt> activeByName = new HashMap<>();
+        private final Set<String> touchedNames = new HashSet<>();
+
+        private ChunkState(Map<String, PromptCurrent> pointers) {
+            this.pointers = pointers;
+            pointers.values().forEach(pointer -> activeByName.put(pointer.getName(), pointer.getPrompt()));
+        }
+
+        // Activation is scoped to the prompt name, so only the name's own pointer moves
+        void activate(Prompt prompt) {
+            activeByName.put(prompt.getName(), prompt);
+            touchedNames.add(prompt.getName());
+        }
+
+        void deactivate(Prompt prompt) {
+            prompt.setActive(false);
+            activeByName.remove(prompt.getName(), prompt);
+            touchedNames.add(prompt.getName());
+        }
+
+        void syncPointers(PromptCurrentRepository promptCurrentRepository) {
+            List<PromptCurrent> created = new ArrayList<>();
+            List<PromptCurrent> removed = new ArrayList<>();
+            for (String name : touchedNames) {
+                PromptCurrent pointer = pointers.get(name);
+                Prompt active = activeByName.get(name);
+                if (active == null) {
+                    if (pointer != null) {
+                        removed.add(pointer);
+                    }
+                } else if (pointer == null) {
+                    created.add(PromptCurrent.of(active));
+                } else if (pointer.getPrompt() != active) {
+                    pointer.pointTo(active);
+                }
+            }
+            promptCurrentRepository.saveAll(created);
+            promptCurrentRepository.deleteAll(removed);
+        }
+    }
+}
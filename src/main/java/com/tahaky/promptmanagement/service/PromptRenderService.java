@@ -0,0 +1,193 @@
+package com.tahaky.promptmanagement.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tahaky.promptmanagement.dto.PromptRenderRequest;
+import com.tahaky.promptmanagement.dto.PromptRenderResponse;
+import com.tahaky.promptmanagement.dto.PromptRenderResult;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders the active version of a prompt with caller-supplied variables. Both the prompt
+ * and its compiled template come from in-memory caches, so a render of a warm prompt does
+ * not touch the database.
+ */
+@Service
+@Slf4j
+public class PromptRenderService {
+
+    static final int BATCH_CHUNK_SIZE = 256;
+
+    private final PromptService promptService;
+    private final PromptTemplateCache promptTemplateCache;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService batchExecutor;
+    private final int maxChunksInFlight;
+
+    public PromptRenderService(PromptService promptService,
+                               PromptTemplateCache promptTemplateCache,
+                               ObjectMapper objectMapper,
+                               @Value("${prompt.render.batch.parallelism:0}") int parallelism) {
+        this.promptService = promptService;
+        this.promptTemplateCache = promptTemplateCache;
+        this.objectMapper = objectMapper;
+        this.requestReader = objectMapper.readerFor(PromptRenderRequest.class);
+        this.resultWriter = objectMapper.writerFor(PromptRenderResult.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("prompt-render-");
+        threadFactory.setDaemon(true);
+        this.batchExecutor = Executors.newFixedThreadPool(threads, threadFactory);
+        // Enough queued work to keep every worker busy while the caller writes finished chunks
+        this.maxChunksInFlight = threads * 2;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        batchExecutor.shutdownNow();
+    }
+
+    public PromptRenderResponse render(String tenant, String name, Map<String, String> variables) {
+        log.info("Rendering prompt: {}", name);
+
+        PromptResponse prompt = promptService.getCurrentPromptForAI(tenant, name);
+        String content = promptTemplateCache.get(prompt).render(variables);
+
+        return PromptRenderResponse.builder()
+                .id(prompt.getId())
+                .name(prompt.getName())
+                .version(prompt.getVersion())
+                .content(content)
+                .build();
+    }
+
+    /**
+     * Renders one prompt version with every variable set of an NDJSON stream and writes
+     * one NDJSON result per set, in input order. Chunks of lines are parsed, rendered and
+     * serialized on the worker pool; at most a fixed number of chunks is in flight, so a
+     * slow reader or writer throttles the other side and memory stays bounded regardless
+     * of the input size. Invalid lines produce a result with a message and do not stop
+     * the batch.
+     */
+    public void renderBatch(PromptResponse prompt, Reader input, OutputStream output) throws IOException {
+        log.info("Batch rendering prompt {} version {}", prompt.getName(), prompt.getVersion());
+
+        PromptTemplate template = promptTemplateCache.get(prompt);
+        BufferedReader lines = new BufferedReader(input);
+        Deque<Future<byte[]>> inFlight = new ArrayDeque<>(maxChunksInFlight);
+        long count = 0;
+        try {
+            List<String> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() == BATCH_CHUNK_SIZE) {
+                    submit(inFlight, template, count, chunk, output);
+                    count += chunk.size();
+                    chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                submit(inFlight, template, count, chunk, output);
+                count += chunk.size();
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.removeFirst(), output);
+            }
+            output.flush();
+        } finally {
+            // Client gone or failure: drop the work nobody will read
+            inFlight.forEach(future -> future.cancel(true));
+        }
+
+        log.info("Batch render of prompt {} finished: {} variable sets", prompt.getName(), count);
+    }
+
+    private void submit(Deque<Future<byte[]>> inFlight, PromptTemplate template, long firstIndex,
+                        List<String> chunk, OutputStream output) throws IOException {
+        if (inFlight.size() == maxChunksInFlight) {
+            write(inFlight.removeFirst(), output);
+        }
+        inFlight.addLast(batchExecutor.submit(() -> renderChunk(template, firstIndex, chunk)));
+        // Pass on whatever is already finished, so results stream while input is still arriving
+        boolean wrote = false;
+        while (!inFlight.isEmpty() && inFlight.peekFirst().isDone()) {
+            write(inFlight.removeFirst(), output);
+            wrote = true;
+        }
+        if (wrote) {
+            output.flush();
+        }
+    }
+
+    private byte[] renderChunk(PromptTemplate template, long firstIndex, List<String> lines) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(lines.size() * 256);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+            generator.setRootValueSeparator(null);
+            for (int i = 0; i < lines.size(); i++) {
+                resultWriter.writeValue(generator, renderLine(template, firstIndex + i, lines.get(i)));
+                generator.writeRaw('\n');
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffer.toByteArray();
+    }
+
+    private PromptRenderResult renderLine(PromptTemplate template, long index, String line) {
+        PromptRenderResult.PromptRenderResultBuilder result = PromptRenderResult.builder().index(index);
+        try {
+            PromptRenderRequest request = requestReader.readValue(line);
+            if (request == null || request.getVariables() == null) {
+                return result.message("Variables are required").build();
+            }
+            return result.content(template.render(request.getVariables())).build();
+        } catch (JsonProcessingException ex) {
+            return result.message("Malformed variable set: " + ex.getOriginalMessage()).build();
+        } catch (InvalidPromptRequestException ex) {
+            return result.message(ex.getMessage()).build();
+        }
+    }
+
+    private static void write(Future<byte[]> chunk, OutputStream output) throws IOException {
+        try {
+            output.write(chunk.get());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Batch render interrupted");
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Rendering a chunk failed", ex.getCause());
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.Bits;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Embedded Lucene index over every prompt version: name, category and content are
+ * analysed for full-text search, the content's {@link PromptEmbedder} vector is kept in
+ * an HNSW graph for approximate nearest-neighbour search, and a doc value marks the
+ * active versions.
+ * <p>
+ * Prompt rows are immutable, so the index only ever adds documents. Ids are assigned
+ * when a version is written, not when it commits, so versions can commit out of id
+ * order; every document is therefore upserted by id rather than skipped as already
+ * indexed. At startup (before the readiness probe reports UP) rows newer than the last
+ * committed id are added, versions at or below it that are missing from the index are
+ * filled in, and the active flags are re-read from the pointer table.
+ * Afterwards {@link PromptChangeEvent}s drive incremental updates once the writing
+ * transaction has committed. All writes happen on a single indexer thread, which batches
+ * the events that arrived while it was busy and then refreshes the searcher, so writes
+ * become searchable within milliseconds without slowing down the writing request.
+ * <p>
+ * With {@code prompt.search.index-dir} unset the index is held in memory and rebuilt at
+ * every start; with a directory it is committed periodically and on shutdown.
+ */
+@Component
+@Slf4j
+public class PromptSearchIndex implements ApplicationRunner, MeterBinder {
+
+    static final String ID = "id";
+    // Doc values copy of the id, read to find versions missing from the index
+    static final String ID_VALUE = "id_value";
+    static final String NAME = "name";
+    static final String CATEGORY = "category";
+    static final String CONTENT = "content";
+    static final String VERSION = "version";
+    static final String ACTIVE = "active";
+    static final String EMBEDDING = "embedding";
+    // Every query is filtered on the tenant
+    static final String TENANT = "tenant";
+    // Untokenized tenant and name, the term that selects all versions of a prompt
+    static final String NAME_KEY = "name_key";
+    // Constant term present in every document
+    private static final String TYPE = "type";
+    private static final String PROMPT_TYPE = "prompt";
+    private static final String MAX_PROMPT_ID = "maxPromptId";
+    private static final String EMBEDDER = "embedder";
+    // Bumped when the document fields change, which makes a persistent index rebuild
+    private static final String FORMAT = "format";
+    private static final String FORMAT_VERSION = "3";
+    private static final int LOAD_CHUNK_SIZE = 500;
+
+    private final PromptRepository promptRepository;
+    private final PromptEmbedder promptEmbedder;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+    private final boolean persistent;
+    private final long commitIntervalNanos;
+    private final long committedMaxPromptId;
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("prompt-search-indexer-"));
+    private final Queue<PromptChangeEvent> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    // Only accessed on the indexer thread
+    private long maxIndexedId;
+    private long lastCommitNanos = System.nanoTime();
+
+    public PromptSearchIndex(PromptRepository promptRepository,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             PromptEmbedder promptEmbedder,
+                             @Value("${prompt.search.index-dir:}") String indexDir,
+                             @Value("${prompt.search.commit-interval:PT30S}") Duration commitInterval) throws IOException {
+        this.promptRepository = promptRepository;
+        this.promptEmbedder = promptEmbedder;
+        this.entityManager = entityManager;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.persistent = !indexDir.isBlank();
+        this.directory = persistent ? FSDirectory.open(Path.of(indexDir)) : new ByteBuffersDirectory();
+        this.writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        this.searcherManager = new SearcherManager(writer, null);
+        this.commitIntervalNanos = commitInterval.toNanos();
+        if (writer.getDocStats().maxDoc > 0 && (!promptEmbedder.id().equals(committedValue(EMBEDDER, null))
+                || !FORMAT_VERSION.equals(committedValue(FORMAT, "1")))) {
+            // Vectors of different embedders cannot be compared, so everything is indexed again
+            log.info("Embedder {} or index format {} changed, rebuilding the search index", promptEmbedder.id(), FORMAT_VERSION);
+            writer.deleteAll();
+            writer.setLiveCommitData(Map.<String, String>of().entrySet());
+        }
+        this.committedMaxPromptId = Long.parseLong(committedValue(MAX_PROMPT_ID, "0"));
+        this.maxIndexedId = committedMaxPromptId;
+    }
+
+    /**
+     * Brings the index up to date with the database before the application reports ready.
+     */
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        try {
+            indexer.submit(this::catchUp).get();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Could not build the prompt search index", ex.getCause());
+        }
+    }
+
+    public Analyzer analyzer() {
+        return analyzer;
+    }
+
+    public PromptEmbedder embedder() {
+        return promptEmbedder;
+    }
+
+    /**
+     * Acquires the latest searcher; hand it back with {@link #release(IndexSearcher)}.
+     */
+    public IndexSearcher acquire() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    public void release(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPromptChange(PromptChangeEvent event) {
+        pending.add(event);
+        if (drainScheduled.compareAndSet(false, true)) {
+            indexer.execute(this::drain);
+        }
+    }
+
+    /**
+     * Waits until the changes received so far are searchable.
+     */
+    void awaitIndexing() throws ExecutionException, InterruptedException {
+        indexer.submit(() -> { }).get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("prompt.search.documents", writer, indexWriter -> indexWriter.getDocStats().numDocs)
+                .description("Prompt versions in the search index")
+                .register(registry);
+        Gauge.builder("prompt.search.pending", pending, Queue::size)
+                .description("Prompt changes waiting to be indexed")
+                .register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        indexer.shutdown();
+        if (!indexer.awaitTermination(10, TimeUnit.SECONDS)) {
+            indexer.shutdownNow();
+        }
+        searcherManager.close();
+        if (persistent) {
+            commit();
+        }
+        writer.close();
+        directory.close();
+    }
+
+    private void catchUp() {
+        long start = System.nanoTime();
+        int[] added = {0};
+        readOnlyTransaction.executeWithoutResult(status -> {
+            // From the last commit rather than maxIndexedId: changes indexed before startup
+            // finished do not cover the rows written while the application was down
+            try (Stream<Prompt> prompts = promptRepository.streamWithBodyByIdGreaterThanOrderById(committedMaxPromptId)) {
+                prompts.forEach(prompt -> {
+                    add(prompt);
+                    added[0]++;
+                    entityManager.detach(prompt);
+                    entityManager.detach(prompt.getBody());
+                });
+            }
+            // Versions that committed after a higher id was indexed and before the index was committed
+            List<Long> missing = missingIds();
+            for (int from = 0; from < missing.size(); from += LOAD_CHUNK_SIZE) {
+                for (Prompt prompt : promptRepository.findWithBodyByIdIn(
+                        missing.subList(from, Math.min(from + LOAD_CHUNK_SIZE, missing.size())))) {
+                    add(prompt);
+                    added[0]++;
+                    entityManager.detach(prompt);
+                    entityManager.detach(prompt.getBody());
+                }
+            }
+            // Deactivations leave no new row behind, so the flags are re-read in full
+            List<PromptVersionInfo> active = promptRepository.findAllActiveVersionInfos();
+            try {
+                setActive(new Term(TYPE, PROMPT_TYPE), false);
+                for (PromptVersionInfo info : active) {
+                    setActive(idTerm(info.getId()), true);
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        try {
+            commit();
+            searcherManager.maybeRefreshBlocking();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        log.info("Search index ready in {} ms: {} prompt versions added, {} in total",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), added[0], writer.getDocStats().numDocs);
+    }
+
+    private List<Long> missingIds() {
+        if (committedMaxPromptId == 0) {
+            return List.of();
+        }
+        long[] indexed;
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            indexed = indexedIds(reader);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        List<Long> missing = new ArrayList<>();
+        for (Long id : promptRepository.findIdsByIdLessThanEqualOrderById(committedMaxPromptId)) {
+            if (Arrays.binarySearch(indexed, id) < 0) {
+                missing.add(id);
+            }
+        }
+        return missing;
+    }
+
+    private static long[] indexedIds(DirectoryReader reader) throws IOException {
+        long[] ids = new long[reader.numDocs()];
+        int count = 0;
+        for (LeafReaderContext leaf : reader.leaves()) {
+            NumericDocValues values = leaf.reader().getNumericDocValues(ID_VALUE);
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            if (values == null) {
+                continue;
+            }
+            for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    ids[count++] = values.longValue();
+                }
+            }
+        }
+        long[] sorted = Arrays.copyOf(ids, count);
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    private void drain() {
+        // Cleared first, so events arriving from now on schedule another drain
+        drainScheduled.set(false);
+        List<PromptChangeEvent> events = new ArrayList<>();
+        for (PromptChangeEvent event; (event = pending.poll()) != null; ) {
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+        try {
+            List<Long> newIds = events.stream()
+                    .filter(event -> event.getType() != PromptChangeEvent.Type.DEACTIVATED)
+                    .map(PromptChangeEvent::getId)
+                    .distinct()
+                    .toList();
+            for (int from = 0; from < newIds.size(); from += LOAD_CHUNK_SIZE) {
+                promptRepository.findWithBodyByIdIn(newIds.subList(from, Math.min(from + LOAD_CHUNK_SIZE, newIds.size())))
+                        .forEach(this::add);
+            }
+            // In commit order: every change leaves at most the changed version of its prompt active
+            for (PromptChangeEvent event : events) {
+                setActive(new Term(NAME_KEY, nameKey(event.getTenant(), event.getName())), false);
+                if (Boolean.TRUE.equals(event.getActive())) {
+                    setActive(idTerm(event.getId()), true);
+                }
+            }
+            searcherManager.maybeRefreshBlocking();
+            if (persistent && System.nanoTime() - lastCommitNanos >= commitIntervalNanos) {
+                commit();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // The index is rebuilt from the database at the next start
+            log.warn("Could not index {} prompt changes", events.size(), ex);
+        }
+    }
+
+    private void add(Prompt prompt) {
+        Document document = new Document();
+        document.add(new StringField(ID, prompt.getId().toString(), Field.Store.YES));
+        document.add(new NumericDocValuesField(ID_VALUE, prompt.getId()));
+        document.add(new StringField(TYPE, PROMPT_TYPE, Field.Store.NO));
+        document.add(new StringField(TENANT, prompt.getTenant(), Field.Store.NO));
+        document.add(new StringField(NAME_KEY, nameKey(prompt.getTenant(), prompt.getName()), Field.Store.NO));
+        document.add(new TextField(NAME, prompt.getName(), Field.Store.YES));
+        document.add(new TextField(CATEGORY, prompt.getCategory(), Field.Store.YES));
+        document.add(new TextField(CONTENT, prompt.getContent(), Field.Store.NO));
+        document.add(new StoredField(VERSION, prompt.getVersion()));
+        document.add(new NumericDocValuesField(ACTIVE, 0));
+        float[] embedding = promptEmbedder.embed(prompt.getContent());
+        // Stored in the HNSW graph of the segment; text without any features is left out of it
+        if (!isZero(embedding)) {
+            document.add(new KnnFloatVectorField(EMBEDDING, embedding, VectorSimilarityFunction.DOT_PRODUCT));
+        }
+        try {
+            // Upsert, so a version that is seen twice is still indexed once
+            writer.updateDocument(idTerm(prompt.getId()), document);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        maxIndexedId = Math.max(maxIndexedId, prompt.getId());
+    }
+
+    private void setActive(Term documents, boolean active) throws IOException {
+        // Doc values can only be updated once a document has introduced the field
+        if (writer.getFieldNames().contains(ACTIVE)) {
+            writer.updateNumericDocValue(documents, ACTIVE, active ? 1 : 0);
+        }
+    }
+
+    private void commit() throws IOException {
+        writer.setLiveCommitData(Map.of(
+                MAX_PROMPT_ID, Long.toString(maxIndexedId),
+                EMBEDDER, promptEmbedder.id(),
+                FORMAT, FORMAT_VERSION).entrySet());
+        writer.commit();
+        lastCommitNanos = System.nanoTime();
+    }
+
+    private String committedValue(String key, String defaultValue) {
+        Iterable<Map.Entry<String, String>> commitData = writer.getLiveCommitData();
+        if (commitData != null) {
+            for (Map.Entry<String, String> entry : commitData) {
+                if (key.equals(entry.getKey())) {
+                    return entry.getValue();
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    private static boolean isZero(float[] vector) {
+        for (float value : vector) {
+            if (value != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tenant ids cannot contain '/', so the key is unambiguous
+    static String nameKey(String tenant, String name) {
+        return tenant + "/" + name;
+    }
+
+    private static Term idTerm(Long id) {
+        return new Term(ID, id.toString());
+    }
+}
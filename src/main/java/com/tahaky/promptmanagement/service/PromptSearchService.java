@@ -0,0 +1,232 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptSearchHit;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ranked full-text search over the prompt versions of a tenant, answered from
+ * {@link PromptSearchIndex} without touching the database.
+ * <p>
+ * Queries use Lucene's simple query syntax: terms must all match, {@code "..."} matches a
+ * phrase, {@code term*} a prefix, {@code term~N} terms within N edits, {@code |} means OR
+ * and {@code -} excludes a term. Matches in the name weigh more than matches in the
+ * category, which weigh more than matches in the content. With {@code fuzzy} every plain
+ * term also matches terms within one edit (two for terms longer than five characters),
+ * exact matches still ranking first.
+ * <p>
+ * Similarity search compares {@link PromptEmbedder} vectors of the content by cosine
+ * similarity, using the HNSW graph of the index instead of scanning every vector.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PromptSearchService {
+
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_RESULT_WINDOW = 10_000;
+
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(
+            PromptSearchIndex.NAME, 3f,
+            PromptSearchIndex.CATEGORY, 2f,
+            PromptSearchIndex.CONTENT, 1f);
+
+    private final PromptSearchIndex promptSearchIndex;
+    private final PromptService promptService;
+
+    public CursorPage<PromptSearchHit> search(String tenant, String text, boolean activeOnly, boolean fuzzy, String cursor, int limit) {
+        log.info("Searching prompts: '{}' (activeOnly={}, fuzzy={})", text, activeOnly, fuzzy);
+        if (text == null || text.isBlank()) {
+            throw new InvalidPromptRequestException("Search query must not be blank");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPromptRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        int offset = cursor != null ? decodeCursor(cursor) : 0;
+        if (offset + limit > MAX_RESULT_WINDOW) {
+            throw new InvalidPromptRequestException("Only the first " + MAX_RESULT_WINDOW + " hits can be paged through, refine the query");
+        }
+
+        Query query = parse(text, fuzzy);
+        if (query == null) {
+            // Nothing searchable left after analysis, e.g. only punctuation
+            return CursorPage.<PromptSearchHit>builder().items(List.of()).hasMore(false).build();
+        }
+        BooleanQuery.Builder filtered = new BooleanQuery.Builder()
+                .add(query, BooleanClause.Occur.MUST)
+                .add(tenantQuery(tenant), BooleanClause.Occur.FILTER);
+        if (activeOnly) {
+            filtered.add(NumericDocValuesField.newSlowExactQuery(PromptSearchIndex.ACTIVE, 1), BooleanClause.Occur.FILTER);
+        }
+        query = filtered.build();
+
+        try {
+            IndexSearcher searcher = promptSearchIndex.acquire();
+            try {
+                // One hit more than requested is collected to learn whether another page follows
+                TopDocs top = searcher.search(query, offset + limit + 1);
+                ScoreDoc[] scoreDocs = top.scoreDocs;
+                boolean hasMore = scoreDocs.length > offset + limit;
+                int end = Math.min(scoreDocs.length, offset + limit);
+
+                List<PromptSearchHit> hits = new ArrayList<>(Math.max(0, end - offset));
+                StoredFields storedFields = searcher.storedFields();
+                for (int i = offset; i < end; i++) {
+                    hits.add(toHit(searcher, storedFields, scoreDocs[i]));
+                }
+                return CursorPage.<PromptSearchHit>builder()
+                        .items(hits)
+                        .nextCursor(hasMore ? encodeCursor(end) : null)
+                        .hasMore(hasMore)
+                        .build();
+            } finally {
+                promptSearchIndex.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Prompt versions whose content is closest to the active content of the named
+     * prompt, most similar first. Versions of the prompt itself are excluded. The graph
+     * search is approximate, so a close match may occasionally be missed.
+     */
+    public List<PromptSearchHit> similar(String tenant, String name, int limit, boolean activeOnly, double minSimilarity) {
+        log.info("Finding prompts similar to: {} (activeOnly={})", name, activeOnly);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPromptRequestException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (minSimilarity < -1 || minSimilarity > 1) {
+            throw new InvalidPromptRequestException("Minimum similarity must be between -1 and 1");
+        }
+
+        float[] target = promptSearchIndex.embedder().embed(promptService.getPromptByName(tenant, name).getContent());
+        BooleanQuery.Builder filter = new BooleanQuery.Builder()
+                .add(tenantQuery(tenant), BooleanClause.Occur.FILTER)
+                .add(new TermQuery(new Term(PromptSearchIndex.NAME_KEY, PromptSearchIndex.nameKey(tenant, name))),
+                        BooleanClause.Occur.MUST_NOT);
+        if (activeOnly) {
+            filter.add(NumericDocValuesField.newSlowExactQuery(PromptSearchIndex.ACTIVE, 1), BooleanClause.Occur.FILTER);
+        }
+        Query query = new KnnFloatVectorQuery(PromptSearchIndex.EMBEDDING, target, limit, filter.build());
+
+        try {
+            IndexSearcher searcher = promptSearchIndex.acquire();
+            try {
+                ScoreDoc[] scoreDocs = searcher.search(query, limit).scoreDocs;
+                List<PromptSearchHit> hits = new ArrayList<>(scoreDocs.length);
+                StoredFields storedFields = searcher.storedFields();
+                for (ScoreDoc scoreDoc : scoreDocs) {
+                    // Lucene scores dot products of unit vectors as (1 + cosine) / 2
+                    scoreDoc.score = 2 * scoreDoc.score - 1;
+                    if (scoreDoc.score >= minSimilarity) {
+                        hits.add(toHit(searcher, storedFields, scoreDoc));
+                    }
+                }
+                return hits;
+            } finally {
+                promptSearchIndex.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static Query tenantQuery(String tenant) {
+        return new TermQuery(new Term(PromptSearchIndex.TENANT, tenant));
+    }
+
+    private Query parse(String text, boolean fuzzy) {
+        SimpleQueryParser parser = fuzzy
+                ? new FuzzyTermQueryParser(promptSearchIndex.analyzer(), FIELD_WEIGHTS)
+                : new SimpleQueryParser(promptSearchIndex.analyzer(), FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        return parser.parse(text);
+    }
+
+    private static PromptSearchHit toHit(IndexSearcher searcher, StoredFields storedFields, ScoreDoc scoreDoc) throws IOException {
+        Document document = storedFields.document(scoreDoc.doc);
+        List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(scoreDoc.doc, leaves));
+        NumericDocValues active = leaf.reader().getNumericDocValues(PromptSearchIndex.ACTIVE);
+
+        return PromptSearchHit.builder()
+                .id(Long.valueOf(document.get(PromptSearchIndex.ID)))
+                .name(document.get(PromptSearchIndex.NAME))
+                .category(document.get(PromptSearchIndex.CATEGORY))
+                .version(document.getField(PromptSearchIndex.VERSION).numericValue().intValue())
+                .active(active != null && active.advanceExact(scoreDoc.doc - leaf.docBase) && active.longValue() == 1)
+                .score(scoreDoc.score)
+                .build();
+    }
+
+    private static String encodeCursor(int offset) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Integer.toString(offset).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int decodeCursor(String cursor) {
+        try {
+            int offset = Integer.parseInt(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (offset < 0) {
+                throw new IllegalArgumentException();
+            }
+            return offset;
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPromptRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Adds a fuzzy alternative to every plain term, next to the exact match.
+     */
+    private static final class FuzzyTermQueryParser extends SimpleQueryParser {
+
+        FuzzyTermQueryParser(Analyzer analyzer, Map<String, Float> weights) {
+            super(analyzer, weights);
+        }
+
+        @Override
+        protected Query newDefaultQuery(String text) {
+            Query exact = super.newDefaultQuery(text);
+            if (text.length() < 3 || !text.chars().allMatch(Character::isLetterOrDigit)) {
+                return exact;
+            }
+            BooleanQuery.Builder builder = new BooleanQuery.Builder()
+                    .add(newFuzzyQuery(text, text.length() > 5 ? 2 : 1), BooleanClause.Occur.SHOULD);
+            if (exact != null) {
+                builder.add(exact, BooleanClause.Occur.SHOULD);
+            }
+            return builder.build();
+        }
+    }
+}
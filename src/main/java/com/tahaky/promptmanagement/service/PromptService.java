@@ -1,83 +1,178 @@
 package com.tahaky.promptmanagement.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.CacheStatsResponse;
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.dto.PromptLookupResult;
 import com.tahaky.promptmanagement.dto.PromptRequest;
 import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptSummary;
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
 import com.tahaky.promptmanagement.dto.UpdatePromptRequest;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
 import com.tahaky.promptmanagement.exception.PromptAlreadyExistsException;
 import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.exception.PromptPreconditionFailedException;
+import com.tahaky.promptmanagement.exception.PromptUpdateConflictException;
 import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
 import com.tahaky.promptmanagement.repository.PromptRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
+@Timed(value = "prompt.service", histogram = true)
 public class PromptService {
 
+    static final int MAX_BATCH_NAMES = 100;
+    static final int MAX_PAGE_SIZE = 500;
+    static final int MAX_UPDATE_ATTEMPTS = 5;
+    static final long UPDATE_RETRY_BACKOFF_MILLIS = 20;
+
     private final PromptRepository promptRepository;
+    private final PromptCurrentRepository promptCurrentRepository;
+    private final PromptContentStore promptContentStore;
+    private final PromptTokenizers promptTokenizers;
+    private final ActivePromptCache activePromptCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Transactional
-    public PromptResponse createPrompt(PromptRequest request) {
-        log.info("Creating new prompt with name: {}", request.getName());
+    public PromptResponse createPrompt(String tenant, PromptRequest request) {
+        log.info("Creating new prompt with name: {} for tenant: {}", request.getName(), tenant);
 
         // Check if prompt with same name already exists
-        if (promptRepository.findByNameAndActive(request.getName(), true).isPresent()) {
+        if (promptCurrentRepository.existsById(new PromptCurrent.Key(tenant, request.getName()))) {
             throw new PromptAlreadyExistsException("Prompt with name '" + request.getName() + "' already exists");
         }
 
-        // If new prompt is active, deactivate any currently active prompt
-        if (Boolean.TRUE.equals(request.getActive())) {
-            promptRepository.findFirstByActive(true).ifPresent(existing -> {
-                existing.setActive(false);
-                promptRepository.save(existing);
-            });
-        }
+        // Activation is scoped to the prompt name, so other prompts are left untouched
+        boolean active = request.getActive() == null || request.getActive();
 
         Prompt prompt = Prompt.builder()
+                .tenant(tenant)
                 .name(request.getName())
                 .content(request.getContent())
                 .category(request.getCategory())
-                .active(request.getActive())
+                .active(active)
                 .version(1)
                 .build();
 
+        promptContentStore.attach(List.of(prompt));
         Prompt savedPrompt = promptRepository.save(prompt);
+        if (active) {
+            promptCurrentRepository.save(PromptCurrent.of(savedPrompt));
+        }
+        activePromptCache.invalidate(tenant, savedPrompt.getName());
+        publishChange(PromptChangeEvent.Type.CREATED, savedPrompt);
         log.info("Prompt created successfully with id: {}", savedPrompt.getId());
 
         return convertToResponse(savedPrompt);
     }
 
-    @Transactional
-    public PromptResponse updatePrompt(String name, UpdatePromptRequest request) {
-        log.info("Updating prompt with name: {}", name);
+    public PromptResponse updatePrompt(String tenant, String name, UpdatePromptRequest request) {
+        return updatePrompt(tenant, name, request, null);
+    }
 
-        Prompt existingPrompt = promptRepository.findByNameAndActive(name, true)
-                .orElseThrow(() -> new PromptNotFoundException("Prompt with name '" + name + "' not found"));
+    /**
+     * Creates a new version of a prompt. When a {@code precondition} is given the update
+     * only applies while the active version satisfies it. Concurrent updates of the
+     * same prompt are detected optimistically on the {@code prompt_current} row; the
+     * losing update is retried against the new active version, and reported as a
+     * conflict once {@link #MAX_UPDATE_ATTEMPTS} attempts have lost.
+     */
+    public PromptResponse updatePrompt(String tenant, String name, UpdatePromptRequest request,
+                                       Predicate<PromptVersionInfo> precondition) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> applyUpdate(tenant, name, request, precondition));
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException ex) {
+                // Either another update of this prompt committed first and moved the pointer, or it
+                // already took the (tenant, name, version) this attempt computed. Any other
+                // integrity violation is not caused by a concurrent update and is not retried
+                if (ex instanceof DataIntegrityViolationException && !isVersionConflict(ex)) {
+                    throw ex;
+                }
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    log.warn("Giving up updating prompt {} after {} concurrent modifications", name, attempt);
+                    throw new PromptUpdateConflictException("Prompt '" + name
+                            + "' is being modified concurrently, please retry");
+                }
+                log.info("Concurrent update of prompt {} detected, retrying (attempt {})", name, attempt + 1);
+                backOff(attempt);
+            }
+        }
+    }
+
+    static boolean isVersionConflict(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation && violation.getConstraintName() != null) {
+                return violation.getConstraintName().toLowerCase(Locale.ROOT).contains(Prompt.VERSION_CONSTRAINT);
+            }
+        }
+        return false;
+    }
 
-        // Deactivate the old version
-        existingPrompt.setActive(false);
-        promptRepository.save(existingPrompt);
+    // Randomised so that updates which lost together do not collide again on the next attempt
+    private static void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(UPDATE_RETRY_BACKOFF_MILLIS * attempt) + 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PromptUpdateConflictException("Interrupted while retrying a concurrent update");
+        }
+    }
 
-        boolean newVersionActive = request.getActive() != null ? request.getActive() : true;
+    private PromptResponse applyUpdate(String tenant, String name, UpdatePromptRequest request,
+                                       Predicate<PromptVersionInfo> precondition) {
+        log.info("Updating prompt with name: {} for tenant: {}", name, tenant);
 
-        // If new version will be active, deactivate any other currently active prompt
-        if (newVersionActive) {
-            promptRepository.findFirstByActive(true).ifPresent(other -> {
-                if (!other.getId().equals(existingPrompt.getId())) {
-                    other.setActive(false);
-                    promptRepository.save(other);
-                }
-            });
+        PromptCurrent current = promptCurrentRepository.findWithPromptByTenantAndName(tenant, name)
+                .orElseThrow(() -> new PromptNotFoundException("Prompt with name '" + name + "' not found"));
+        Prompt existingPrompt = current.getPrompt();
+        if (precondition != null && !precondition.test(new PromptVersionInfo(existingPrompt.getId(), tenant, name,
+                existingPrompt.getVersion()))) {
+            throw new PromptPreconditionFailedException("Prompt '" + name + "' is at version "
+                    + existingPrompt.getVersion() + ", which does not satisfy the precondition");
         }
 
+        boolean newVersionActive = request.getActive() != null ? request.getActive() : true;
+
         // Create new version
         Prompt newVersion = Prompt.builder()
+                .tenant(tenant)
                 .name(name)
                 .content(request.getContent())
                 .category(request.getCategory() != null ? request.getCategory() : existingPrompt.getCategory())
@@ -85,104 +180,357 @@ public class PromptService {
                 .version(existingPrompt.getVersion() + 1)
                 .build();
 
+        promptContentStore.attach(List.of(newVersion));
         Prompt savedPrompt = promptRepository.save(newVersion);
+
+        // The pointer row is versioned, so moving or deleting it fails if another update
+        // moved it in the meantime
+        if (newVersionActive) {
+            current.pointTo(savedPrompt);
+        } else {
+            promptCurrentRepository.delete(current);
+        }
+        activePromptCache.invalidate(tenant, name);
+        publishChange(PromptChangeEvent.Type.UPDATED, savedPrompt, existingPrompt.getCategory());
         log.info("Prompt updated successfully. New version: {}", savedPrompt.getVersion());
 
         return convertToResponse(savedPrompt);
     }
 
-    @Transactional(readOnly = true)
-    public PromptResponse getPromptByName(String name) {
+    // Not transactional so that cache hits do not borrow a pooled connection;
+    // a miss runs the repository query in its own read-only transaction
+    public PromptResponse getPromptByName(String tenant, String name) {
         log.info("Fetching prompt with name: {}", name);
 
-        Prompt prompt = promptRepository.findByNameAndActive(name, true)
-                .orElseThrow(() -> new PromptNotFoundException("Prompt with name '" + name + "' not found"));
+        PromptResponse response = activePromptCache.get(tenant, name, key -> promptRepository.findActiveByName(tenant, key)
+                .map(PromptService::convertToResponse)
+                .orElse(null));
+        if (response == null) {
+            throw new PromptNotFoundException("Prompt with name '" + name + "' not found");
+        }
 
-        return convertToResponse(prompt);
+        return response;
+    }
+
+    /**
+     * Resolves the active versions of several prompts at once. Names not in the cache
+     * are loaded with a single query; names without an active prompt are reported
+     * per entry instead of failing the whole batch. Like {@link #getPromptByName},
+     * only the query for the misses touches the connection pool.
+     */
+    public BatchPromptResponse getPromptsByNames(String tenant, List<String> names) {
+        Set<String> uniqueNames = uniqueBatchNames(names);
+        log.info("Fetching {} prompts by name", uniqueNames.size());
+
+        Map<String, PromptResponse> resolved = new HashMap<>(activePromptCache.getAllPresent(tenant, uniqueNames));
+        List<String> misses = uniqueNames.stream()
+                .filter(name -> !resolved.containsKey(name))
+                .toList();
+        if (!misses.isEmpty()) {
+            long stamp = activePromptCache.stamp();
+            for (Prompt prompt : promptRepository.findActiveByNameIn(tenant, misses)) {
+                PromptResponse response = convertToResponse(prompt);
+                resolved.put(prompt.getName(), response);
+                activePromptCache.putIfNotInvalidatedSince(tenant, prompt.getName(), response, stamp);
+            }
+        }
+
+        return toBatchResponse(uniqueNames, resolved);
+    }
+
+    static Set<String> uniqueBatchNames(List<String> names) {
+        Set<String> uniqueNames = new LinkedHashSet<>(names);
+        if (uniqueNames.size() > MAX_BATCH_NAMES) {
+            throw new InvalidPromptRequestException("At most " + MAX_BATCH_NAMES + " prompts can be fetched in one batch");
+        }
+        return uniqueNames;
+    }
+
+    static BatchPromptResponse toBatchResponse(Set<String> names, Map<String, PromptResponse> resolved) {
+        Map<String, PromptLookupResult> results = new LinkedHashMap<>();
+        for (String name : names) {
+            PromptResponse response = resolved.get(name);
+            results.put(name, response != null ? PromptLookupResult.found(response) : PromptLookupResult.notFound(name));
+        }
+        int found = (int) results.values().stream()
+                .filter(result -> result.getStatus() == PromptLookupResult.Status.FOUND)
+                .count();
+
+        return BatchPromptResponse.builder()
+                .prompts(results)
+                .found(found)
+                .missing(results.size() - found)
+                .build();
+    }
+
+    /**
+     * Resolves the id and version of the active prompt without reading its content.
+     * Used to answer conditional requests before the full prompt is loaded. Not
+     * transactional, like {@link #getPromptByName}: a cache hit borrows no connection and
+     * a miss runs the projection query in its own read-only transaction.
+     */
+    public Optional<PromptVersionInfo> findActivePromptVersion(String tenant, String name) {
+        PromptResponse cached = activePromptCache.getIfPresent(tenant, name);
+        if (cached != null) {
+            return Optional.of(new PromptVersionInfo(cached.getId(), tenant, cached.getName(), cached.getVersion()));
+        }
+        return promptRepository.findActiveVersionInfoByName(tenant, name);
     }
 
     @Transactional(readOnly = true)
-    public PromptResponse getPromptById(Long id) {
+    public PromptResponse getPromptById(String tenant, Long id) {
         log.info("Fetching prompt with id: {}", id);
 
-        Prompt prompt = promptRepository.findById(id)
+        // Ids are global, so a version of another tenant is reported as missing
+        Prompt prompt = promptRepository.findByIdAndTenant(id, tenant)
                 .orElseThrow(() -> new PromptNotFoundException("Prompt with id '" + id + "' not found"));
 
         return convertToResponse(prompt);
     }
 
+    /**
+     * Lists the active prompts of a tenant ordered by id. Without a {@code limit} the page
+     * holds the whole listing; with one the listing is keyset-paginated.
+     */
     @Transactional(readOnly = true)
-    public List<PromptResponse> getAllActivePrompts() {
-        log.info("Fetching all active prompts");
+    public CursorPage<PromptResponse> listActivePrompts(String tenant, String cursor, Integer limit) {
+        log.info("Listing active prompts of tenant: {}, limit: {}, cursor: {}", tenant, limit, cursor);
+        List<Prompt> rows = promptRepository.findActiveByIdGreaterThan(tenant, afterId(cursor), pageLimit(cursor, limit));
+        return toPage(rows, limit, Prompt::getId, PromptService::convertToResponse);
+    }
 
-        return promptRepository.findByActive(true).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Lists the active prompts like {@link #listActivePrompts} as content-free summaries.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PromptSummary> listActivePromptSummaries(String tenant, String cursor, Integer limit) {
+        log.info("Listing active prompt summaries of tenant: {}, limit: {}, cursor: {}", tenant, limit, cursor);
+        List<PromptSummary> rows = promptRepository.findActiveSummariesByIdGreaterThan(
+                tenant, afterId(cursor), pageLimit(cursor, limit));
+        return toPage(rows, limit, PromptSummary::getId, Function.identity());
     }
 
+    /**
+     * Lists the active prompts of a category like {@link #listActivePrompts}.
+     */
     @Transactional(readOnly = true)
-    public List<PromptResponse> getPromptsByCategory(String category) {
-        log.info("Fetching prompts by category: {}", category);
+    public CursorPage<PromptResponse> listPromptsByCategory(String tenant, String category, String cursor, Integer limit) {
+        log.info("Listing prompts by category: {}, limit: {}, cursor: {}", category, limit, cursor);
+        List<Prompt> rows = promptRepository.findActiveByCategoryAndIdGreaterThan(
+                tenant, category, afterId(cursor), pageLimit(cursor, limit));
+        return toPage(rows, limit, Prompt::getId, PromptService::convertToResponse);
+    }
 
-        return promptRepository.findByCategoryAndActive(category, true).stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    /**
+     * Lists the active prompts of a category like {@link #listActivePrompts} as content-free summaries.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PromptSummary> listPromptSummariesByCategory(String tenant, String category, String cursor, Integer limit) {
+        log.info("Listing prompt summaries by category: {}, limit: {}, cursor: {}", category, limit, cursor);
+        List<PromptSummary> rows = promptRepository.findActiveSummariesByCategoryAndIdGreaterThan(
+                tenant, category, afterId(cursor), pageLimit(cursor, limit));
+        return toPage(rows, limit, PromptSummary::getId, Function.identity());
     }
 
+    /**
+     * Lists the versions of a prompt like {@link #listActivePrompts}, newest version first.
+     */
     @Transactional(readOnly = true)
-    public List<PromptResponse> getPromptVersionHistory(String name) {
-        log.info("Fetching version history for prompt: {}", name);
+    public CursorPage<PromptResponse> listPromptVersions(String tenant, String name, String cursor, Integer limit) {
+        log.info("Listing versions of prompt: {}, limit: {}, cursor: {}", name, limit, cursor);
+        List<Prompt> rows = promptRepository.findByTenantAndNameAndVersionLessThanOrderByVersionDesc(
+                tenant, name, beforeVersion(cursor), pageLimit(cursor, limit));
+        requireVersions(name, rows, cursor);
+        return toPage(rows, limit, row -> row.getVersion().longValue(), PromptService::convertToResponse);
+    }
+
+    /**
+     * Lists the versions of a prompt like {@link #listPromptVersions} as content-free summaries.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<PromptSummary> listPromptVersionSummaries(String tenant, String name, String cursor, Integer limit) {
+        log.info("Listing version summaries of prompt: {}, limit: {}, cursor: {}", name, limit, cursor);
+        List<PromptSummary> rows = promptRepository.findSummariesByTenantAndNameAndVersionLessThanOrderByVersionDesc(
+                tenant, name, beforeVersion(cursor), pageLimit(cursor, limit));
+        requireVersions(name, rows, cursor);
+        return toPage(rows, limit, row -> row.getVersion().longValue(), Function.identity());
+    }
 
-        List<Prompt> versions = promptRepository.findAllVersionsByName(name);
-        if (versions.isEmpty()) {
+    // Only the first page tells an unknown prompt apart from a history that has been read to the end
+    private static void requireVersions(String name, List<?> rows, String cursor) {
+        if (rows.isEmpty() && cursor == null) {
             throw new PromptNotFoundException("No versions found for prompt with name '" + name + "'");
         }
+    }
+
+    /**
+     * Active prompts whose content has more than {@code maxTokens} tokens for the given
+     * tokenizer, largest first. Answered from the token counts stored with the content.
+     */
+    @Transactional(readOnly = true)
+    public List<PromptTokenUsage> getActivePromptsOverTokenBudget(String tenant, String tokenizer, int maxTokens, int limit) {
+        log.info("Fetching active prompts over {} {} tokens", maxTokens, tokenizer);
+        promptTokenizers.requireKnown(tokenizer);
+        if (maxTokens < 0) {
+            throw new InvalidPromptRequestException("Token budget must not be negative");
+        }
+        validatePageSize(limit);
 
-        return versions.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        return promptRepository.findActiveTokenUsageAbove(tenant, tokenizer, maxTokens, Limit.of(limit));
     }
 
     @Transactional
-    public void deletePrompt(String name) {
-        log.info("Deactivating prompt with name: {}", name);
+    public void deletePrompt(String tenant, String name) {
+        log.info("Deactivating prompt with name: {} for tenant: {}", name, tenant);
 
-        Prompt prompt = promptRepository.findByNameAndActive(name, true)
+        PromptCurrent current = promptCurrentRepository.findWithPromptByTenantAndName(tenant, name)
                 .orElseThrow(() -> new PromptNotFoundException("Prompt with name '" + name + "' not found"));
 
+        Prompt prompt = current.getPrompt();
+        promptCurrentRepository.delete(current);
+        // Prompt.active is derived from the pointer and never written; it is only set on the
+        // loaded entity so that the DEACTIVATED event reports the version as inactive
         prompt.setActive(false);
-        promptRepository.save(prompt);
+        activePromptCache.invalidate(tenant, name);
+        publishChange(PromptChangeEvent.Type.DEACTIVATED, prompt);
 
         log.info("Prompt deactivated successfully");
     }
 
     // Helper method for AI Integration Service to get current active prompt
-    @Transactional(readOnly = true)
-    public PromptResponse getCurrentPromptForAI(String name) {
+    public PromptResponse getCurrentPromptForAI(String tenant, String name) {
         log.info("AI Service fetching current prompt: {}", name);
-        return getPromptByName(name);
+        return getPromptByName(tenant, name);
     }
 
+    /**
+     * Returns the most recently activated prompt, optionally within one category.
+     * Every prompt name has its own active version, so this is the prompt whose
+     * active version changed last rather than the only active prompt.
+     */
     @Transactional(readOnly = true)
-    public PromptResponse getActivePrompt() {
-        log.info("Fetching the single active prompt");
-
-        Prompt prompt = promptRepository.findFirstByActive(true)
-                .orElseThrow(() -> new PromptNotFoundException("No active prompt found"));
+    public PromptResponse getActivePrompt(String tenant, String category) {
+        log.info("Fetching the most recently activated prompt, category: {}", category);
+
+        Optional<PromptCurrent> current = category == null
+                ? promptCurrentRepository.findFirstWithPromptByTenantOrderByUpdatedAtDesc(tenant)
+                : promptCurrentRepository.findFirstWithPromptByTenantAndCategoryOrderByUpdatedAtDesc(tenant, category);
+        Prompt prompt = current
+                .map(PromptCurrent::getPrompt)
+                .orElseThrow(() -> new PromptNotFoundException(category == null
+                        ? "No active prompt found"
+                        : "No active prompt found in category '" + category + "'"));
 
         return convertToResponse(prompt);
     }
 
-    private PromptResponse convertToResponse(Prompt prompt) {
-        return PromptResponse.builder()
+    public CacheStatsResponse getCacheStats(String tenant) {
+        CacheStats stats = activePromptCache.stats(tenant);
+        return CacheStatsResponse.builder()
+                .size(activePromptCache.size(tenant))
+                .hitCount(stats.hitCount())
+                .missCount(stats.missCount())
+                .evictionCount(stats.evictionCount())
+                .hitRate(stats.hitRate())
+                .build();
+    }
+
+    // Listeners run after commit, see PromptChangeNotifier
+    private void publishChange(PromptChangeEvent.Type type, Prompt prompt) {
+        publishChange(type, prompt, null);
+    }
+
+    private void publishChange(PromptChangeEvent.Type type, Prompt prompt, String previousCategory) {
+        eventPublisher.publishEvent(changeEvent(type, prompt, previousCategory));
+    }
+
+    /**
+     * Builds the event for a change of {@code prompt}. {@code previousCategory} is the
+     * category of the version it replaces, reported only when it differs.
+     */
+    static PromptChangeEvent changeEvent(PromptChangeEvent.Type type, Prompt prompt, String previousCategory) {
+        return PromptChangeEvent.builder()
+                .type(type)
+                .id(prompt.getId())
+                .tenant(prompt.getTenant())
+                .name(prompt.getName())
+                .category(prompt.getCategory())
+                .previousCategory(Objects.equals(previousCategory, prompt.getCategory()) ? null : previousCategory)
+                .version(prompt.getVersion())
+                .active(prompt.getActive())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+
+    // Without a page size the whole listing is returned, so a cursor has nothing to continue
+    private static Limit pageLimit(String cursor, Integer limit) {
+        if (limit == null) {
+            if (cursor != null) {
+                throw new InvalidPromptRequestException("A cursor can only be used together with a page size (limit)");
+            }
+            return Limit.unlimited();
+        }
+        validatePageSize(limit);
+        return Limit.of(limit + 1);
+    }
+
+    private static long afterId(String cursor) {
+        return cursor != null ? decodeCursor(cursor) : 0L;
+    }
+
+    private static int beforeVersion(String cursor) {
+        return cursor != null ? (int) decodeCursor(cursor) : Integer.MAX_VALUE;
+    }
+
+    // Without a page size every row makes up a single, last page
+    private static <E, T> CursorPage<T> toPage(List<E> rows, Integer limit, Function<E, Long> key, Function<E, T> mapper) {
+        // One row more than requested is fetched to learn whether another page follows
+        boolean hasMore = limit != null && rows.size() > limit;
+        List<E> pageRows = hasMore ? rows.subList(0, limit) : rows;
+
+        return CursorPage.<T>builder()
+                .items(pageRows.stream().map(mapper).toList())
+                .nextCursor(hasMore ? encodeCursor(key.apply(pageRows.get(pageRows.size() - 1))) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+
+    private static void validatePageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new InvalidPromptRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    private static String encodeCursor(long key) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(key).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidPromptRequestException("Invalid cursor: " + cursor);
+        }
+    }
+
+    static PromptResponse convertToResponse(Prompt prompt) {
+        PromptResponse.PromptResponseBuilder response = PromptResponse.builder()
                 .id(prompt.getId())
+                .tenant(prompt.getTenant())
                 .name(prompt.getName())
                 .content(prompt.getContent())
                 .category(prompt.getCategory())
                 .version(prompt.getVersion())
                 .active(prompt.getActive())
                 .createdAt(prompt.getCreatedAt())
-                .updatedAt(prompt.getUpdatedAt())
-                .build();
+                .updatedAt(prompt.getUpdatedAt());
+        PromptContent body = prompt.getBody();
+        if (body != null) {
+            response.characterCount(body.getCharacterCount())
+                    .byteCount(body.getByteCount())
+                    .tokenCounts(Map.copyOf(body.getTokenCounts()));
+        }
+        return response.build();
     }
 }
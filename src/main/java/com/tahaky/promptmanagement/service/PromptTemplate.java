@@ -0,0 +1,151 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * A prompt content parsed into literal segments and <code>{{variable}}</code> placeholders.
+ * Parsing happens once; rendering looks up each distinct variable once and appends
+ * segments and values into a builder sized to the exact result length.
+ * <p>
+ * A variable name starts with a letter or {@code _} and may contain letters, digits,
+ * {@code _}, {@code .} and {@code -}; whitespace around it inside the braces is ignored.
+ * Double braces around anything else stay literal text. Instances are immutable and
+ * thread-safe.
+ */
+public final class PromptTemplate {
+
+    private static final String OPEN = "{{";
+    private static final String CLOSE = "}}";
+
+    // literals[i] precedes the i-th placeholder; the last literal follows the last placeholder
+    private final String[] literals;
+    // Index into variableNames of each placeholder occurrence
+    private final int[] slots;
+    private final String[] variableNames;
+    private final Map<String, Integer> slotsByName;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals, int[] slots, String[] variableNames, Map<String, Integer> slotsByName) {
+        this.literals = literals;
+        this.slots = slots;
+        this.variableNames = variableNames;
+        this.slotsByName = slotsByName;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static PromptTemplate compile(String content) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        Map<String, Integer> slotsByName = new LinkedHashMap<>();
+
+        int literalStart = 0;
+        int open = content.indexOf(OPEN);
+        while (open >= 0) {
+            int close = content.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            String name = content.substring(open + OPEN.length(), close).strip();
+            if (isVariableName(name)) {
+                literals.add(content.substring(literalStart, open));
+                slots.add(slotsByName.computeIfAbsent(name, key -> slotsByName.size()));
+                literalStart = close + CLOSE.length();
+                open = content.indexOf(OPEN, literalStart);
+            } else {
+                // Not a placeholder, e.g. "{{{name}}}": retry from the next brace
+                open = content.indexOf(OPEN, open + 1);
+            }
+        }
+        literals.add(content.substring(literalStart));
+
+        return new PromptTemplate(
+                literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(),
+                slotsByName.keySet().toArray(String[]::new),
+                Map.copyOf(slotsByName));
+    }
+
+    /**
+     * Names of the variables used by the template, in order of first use.
+     */
+    public List<String> variables() {
+        return List.of(variableNames);
+    }
+
+    /**
+     * Substitutes every placeholder. The values must cover exactly the template's
+     * variables; missing (or {@code null}) and unknown variables are rejected.
+     */
+    public String render(Map<String, String> values) {
+        String[] resolved = new String[variableNames.length];
+        int length = literalLength;
+        Set<String> missing = null;
+        for (int i = 0; i < variableNames.length; i++) {
+            resolved[i] = values.get(variableNames[i]);
+            if (resolved[i] == null) {
+                missing = add(missing, variableNames[i]);
+            }
+        }
+        Set<String> unknown = null;
+        if (values.size() != variableNames.length - (missing == null ? 0 : missing.size())) {
+            for (String name : values.keySet()) {
+                if (!slotsByName.containsKey(name)) {
+                    unknown = add(unknown, name);
+                }
+            }
+        }
+        if (missing != null || unknown != null) {
+            throw new InvalidPromptRequestException(validationMessage(missing, unknown));
+        }
+
+        for (int slot : slots) {
+            length += resolved[slot].length();
+        }
+        StringBuilder out = new StringBuilder(length);
+        for (int i = 0; i < slots.length; i++) {
+            out.append(literals[i]).append(resolved[slots[i]]);
+        }
+        return out.append(literals[slots.length]).toString();
+    }
+
+    private static Set<String> add(Set<String> names, String name) {
+        Set<String> result = names == null ? new TreeSet<>() : names;
+        result.add(name);
+        return result;
+    }
+
+    private static String validationMessage(Set<String> missing, Set<String> unknown) {
+        List<String> parts = new ArrayList<>(2);
+        if (missing != null) {
+            parts.add("Missing variables: " + String.join(", ", missing));
+        }
+        if (unknown != null) {
+            parts.add("Unknown variables: " + String.join(", ", unknown));
+        }
+        return String.join("; ", parts);
+    }
+
+    private static boolean isVariableName(String name) {
+        if (name.isEmpty() || !(Character.isLetter(name.charAt(0)) || name.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '-')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
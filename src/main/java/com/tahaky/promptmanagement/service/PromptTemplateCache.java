@@ -0,0 +1,49 @@
+package com.tahaky.promptmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded cache of compiled prompt templates, keyed by prompt id. Prompt rows are
+ * immutable and every version has its own id, so an entry never goes stale and needs no
+ * invalidation; versions that are no longer active simply age out.
+ * <p>
+ * Size, hit/miss and eviction counts are published as {@code cache.*} meters tagged
+ * {@code cache=prompt-templates}.
+ */
+@Component
+public class PromptTemplateCache implements MeterBinder {
+
+    static final String CACHE_NAME = "prompt-templates";
+
+    private final Cache<Long, PromptTemplate> cache;
+
+    public PromptTemplateCache(@Value("${prompt.template-cache.maximum-size:10000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the compiled template of the given prompt version, compiling it on a miss.
+     */
+    public PromptTemplate get(PromptResponse prompt) {
+        return cache.get(prompt.getId(), id -> PromptTemplate.compile(prompt.getContent()));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
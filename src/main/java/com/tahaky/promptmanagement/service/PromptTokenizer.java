@@ -0,0 +1,15 @@
+package com.tahaky.promptmanagement.service;
+
+/**
+ * Counts the tokens a model would see for a text. Counts are computed once per
+ * distinct prompt text when it is stored, see {@link PromptTokenizers}.
+ */
+public interface PromptTokenizer {
+
+    /**
+     * Name under which the counts are stored and reported, e.g. {@code cl100k_base}.
+     */
+    String name();
+
+    int count(String text);
+}
@@ -0,0 +1,80 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The tokenizers prompt texts are measured with: the vocabulary-free
+ * {@link ApproximateTokenizer} plus one {@link BpeTokenizer} per configured vocabulary.
+ * Vocabularies are configured as {@code name=location} entries, the location being any
+ * Spring resource, e.g. {@code cl100k_base=file:/etc/tokenizers/cl100k_base.tiktoken}.
+ */
+@Component
+@Slf4j
+public class PromptTokenizers {
+
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_.-]{1,64}");
+
+    private final Map<String, PromptTokenizer> tokenizers;
+
+    public PromptTokenizers(ResourceLoader resourceLoader,
+                            @Value("${prompt.tokenizer.vocabularies:}") List<String> vocabularies) {
+        Map<String, PromptTokenizer> configured = new LinkedHashMap<>();
+        configured.put(ApproximateTokenizer.NAME, new ApproximateTokenizer());
+        for (String entry : vocabularies) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int separator = entry.indexOf('=');
+            String name = separator > 0 ? entry.substring(0, separator).strip() : "";
+            if (!NAME.matcher(name).matches() || configured.containsKey(name)) {
+                throw new IllegalArgumentException("Invalid or duplicate tokenizer vocabulary entry: " + entry);
+            }
+            configured.put(name, load(resourceLoader.getResource(entry.substring(separator + 1).strip()), name));
+        }
+        this.tokenizers = Collections.unmodifiableMap(configured);
+    }
+
+    private static PromptTokenizer load(Resource resource, String name) {
+        try (InputStream in = resource.getInputStream()) {
+            BpeTokenizer tokenizer = BpeTokenizer.load(name, in);
+            log.info("Loaded tokenizer vocabulary {} from {}", name, resource);
+            return tokenizer;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot load tokenizer vocabulary " + name + " from " + resource, ex);
+        }
+    }
+
+    public Set<String> names() {
+        return tokenizers.keySet();
+    }
+
+    /**
+     * Token counts of the text for every configured tokenizer, keyed by tokenizer name.
+     */
+    public Map<String, Integer> count(String text) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        tokenizers.forEach((name, tokenizer) -> counts.put(name, tokenizer.count(text)));
+        return counts;
+    }
+
+    public void requireKnown(String name) {
+        if (!tokenizers.containsKey(name)) {
+            throw new InvalidPromptRequestException("Unknown tokenizer '" + name + "', expected one of " + names());
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.tahaky.promptmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tahaky.promptmanagement.controller.Tenants;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Startup warm-up. Runs as an {@link ApplicationRunner}, i.e. before Spring Boot
+ * switches the readiness state to {@code ACCEPTING_TRAFFIC}, so load balancers and the
+ * readiness probe only route traffic to the instance once it is warm.
+ * <ol>
+ *     <li>Preloads the active prompt cache with every active prompt (up to the cache
+ *     size of each tenant). If a snapshot written at the previous shutdown exists, only the pointer
+ *     table is read and prompts whose active version is unchanged come from the
+ *     snapshot; prompt rows are immutable, so a matching id means matching content.</li>
+ *     <li>Sends requests to the AI integration endpoint over loopback HTTP, so the
+ *     JIT compiles the request path before real traffic arrives.</li>
+ * </ol>
+ */
+@Component
+@ConditionalOnProperty(name = "prompt.warmup.enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class PromptWarmup implements ApplicationRunner {
+
+    private static final int LOAD_CHUNK_SIZE = 500;
+
+    private final PromptRepository promptRepository;
+    private final ActivePromptCache activePromptCache;
+    private final ObjectMapper objectMapper;
+    private final TenantRateLimiter tenantRateLimiter;
+    private final Environment environment;
+    private final Path snapshotFile;
+    private final int requests;
+    private final Duration maxDuration;
+
+    public PromptWarmup(PromptRepository promptRepository,
+                        ActivePromptCache activePromptCache,
+                        ObjectMapper objectMapper,
+                        TenantRateLimiter tenantRateLimiter,
+                        Environment environment,
+                        @Value("${prompt.warmup.snapshot-file:}") String snapshotFile,
+                        @Value("${prompt.warmup.requests:1000}") int requests,
+                        @Value("${prompt.warmup.max-duration:PT30S}") Duration maxDuration) {
+        this.promptRepository = promptRepository;
+        this.activePromptCache = activePromptCache;
+        this.objectMapper = objectMapper;
+        this.tenantRateLimiter = tenantRateLimiter;
+        this.environment = environment;
+        this.snapshotFile = snapshotFile.isBlank() ? null : Path.of(snapshotFile);
+        this.requests = requests;
+        this.maxDuration = maxDuration;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long start = System.nanoTime();
+        List<PromptVersionInfo> prompts = preloadActivePrompts();
+        int sent = exerciseEndpoints(prompts);
+        log.info("Warm-up finished in {} ms: {} prompts preloaded, {} warm-up requests sent",
+                Duration.ofNanos(System.nanoTime() - start).toMillis(), prompts.size(), sent);
+    }
+
+    /**
+     * Fills the active prompt cache of every tenant and returns the preloaded prompts.
+     */
+    List<PromptVersionInfo> preloadActivePrompts() {
+        Map<PromptCurrent.Key, PromptResponse> snapshot = readSnapshot();
+        long stamp = activePromptCache.stamp();
+
+        // Ordered by id, so every tenant keeps its oldest prompts when it has more than fit into its cache
+        Map<String, List<PromptVersionInfo>> activeByTenant = promptRepository.findAllActiveVersionInfos().stream()
+                .collect(Collectors.groupingBy(PromptVersionInfo::getTenant, LinkedHashMap::new, Collectors.toList()));
+        List<PromptVersionInfo> preloaded = new ArrayList<>();
+        int fromSnapshot = 0;
+        for (Map.Entry<String, List<PromptVersionInfo>> entry : activeByTenant.entrySet()) {
+            String tenant = entry.getKey();
+            List<PromptVersionInfo> active = entry.getValue();
+            if (active.size() > activePromptCache.maximumSize()) {
+                active = active.subList(0, (int) activePromptCache.maximumSize());
+            }
+            List<String> misses = new ArrayList<>();
+            for (PromptVersionInfo info : active) {
+                preloaded.add(info);
+                PromptResponse snapshotted = snapshot.get(new PromptCurrent.Key(tenant, info.getName()));
+                if (snapshotted != null && info.getId().equals(snapshotted.getId())) {
+                    activePromptCache.putIfNotInvalidatedSince(tenant, info.getName(), snapshotted, stamp);
+                    fromSnapshot++;
+                } else {
+                    misses.add(info.getName());
+                }
+            }
+            for (int from = 0; from < misses.size(); from += LOAD_CHUNK_SIZE) {
+                List<String> chunk = misses.subList(from, Math.min(from + LOAD_CHUNK_SIZE, misses.size()));
+                for (Prompt prompt : promptRepository.findActiveByNameIn(tenant, chunk)) {
+                    activePromptCache.putIfNotInvalidatedSince(tenant, prompt.getName(),
+                            PromptService.convertToResponse(prompt), stamp);
+                }
+            }
+        }
+
+        log.info("Preloaded {} active prompts of {} tenants ({} from snapshot, {} from database)",
+                preloaded.size(), activeByTenant.size(), fromSnapshot, preloaded.size() - fromSnapshot);
+        return preloaded;
+    }
+
+    private int exerciseEndpoints(List<PromptVersionInfo> prompts) {
+        Integer port = environment.getProperty("local.server.port", Integer.class);
+        if (port == null || prompts.isEmpty() || requests <= 0) {
+            return 0;
+        }
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        int sent = 0;
+        try {
+            while (sent < requests && System.nanoTime() < deadline) {
+                PromptVersionInfo prompt = prompts.get(sent % prompts.size());
+                HttpRequest.Builder request = HttpRequest.newBuilder(integrationUri(port, prompt.getName()))
+                        .header(Tenants.HEADER, prompt.getTenant())
+                        .header(Tenants.INTERNAL_HEADER, tenantRateLimiter.internalToken());
+                HttpResponse<Void> response = client.send(request.build(), HttpResponse.BodyHandlers.discarding());
+                sent++;
+                // Revalidation is the other hot path of polling clients
+                String etag = response.headers().firstValue(HttpHeaders.ETAG).orElse(null);
+                if (etag != null && sent < requests) {
+                    client.send(request.header(HttpHeaders.IF_NONE_MATCH, etag).build(),
+                            HttpResponse.BodyHandlers.discarding());
+                    sent++;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException ex) {
+            // The warm-up only speeds up the first requests; it must never keep the instance from starting
+            log.warn("Warm-up requests stopped after {} requests: {}", sent, ex.getMessage());
+        }
+        return sent;
+    }
+
+    static URI integrationUri(int port, String name) {
+        return UriComponentsBuilder.fromUriString("http://localhost")
+                .port(port)
+                .path("/api/integration/prompts/{name}")
+                .encode()
+                .buildAndExpand(name)
+                .toUri();
+    }
+
+    /**
+     * Writes the cached prompts to the snapshot file on shutdown, so the next start can
+     * skip reading their content from the database.
+     */
+    @EventListener(ContextClosedEvent.class)
+    public void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        List<PromptResponse> prompts = activePromptCache.values();
+        try {
+            Path directory = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                for (PromptResponse prompt : prompts) {
+                    writer.write(objectMapper.writeValueAsString(prompt));
+                    writer.newLine();
+                }
+            }
+            Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote snapshot of {} prompts to {}", prompts.size(), snapshotFile);
+        } catch (IOException ex) {
+            log.warn("Could not write prompt snapshot to {}: {}", snapshotFile, ex.getMessage());
+        }
+    }
+
+    private Map<PromptCurrent.Key, PromptResponse> readSnapshot() {
+        Map<PromptCurrent.Key, PromptResponse> snapshot = new HashMap<>();
+        if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+            return snapshot;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    PromptResponse prompt = objectMapper.readValue(line, PromptResponse.class);
+                    // Snapshots written before tenants existed only hold prompts of the default tenant
+                    String tenant = prompt.getTenant() != null ? prompt.getTenant() : Prompt.DEFAULT_TENANT;
+                    snapshot.put(new PromptCurrent.Key(tenant, prompt.getName()), prompt);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Ignoring unreadable prompt snapshot {}: {}", snapshotFile, ex.getMessage());
+            snapshot.clear();
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,84 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.repository.ReactivePromptRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking facade over the AI integration reads of {@link PromptService}. It shares
+ * the {@link ActivePromptCache} with the blocking path, so writes made through JPA
+ * invalidate what this facade serves, and it loads misses through
+ * {@link ReactivePromptRepository}.
+ */
+@Service
+@ConditionalOnProperty(name = "prompt.integration.reactive.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePromptService {
+
+    private final ReactivePromptRepository reactivePromptRepository;
+    private final ActivePromptCache activePromptCache;
+
+    public Mono<PromptResponse> getCurrentPromptForAI(String tenant, String name) {
+        return Mono.defer(() -> {
+            log.info("AI Service fetching current prompt: {}", name);
+            PromptResponse cached = activePromptCache.getIfPresent(tenant, name);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long stamp = activePromptCache.stamp();
+            return reactivePromptRepository.findActiveByName(tenant, name)
+                    .map(PromptService::convertToResponse)
+                    .doOnNext(response -> activePromptCache.putIfNotInvalidatedSince(tenant, name, response, stamp));
+        }).switchIfEmpty(Mono.error(() -> new PromptNotFoundException("Prompt with name '" + name + "' not found")));
+    }
+
+    /**
+     * Resolves the id and version of the active prompt without reading its content.
+     * Completes empty when there is no active prompt with that name.
+     */
+    public Mono<PromptVersionInfo> findActivePromptVersion(String tenant, String name) {
+        return Mono.defer(() -> {
+            PromptResponse cached = activePromptCache.getIfPresent(tenant, name);
+            if (cached != null) {
+                return Mono.just(new PromptVersionInfo(cached.getId(), tenant, cached.getName(), cached.getVersion()));
+            }
+            return reactivePromptRepository.findActiveVersionInfoByName(tenant, name);
+        });
+    }
+
+    public Mono<BatchPromptResponse> getPromptsByNames(String tenant, List<String> names) {
+        return Mono.defer(() -> {
+            Set<String> uniqueNames = PromptService.uniqueBatchNames(names);
+            log.info("Fetching {} prompts by name", uniqueNames.size());
+
+            Map<String, PromptResponse> resolved = new HashMap<>(activePromptCache.getAllPresent(tenant, uniqueNames));
+            List<String> misses = uniqueNames.stream()
+                    .filter(name -> !resolved.containsKey(name))
+                    .toList();
+            if (misses.isEmpty()) {
+                return Mono.just(PromptService.toBatchResponse(uniqueNames, resolved));
+            }
+            long stamp = activePromptCache.stamp();
+            return reactivePromptRepository.findActiveByNameIn(tenant, misses)
+                    .map(PromptService::convertToResponse)
+                    .doOnNext(response -> {
+                        resolved.put(response.getName(), response);
+                        activePromptCache.putIfNotInvalidatedSince(tenant, response.getName(), response, stamp);
+                    })
+                    .then(Mono.fromSupplier(() -> PromptService.toBatchResponse(uniqueNames, resolved)));
+        });
+    }
+}
@@ -0,0 +1,247 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a read-only transaction may run on a read replica. The instance writes
+ * a heartbeat row ({@link com.tahaky.promptmanagement.model.ReplicaHeartbeat}) to the
+ * primary every heartbeat interval and reads it back from each replica, which tells how
+ * far every replica has caught up with this instance's writes.
+ * <p>
+ * A replica is eligible while it answers, its last replicated heartbeat is at most
+ * {@code maxLag} old, and it has applied the first heartbeat written after this
+ * instance's last prompt change. The last rule gives read-your-writes: right after an
+ * update, reads (including the cache miss that reloads the updated prompt) stay on the
+ * primary until a replica has replicated the change. Writes of other instances are only
+ * bounded by {@code maxLag}.
+ * <p>
+ * Heartbeats start once the application has started, after schema generation; until
+ * then every read goes to the primary. The lag of every replica is published as the
+ * {@code prompt.datasource.replica.lag} gauge.
+ */
+@Slf4j
+public class ReplicaLagMonitor implements ApplicationRunner, MeterBinder {
+
+    static final String INSERT_SQL = "INSERT INTO replica_heartbeat (instance_id, position, beat_at_millis) VALUES (?, ?, ?)";
+    static final String UPDATE_SQL = "UPDATE replica_heartbeat SET position = ?, beat_at_millis = ? WHERE instance_id = ?";
+    static final String SELECT_SQL = "SELECT position, beat_at_millis FROM replica_heartbeat WHERE instance_id = ?";
+    static final String DELETE_SQL = "DELETE FROM replica_heartbeat WHERE instance_id = ?";
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final JdbcTemplate primary;
+    private final Map<String, Replica> replicas = new LinkedHashMap<>();
+    private final List<Replica> replicaList;
+    private final long heartbeatIntervalMillis;
+    private final long maxLagMillis;
+    private final LongSupplier clock;
+
+    private final AtomicLong position = new AtomicLong();
+    private final AtomicLong requiredPosition = new AtomicLong(1);
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile boolean primaryBeating = true;
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas,
+                             Duration heartbeatInterval, Duration maxLag) {
+        this(primary, replicas, heartbeatInterval, maxLag, System::currentTimeMillis);
+    }
+
+    ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas,
+                      Duration heartbeatInterval, Duration maxLag, LongSupplier clock) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one read replica must be configured");
+        }
+        if (maxLag.compareTo(heartbeatInterval.multipliedBy(2)) <= 0) {
+            throw new IllegalArgumentException("The maximum replica lag must be more than twice the heartbeat interval");
+        }
+        this.primary = new JdbcTemplate(primary);
+        replicas.forEach((name, dataSource) -> this.replicas.put(name, new Replica(name, dataSource)));
+        this.replicaList = List.copyOf(this.replicas.values());
+        this.heartbeatIntervalMillis = heartbeatInterval.toMillis();
+        this.maxLagMillis = maxLag.toMillis();
+        this.clock = clock;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        heartbeat.scheduleWithFixedDelay(this::tick, 0, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+        log.info("Routing read-only transactions to {} read replica(s), maximum lag {} ms",
+                replicas.size(), maxLagMillis);
+    }
+
+    public Map<String, DataSource> getReplicaDataSources() {
+        Map<String, DataSource> dataSources = new LinkedHashMap<>();
+        replicas.forEach((name, replica) -> dataSources.put(name, replica.dataSource));
+        return Collections.unmodifiableMap(dataSources);
+    }
+
+    /**
+     * Picks the replica for a read-only transaction, round-robin over the eligible
+     * replicas, or returns {@code null} when the read has to go to the primary.
+     */
+    public String selectReplica() {
+        long required = requiredPosition.get();
+        long now = clock.getAsLong();
+        List<Replica> eligible = new ArrayList<>(replicaList.size());
+        for (Replica replica : replicaList) {
+            if (replica.isEligible(required, now, maxLagMillis)) {
+                eligible.add(replica);
+            }
+        }
+        if (eligible.isEmpty()) {
+            return null;
+        }
+        return eligible.get(Math.floorMod(nextReplica.getAndIncrement(), eligible.size())).name;
+    }
+
+    /**
+     * Keeps reads on the primary until a replica has applied the next heartbeat, which
+     * is written after everything this instance has committed so far.
+     */
+    public void recordWrite() {
+        long next = position.get() + 1;
+        requiredPosition.accumulateAndGet(next, Math::max);
+    }
+
+    // Runs before the other listeners, so a cache miss that follows the post-commit
+    // invalidation already sees the write and reloads the prompt from the primary
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onPromptChange(PromptChangeEvent event) {
+        recordWrite();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicaList) {
+            Gauge.builder("prompt.datasource.replica.lag", replica, r -> r.lagSeconds(clock.getAsLong()))
+                    .description("Age of the last heartbeat replicated to the read replica")
+                    .tag("replica", replica.name)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+    }
+
+    void tick() {
+        beat();
+        poll();
+    }
+
+    void beat() {
+        long next = position.incrementAndGet();
+        long now = clock.getAsLong();
+        try {
+            if (primary.update(UPDATE_SQL, next, now, instanceId) == 0) {
+                primary.update(INSERT_SQL, instanceId, next, now);
+            }
+            if (!primaryBeating) {
+                log.info("Writing replica heartbeats to the primary again");
+                primaryBeating = true;
+            }
+        } catch (DataAccessException ex) {
+            if (primaryBeating) {
+                log.warn("Could not write the replica heartbeat to the primary: {}", ex.getMessage());
+                primaryBeating = false;
+            }
+        }
+    }
+
+    void poll() {
+        for (Replica replica : replicaList) {
+            try {
+                List<long[]> rows = replica.jdbcTemplate.query(SELECT_SQL,
+                        (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)}, instanceId);
+                if (!rows.isEmpty()) {
+                    replica.position = rows.get(0)[0];
+                    replica.beatAtMillis = rows.get(0)[1];
+                }
+                if (!replica.reachable) {
+                    log.info("Read replica {} is reachable", replica.name);
+                    replica.reachable = true;
+                }
+            } catch (DataAccessException ex) {
+                if (replica.reachable) {
+                    log.warn("Read replica {} is unreachable, reading from the primary: {}", replica.name, ex.getMessage());
+                    replica.reachable = false;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        try {
+            primary.update(DELETE_SQL, instanceId);
+        } catch (DataAccessException ex) {
+            log.debug("Could not remove the replica heartbeat row: {}", ex.getMessage());
+        }
+        for (Replica replica : replicaList) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException ex) {
+                    log.warn("Could not close the pool of read replica {}", replica.name, ex);
+                }
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private final JdbcTemplate jdbcTemplate;
+        // Written by the heartbeat thread only; position 0 means no heartbeat has arrived yet
+        private volatile boolean reachable = true;
+        private volatile long position;
+        private volatile long beatAtMillis;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+            this.jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+
+        private boolean isEligible(long requiredPosition, long now, long maxLagMillis) {
+            return reachable && position >= requiredPosition && now - beatAtMillis <= maxLagMillis;
+        }
+
+        private double lagSeconds(long now) {
+            return position == 0 ? Double.NaN : (now - beatAtMillis) / 1000.0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.tahaky.promptmanagement.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.tahaky.promptmanagement.exception.TenantRateLimitExceededException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-tenant request rate limits, enforced with token buckets. Every tenant has one
+ * bucket for the AI integration (inference path) endpoints and one for the management
+ * endpoints, so neither another tenant nor the same tenant's bulk listings, exports
+ * and imports can use up the budget of its inference lookups.
+ * <p>
+ * A rate of 0 disables the limit of that kind of traffic. Buckets of tenants that have
+ * been idle for a while are dropped, and a new bucket starts full.
+ * <p>
+ * Requests the instance sends to itself (the startup warm-up) carry a random per-process
+ * {@link #internalToken()} and are not charged to any tenant.
+ */
+@Component
+public class TenantRateLimiter {
+
+    public enum Traffic {
+        INTEGRATION,
+        MANAGEMENT
+    }
+
+    private record BucketKey(String tenant, Traffic traffic) {
+    }
+
+    private record Limit(double requestsPerSecond, int burst) {
+    }
+
+    private final Map<Traffic, Limit> limits;
+    private final Cache<BucketKey, Bucket> buckets;
+    private final LongSupplier nanoTime;
+    private final String internalToken = UUID.randomUUID().toString();
+
+    @Autowired
+    public TenantRateLimiter(@Value("${prompt.tenants.rate-limit.integration.requests-per-second:0}") double integrationRate,
+                             @Value("${prompt.tenants.rate-limit.integration.burst:0}") int integrationBurst,
+                             @Value("${prompt.tenants.rate-limit.management.requests-per-second:0}") double managementRate,
+                             @Value("${prompt.tenants.rate-limit.management.burst:0}") int managementBurst) {
+        this(integrationRate, integrationBurst, managementRate, managementBurst, System::nanoTime);
+    }
+
+    TenantRateLimiter(double integrationRate, int integrationBurst, double managementRate, int managementBurst,
+                      LongSupplier nanoTime) {
+        this.limits = Map.of(
+                Traffic.INTEGRATION, limit(integrationRate, integrationBurst),
+                Traffic.MANAGEMENT, limit(managementRate, managementBurst));
+        this.nanoTime = nanoTime;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    // Without an explicit burst, a bucket holds one second's worth of requests
+    private static Limit limit(double requestsPerSecond, int burst) {
+        return new Limit(requestsPerSecond, burst > 0 ? burst : (int) Math.max(1, Math.ceil(requestsPerSecond)));
+    }
+
+    public String internalToken() {
+        return internalToken;
+    }
+
+    public boolean isInternal(String token) {
+        return token != null && MessageDigest.isEqual(internalToken.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Takes one request from the tenant's bucket, or rejects the request when the
+     * bucket is empty.
+     *
+     * @throws TenantRateLimitExceededException with the number of seconds until the next
+     *                                          request would be admitted
+     */
+    public void acquire(String tenant, Traffic traffic) {
+        long waitNanos = tryAcquire(tenant, traffic);
+        if (waitNanos > 0) {
+            throw new TenantRateLimitExceededException("Request rate limit of tenant '" + tenant + "' exceeded",
+                    Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1)));
+        }
+    }
+
+    /**
+     * Takes one request from the tenant's bucket. Returns 0 when the request may
+     * proceed, otherwise the number of nanoseconds until the next request would be
+     * admitted.
+     */
+    long tryAcquire(String tenant, Traffic traffic) {
+        Limit limit = limits.get(traffic);
+        if (limit.requestsPerSecond() <= 0) {
+            return 0;
+        }
+        Bucket bucket = buckets.get(new BucketKey(tenant, traffic), key -> new Bucket(limit, nanoTime.getAsLong()));
+        return bucket.tryAcquire(nanoTime.getAsLong());
+    }
+
+    private static final class Bucket {
+
+        private final double capacity;
+        private final double tokensPerNano;
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(Limit limit, long now) {
+            this.capacity = limit.burst();
+            this.tokensPerNano = limit.requestsPerSecond() / 1e9;
+            this.tokens = capacity;
+            this.refilledAt = now;
+        }
+
+        // Short and non-blocking, so the monitor does not pin a virtual thread for long
+        synchronized long tryAcquire(long now) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.PromptLookupResult;
+import com.tahaky.promptmanagement.dto.PromptRenderResponse;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.exception.SubscriberLimitExceededException;
+import com.tahaky.promptmanagement.service.PromptChangeNotifier;
+import com.tahaky.promptmanagement.service.PromptRenderService;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.service.PromptService;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AIIntegrationController.class)
+class AIIntegrationControllerTest {
+
+    private static final String TENANT = Prompt.DEFAULT_TENANT;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private PromptService promptService;
+
+    @MockBean
+    private TenantRateLimiter tenantRateLimiter;
+
+    @MockBean
+    private PromptRenderService promptRenderService;
+
+    @MockBean
+    private PromptChangeNotifier promptChangeNotifier;
+
+    @MockBean
+    private HealthEndpoint healthEndpoint;
+
+    private PromptResponse testResponse;
+
+    @BeforeEach
+    void setUp() {
+        testResponse = PromptResponse.builder()
+                .id(3L)
+                .name("test-prompt")
+                .content("Test content")
+                .category("test")
+                .version(2)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void getCurrentPrompt_Success() throws Exception {
+        when(promptService.getCurrentPromptForAI(TENANT, "test-prompt")).thenReturn(testResponse);
+
+        mockMvc.perform(get("/api/integration/prompts/test-prompt"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-2\""))
+                .andExpect(jsonPath("$.name").value("test-prompt"))
+                .andExpect(jsonPath("$.version").value(2));
+    }
+
+    @Test
+    void getCurrentPrompt_UsesTenantHeader() throws Exception {
+        when(promptService.getCurrentPromptForAI("acme", "test-prompt")).thenReturn(testResponse);
+
+        mockMvc.perform(get("/api/integration/prompts/test-prompt").header(Tenants.HEADER, "acme"))
+                .andExpect(status().isOk());
+
+        verify(tenantRateLimiter).acquire("acme", TenantRateLimiter.Traffic.INTEGRATION);
+    }
+
+    @Test
+    void getCurrentPrompt_InternalRequestIsNotRateLimited() throws Exception {
+        when(promptService.getCurrentPromptForAI("acme", "test-prompt")).thenReturn(testResponse);
+        when(tenantRateLimiter.isInternal("token")).thenReturn(true);
+
+        mockMvc.perform(get("/api/integration/prompts/test-prompt")
+                        .header(Tenants.HEADER, "acme")
+                        .header(Tenants.INTERNAL_HEADER, "token"))
+                .andExpect(status().isOk());
+
+        verify(tenantRateLimiter, never()).acquire(anyString(), any());
+    }
+
+    @Test
+    void getCurrentPrompt_NotFound() throws Exception {
+        when(promptService.getCurrentPromptForAI(eq(TENANT), anyString()))
+                .thenThrow(new PromptNotFoundException("Prompt with name 'missing' not found"));
+
+        mockMvc.perform(get("/api/integration/prompts/missing"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getCurrentPrompt_NotModifiedWhenETagMatches() throws Exception {
+        when(promptService.findActivePromptVersion(TENANT, "test-prompt"))
+                .thenReturn(Optional.of(new PromptVersionInfo(3L, TENANT, "test-prompt", 2)));
+
+        mockMvc.perform(get("/api/integration/prompts/test-prompt")
+                        .header("If-None-Match", "\"1-1\", W/\"3-2\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(promptService, never()).getCurrentPromptForAI(anyString(), anyString());
+    }
+
+    @Test
+    void getCurrentPrompts_Success() throws Exception {
+        when(promptService.getPromptsByNames(TENANT, List.of("test-prompt", "missing"))).thenReturn(BatchPromptResponse.builder()
+                .prompts(Map.of(
+                        "test-prompt", PromptLookupResult.found(testResponse),
+                        "missing", PromptLookupResult.notFound("missing")))
+                .found(1)
+                .missing(1)
+                .build());
+
+        mockMvc.perform(get("/api/integration/prompts").param("names", "test-prompt,missing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prompts['test-prompt'].prompt.version").value(2))
+                .andExpect(jsonPath("$.prompts.missing.message").value("Prompt with name 'missing' not found"));
+    }
+
+    @Test
+    void renderPrompt_Success() throws Exception {
+        when(promptRenderService.render(TENANT, "test-prompt", Map.of("name", "Ada"))).thenReturn(PromptRenderResponse.builder()
+                .id(3L)
+                .name("test-prompt")
+                .version(2)
+                .content("Hello Ada")
+                .build());
+
+        mockMvc.perform(post("/api/integration/prompts/test-prompt/render")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"variables\":{\"name\":\"Ada\"}}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(jsonPath("$.content").value("Hello Ada"));
+    }
+
+    @Test
+    void renderPrompt_MissingVariables_ReturnsBadRequest() throws Exception {
+        when(promptRenderService.render(TENANT, "test-prompt", Map.of()))
+                .thenThrow(new InvalidPromptRequestException("Missing variables: name"));
+
+        mockMvc.perform(post("/api/integration/prompts/test-prompt/render")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"variables\":{}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Missing variables: name"));
+    }
+
+    @Test
+    void renderPrompt_WithoutVariables_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(post("/api/integration/prompts/test-prompt/render")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest());
+
+        verify(promptRenderService, never()).render(anyString(), anyString(), any());
+    }
+
+    @Test
+    void renderPrompts_StreamsNdjson() throws Exception {
+        when(promptService.getCurrentPromptForAI(TENANT, "test-prompt")).thenReturn(testResponse);
+        doAnswer(invocation -> {
+            Reader input = invocation.getArgument(1);
+            OutputStream out = invocation.getArgument(2);
+            char[] buffer = new char[256];
+            String body = new String(buffer, 0, input.read(buffer));
+            out.write(("{\"index\":0,\"content\":\"" + body.lines().count() + " sets\"}\n").getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(promptRenderService).renderBatch(eq(testResponse), any(), any());
+
+        MvcResult result = mockMvc.perform(post("/api/integration/prompts/test-prompt/render/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"variables\":{\"name\":\"Ada\"}}\n{\"variables\":{\"name\":\"Linus\"}}\n"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3-2\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"index\":0,\"content\":\"2 sets\"}\n"));
+    }
+
+    @Test
+    void renderPrompts_PromptNotFound_ReturnsNotFound() throws Exception {
+        when(promptService.getCurrentPromptForAI(TENANT, "missing"))
+                .thenThrow(new PromptNotFoundException("Prompt with name 'missing' not found"));
+
+        mockMvc.perform(post("/api/integration/prompts/missing/render/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"variables\":{}}\n"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void subscribeToPrompt_OpensEventStream() throws Exception {
+        when(promptChangeNotifier.subscribeToPrompt(TENANT, "test-prompt")).thenReturn(new SseEmitter());
+
+        mockMvc.perform(get("/api/integration/prompts/test-prompt/events"))
+                .andExpect(request().asyncStarted());
+
+        verify(promptChangeNotifier).subscribeToPrompt(TENANT, "test-prompt");
+    }
+
+    @Test
+    void subscribeToCategory_RejectedWhenSubscriberLimitReached() throws Exception {
+        when(promptChangeNotifier.subscribeToCategory(TENANT, "support"))
+                .thenThrow(new SubscriberLimitExceededException("Prompt event subscriber limit of 1 reached"));
+
+        mockMvc.perform(get("/api/integration/events").param("category", "support"))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    void health_Success() throws Exception {
+        when(healthEndpoint.healthForPath("readiness")).thenReturn(Health.up().build());
+
+        mockMvc.perform(get("/api/integration/health"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+
+        verifyNoInteractions(tenantRateLimiter);
+    }
+
+    @Test
+    void health_DatabaseDown_ReturnsServiceUnavailable() throws Exception {
+        when(healthEndpoint.healthForPath("readiness")).thenReturn(Health.down().build());
+
+        mockMvc.perform(get("/api/integration/health"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("DOWN"));
+    }
+}
@@ -1,23 +1,68 @@
 package com.tahaky.promptmanagement.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tahaky.promptmanagement.dto.BatchPromptRequest;
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptDiffChunk;
+import com.tahaky.promptmanagement.dto.PromptDiffResponse;
+import com.tahaky.promptmanagement.dto.PromptImportResponse;
+import com.tahaky.promptmanagement.dto.PromptImportResult;
+import com.tahaky.promptmanagement.dto.PromptLookupResult;
 import com.tahaky.promptmanagement.dto.PromptRequest;
 import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptSearchHit;
+import com.tahaky.promptmanagement.dto.PromptSummary;
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.dto.PromptVersionDelta;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
 import com.tahaky.promptmanagement.dto.UpdatePromptRequest;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.exception.PromptPreconditionFailedException;
+import com.tahaky.promptmanagement.exception.PromptUpdateConflictException;
+import com.tahaky.promptmanagement.exception.TenantRateLimitExceededException;
+import com.tahaky.promptmanagement.service.PromptDiffService;
+import com.tahaky.promptmanagement.service.PromptExportService;
+import com.tahaky.promptmanagement.service.PromptImportService;
+import com.tahaky.promptmanagement.service.PromptSearchService;
+import com.tahaky.promptmanagement.model.Prompt;
 import com.tahaky.promptmanagement.service.PromptService;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
 
 import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,6 +70,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @WebMvcTest(PromptController.class)
 class PromptControllerTest {
 
+    private static final String TENANT = Prompt.DEFAULT_TENANT;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -34,6 +81,21 @@ class PromptControllerTest {
     @MockBean
     private PromptService promptService;
 
+    @MockBean
+    private TenantRateLimiter tenantRateLimiter;
+
+    @MockBean
+    private PromptImportService promptImportService;
+
+    @MockBean
+    private PromptExportService promptExportService;
+
+    @MockBean
+    private PromptDiffService promptDiffService;
+
+    @MockBean
+    private PromptSearchService promptSearchService;
+
     private PromptResponse testResponse;
     private PromptRequest testRequest;
 
@@ -60,7 +122,7 @@ class PromptControllerTest {
 
     @Test
     void createPrompt_Success() throws Exception {
-        when(promptService.createPrompt(any(PromptRequest.class))).thenReturn(testResponse);
+        when(promptService.createPrompt(eq(TENANT), any(PromptRequest.class))).thenReturn(testResponse);
 
         mockMvc.perform(post("/api/prompts")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -70,9 +132,41 @@ class PromptControllerTest {
                 .andExpect(jsonPath("$.content").value("Test content"));
     }
 
+    @Test
+    void getPromptByName_UsesTenantHeader() throws Exception {
+        when(promptService.getPromptByName("acme", "test-prompt")).thenReturn(testResponse);
+
+        mockMvc.perform(get("/api/prompts/test-prompt").header(Tenants.HEADER, "acme"))
+                .andExpect(status().isOk());
+
+        verify(tenantRateLimiter).acquire("acme", TenantRateLimiter.Traffic.MANAGEMENT);
+    }
+
+    @Test
+    void getPromptByName_InvalidTenant() throws Exception {
+        mockMvc.perform(get("/api/prompts/test-prompt").header(Tenants.HEADER, "../acme"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value(400));
+
+        verifyNoInteractions(promptService);
+    }
+
+    @Test
+    void getPromptByName_TenantRateLimitExceeded() throws Exception {
+        doThrow(new TenantRateLimitExceededException("Request rate limit of tenant 'default' exceeded", 2))
+                .when(tenantRateLimiter).acquire(TENANT, TenantRateLimiter.Traffic.MANAGEMENT);
+
+        mockMvc.perform(get("/api/prompts/test-prompt"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.status").value(429));
+
+        verifyNoInteractions(promptService);
+    }
+
     @Test
     void getPromptByName_Success() throws Exception {
-        when(promptService.getPromptByName(anyString())).thenReturn(testResponse);
+        when(promptService.getPromptByName(eq(TENANT), anyString())).thenReturn(testResponse);
 
         mockMvc.perform(get("/api/prompts/test-prompt"))
                 .andExpect(status().isOk())
@@ -80,6 +174,78 @@ class PromptControllerTest {
                 .andExpect(jsonPath("$.content").value("Test content"));
     }
 
+    @Test
+    void getPromptByName_ConnectionPoolExhausted_ReturnsServiceUnavailable() throws Exception {
+        when(promptService.getPromptByName(eq(TENANT), anyString()))
+                .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+
+        mockMvc.perform(get("/api/prompts/test-prompt"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value(503));
+    }
+
+    @Test
+    void getPromptByName_ReturnsETag() throws Exception {
+        when(promptService.getPromptByName(eq(TENANT), anyString())).thenReturn(testResponse);
+
+        mockMvc.perform(get("/api/prompts/test-prompt"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-1\""));
+    }
+
+    @Test
+    void getPromptByName_NotModifiedWhenETagMatches() throws Exception {
+        when(promptService.findActivePromptVersion(TENANT, "test-prompt"))
+                .thenReturn(Optional.of(new PromptVersionInfo(1L, TENANT, "test-prompt", 1)));
+
+        mockMvc.perform(get("/api/prompts/test-prompt").header("If-None-Match", "\"1-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"1-1\""))
+                .andExpect(content().string(""));
+
+        verify(promptService, never()).getPromptByName(anyString(), anyString());
+    }
+
+    @Test
+    void getPromptByName_ReturnsBodyWhenETagIsStale() throws Exception {
+        when(promptService.findActivePromptVersion(TENANT, "test-prompt"))
+                .thenReturn(Optional.of(new PromptVersionInfo(1L, TENANT, "test-prompt", 1)));
+        when(promptService.getPromptByName(eq(TENANT), anyString())).thenReturn(testResponse);
+
+        mockMvc.perform(get("/api/prompts/test-prompt").header("If-None-Match", "\"7-0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value("Test content"));
+    }
+
+    @Test
+    void getPromptsByNames_Success() throws Exception {
+        Map<String, PromptLookupResult> results = new LinkedHashMap<>();
+        results.put("test-prompt", PromptLookupResult.found(testResponse));
+        results.put("missing", PromptLookupResult.notFound("missing"));
+        when(promptService.getPromptsByNames(TENANT, List.of("test-prompt", "missing"))).thenReturn(BatchPromptResponse.builder()
+                .prompts(results)
+                .found(1)
+                .missing(1)
+                .build());
+
+        mockMvc.perform(post("/api/prompts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new BatchPromptRequest(List.of("test-prompt", "missing")))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prompts['test-prompt'].status").value("FOUND"))
+                .andExpect(jsonPath("$.prompts['test-prompt'].prompt.content").value("Test content"))
+                .andExpect(jsonPath("$.prompts.missing.status").value("NOT_FOUND"))
+                .andExpect(jsonPath("$.missing").value(1));
+    }
+
+    @Test
+    void getPromptsByNames_EmptyNamesRejected() throws Exception {
+        mockMvc.perform(post("/api/prompts/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"names\": []}"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updatePrompt_Success() throws Exception {
         UpdatePromptRequest updateRequest = UpdatePromptRequest.builder()
@@ -97,20 +263,186 @@ class PromptControllerTest {
                 .updatedAt(LocalDateTime.now())
                 .build();
 
-        when(promptService.updatePrompt(anyString(), any(UpdatePromptRequest.class)))
+        when(promptService.updatePrompt(eq(TENANT), anyString(), any(UpdatePromptRequest.class), isNull()))
                 .thenReturn(updatedResponse);
 
         mockMvc.perform(put("/api/prompts/test-prompt")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updateRequest)))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-2\""))
                 .andExpect(jsonPath("$.version").value(2))
                 .andExpect(jsonPath("$.content").value("Updated content"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatePrompt_IfMatchComparesFullETagWithEveryListedTag() throws Exception {
+        ArgumentCaptor<Predicate<PromptVersionInfo>> precondition = ArgumentCaptor.forClass(Predicate.class);
+        when(promptService.updatePrompt(eq(TENANT), eq("test-prompt"), any(UpdatePromptRequest.class), precondition.capture()))
+                .thenReturn(testResponse);
+
+        mockMvc.perform(put("/api/prompts/test-prompt")
+                        .header(HttpHeaders.IF_MATCH, "\"7-3\", W/\"1-2\", \"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"Updated content\"}"))
+                .andExpect(status().isOk());
+
+        assertTrue(precondition.getValue().test(new PromptVersionInfo(1L, TENANT, "test-prompt", 1)));
+        assertTrue(precondition.getValue().test(new PromptVersionInfo(7L, TENANT, "test-prompt", 3)));
+        // The id half counts too, and the weak tag never matches
+        assertFalse(precondition.getValue().test(new PromptVersionInfo(2L, TENANT, "test-prompt", 1)));
+        assertFalse(precondition.getValue().test(new PromptVersionInfo(1L, TENANT, "test-prompt", 2)));
+    }
+
+    @Test
+    void updatePrompt_IfMatchStarSkipsPrecondition() throws Exception {
+        when(promptService.updatePrompt(eq(TENANT), eq("test-prompt"), any(UpdatePromptRequest.class), isNull()))
+                .thenReturn(testResponse);
+
+        mockMvc.perform(put("/api/prompts/test-prompt")
+                        .header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"Updated content\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void updatePrompt_StaleIfMatch() throws Exception {
+        when(promptService.updatePrompt(eq(TENANT), eq("test-prompt"), any(UpdatePromptRequest.class), notNull()))
+                .thenThrow(new PromptPreconditionFailedException("Prompt 'test-prompt' is at version 2, not the expected version 1"));
+
+        mockMvc.perform(put("/api/prompts/test-prompt")
+                        .header(HttpHeaders.IF_MATCH, "\"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"Updated content\"}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updatePrompt_WeakIfMatchNeverMatches() throws Exception {
+        mockMvc.perform(put("/api/prompts/test-prompt")
+                        .header(HttpHeaders.IF_MATCH, "W/\"1-1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"Updated content\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        verifyNoInteractions(promptService);
+    }
+
+    @Test
+    void updatePrompt_ConcurrentModification() throws Exception {
+        when(promptService.updatePrompt(eq(TENANT), anyString(), any(UpdatePromptRequest.class), isNull()))
+                .thenThrow(new PromptUpdateConflictException("Prompt 'test-prompt' is being modified concurrently, please retry"));
+
+        mockMvc.perform(put("/api/prompts/test-prompt")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"content\":\"Updated content\"}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+    }
+
+    @Test
+    void importPrompts_ReadsNdjsonStream() throws Exception {
+        when(promptImportService.importPrompts(eq(TENANT), any())).thenAnswer(invocation -> {
+            Iterator<?> items = invocation.getArgument(1);
+            int count = 0;
+            while (items.hasNext()) {
+                items.next();
+                count++;
+            }
+            return PromptImportResponse.builder()
+                    .total(count)
+                    .created(count)
+                    .results(List.of(PromptImportResult.builder()
+                            .index(0)
+                            .name("a")
+                            .status(PromptImportResult.Status.CREATED)
+                            .build()))
+                    .build();
+        });
+
+        mockMvc.perform(post("/api/prompts/import")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"name\":\"a\",\"content\":\"x\",\"category\":\"c\"}\n"
+                                + "{\"operation\":\"UPDATE\",\"name\":\"b\",\"content\":\"y\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(2))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"));
+    }
+
+    @Test
+    void searchPrompts_Success() throws Exception {
+        when(promptSearchService.search(TENANT, "refund polic*", true, false, null, 20)).thenReturn(CursorPage.<PromptSearchHit>builder()
+                .items(List.of(PromptSearchHit.builder()
+                        .id(1L)
+                        .name("test-prompt")
+                        .category("test")
+                        .version(1)
+                        .active(true)
+                        .score(2.5f)
+                        .build()))
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/api/prompts/search").param("q", "refund polic*").param("activeOnly", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$.items[0].active").value(true))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void searchPrompts_BlankQuery_ReturnsBadRequest() throws Exception {
+        when(promptSearchService.search(TENANT, " ", false, false, null, 20))
+                .thenThrow(new InvalidPromptRequestException("Search query must not be blank"));
+
+        mockMvc.perform(get("/api/prompts/search").param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Search query must not be blank"));
+    }
+
+    @Test
+    void getPromptsOverTokenBudget_Success() throws Exception {
+        when(promptService.getActivePromptsOverTokenBudget(TENANT, "estimate", 4096, 100)).thenReturn(List.of(
+                new PromptTokenUsage(1L, "test-prompt", "test", 3, "estimate", 5120, 21877, 22014)));
+
+        mockMvc.perform(get("/api/prompts/over-token-budget").param("maxTokens", "4096"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$[0].tokens").value(5120))
+                .andExpect(jsonPath("$[0].byteCount").value(22014));
+    }
+
+    @Test
+    void findSimilarPrompts_Success() throws Exception {
+        when(promptSearchService.similar(TENANT, "test-prompt", 5, false, 0.5)).thenReturn(List.of(PromptSearchHit.builder()
+                .id(7L)
+                .name("other-prompt")
+                .category("test")
+                .version(2)
+                .active(true)
+                .score(0.91f)
+                .build()));
+
+        mockMvc.perform(get("/api/prompts/test-prompt/similar").param("limit", "5").param("minSimilarity", "0.5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("other-prompt"))
+                .andExpect(jsonPath("$[0].score").value(0.91));
+    }
+
+    @Test
+    void findSimilarPrompts_UnknownPrompt_ReturnsNotFound() throws Exception {
+        when(promptSearchService.similar(TENANT, "missing", 10, false, 0))
+                .thenThrow(new PromptNotFoundException("Prompt not found with name: missing"));
+
+        mockMvc.perform(get("/api/prompts/missing/similar"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getActivePrompt_Success() throws Exception {
-        when(promptService.getActivePrompt()).thenReturn(testResponse);
+        when(promptService.getActivePrompt(TENANT, null)).thenReturn(testResponse);
 
         mockMvc.perform(get("/api/prompts/active"))
                 .andExpect(status().isOk())
@@ -119,12 +451,187 @@ class PromptControllerTest {
     }
 
     @Test
-    void getAllActivePrompts_Success() throws Exception {
-        when(promptService.getAllActivePrompts()).thenReturn(List.of(testResponse));
+    void getActivePrompts_Success() throws Exception {
+        when(promptService.listActivePrompts(TENANT, null, null)).thenReturn(CursorPage.<PromptResponse>builder()
+                .items(List.of(testResponse))
+                .hasMore(false)
+                .build());
 
         mockMvc.perform(get("/api/prompts"))
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$[0].name").value("test-prompt"));
+                .andExpect(jsonPath("$.items[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getActivePrompts_PageSuccess() throws Exception {
+        when(promptService.listActivePrompts(TENANT, "MQ", 1)).thenReturn(CursorPage.<PromptResponse>builder()
+                .items(List.of(testResponse))
+                .nextCursor("Mg")
+                .hasMore(true)
+                .build());
+
+        mockMvc.perform(get("/api/prompts").param("limit", "1").param("cursor", "MQ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$.nextCursor").value("Mg"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+    }
+
+    @Test
+    void getActivePrompts_SummaryOmitsContent() throws Exception {
+        PromptSummary summary = new PromptSummary(1L, "test-prompt", "test", 1, true, null, null);
+        when(promptService.listActivePromptSummaries(TENANT, null, null)).thenReturn(CursorPage.<PromptSummary>builder()
+                .items(List.of(summary))
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/api/prompts").param("summary", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist());
+
+        verify(promptService, never()).listActivePrompts(anyString(), any(), any());
+    }
+
+    @Test
+    void getPromptVersionHistory_SummaryPageSuccess() throws Exception {
+        PromptSummary summary = new PromptSummary(1L, "test-prompt", "test", 1, true, null, null);
+        when(promptService.listPromptVersionSummaries(TENANT, "test-prompt", null, 10)).thenReturn(CursorPage.<PromptSummary>builder()
+                .items(List.of(summary))
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/api/prompts/test-prompt/versions").param("summary", "true").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].version").value(1))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist());
+    }
+
+    @Test
+    void getPromptVersionHistory_PageSuccess() throws Exception {
+        when(promptService.listPromptVersions(TENANT, "test-prompt", null, 10)).thenReturn(CursorPage.<PromptResponse>builder()
+                .items(List.of(testResponse))
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/api/prompts/test-prompt/versions").param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].version").value(1))
+                .andExpect(jsonPath("$.hasMore").value(false));
+    }
+
+    @Test
+    void getPromptsByCategory_PassesListingOptionsToService() throws Exception {
+        PromptSummary summary = new PromptSummary(1L, "test-prompt", "test", 1, true, null, null);
+        when(promptService.listPromptSummariesByCategory(TENANT, "test", "MQ", 5)).thenReturn(CursorPage.<PromptSummary>builder()
+                .items(List.of(summary))
+                .hasMore(false)
+                .build());
+
+        mockMvc.perform(get("/api/prompts/category/test")
+                        .param("summary", "true")
+                        .param("limit", "5")
+                        .param("cursor", "MQ"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].name").value("test-prompt"))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist());
+    }
+
+    @Test
+    void exportActivePrompts_StreamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PromptResponse> sink = invocation.getArgument(1);
+            sink.accept(testResponse);
+            sink.accept(testResponse);
+            return null;
+        }).when(promptExportService).exportActivePrompts(eq(TENANT), any());
+
+        MvcResult result = mockMvc.perform(get("/api/prompts").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("test-prompt", objectMapper.readValue(lines[1], PromptResponse.class).getName());
+        // The async dispatch that completes the stream is not charged again
+        verify(tenantRateLimiter).acquire(TENANT, TenantRateLimiter.Traffic.MANAGEMENT);
+    }
+
+    @Test
+    void exportPromptVersionHistory_StreamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PromptResponse> sink = invocation.getArgument(2);
+            sink.accept(testResponse);
+            return null;
+        }).when(promptExportService).exportPromptVersionHistory(eq(TENANT), eq("test-prompt"), any());
+
+        MvcResult result = mockMvc.perform(get("/api/prompts/test-prompt/versions").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(objectMapper.writeValueAsString(testResponse) + "\n"));
+    }
+
+    @Test
+    void diffPromptVersions_Success() throws Exception {
+        when(promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.WORD)).thenReturn(PromptDiffResponse.builder()
+                .name("test-prompt")
+                .fromVersion(1)
+                .toVersion(2)
+                .granularity(PromptDiffResponse.Granularity.WORD)
+                .chunks(List.of(PromptDiffChunk.builder()
+                        .type(PromptDiffChunk.Type.CHANGE)
+                        .sourcePosition(2)
+                        .sourceText("polite")
+                        .targetPosition(2)
+                        .targetText("kind")
+                        .build()))
+                .build());
+
+        mockMvc.perform(get("/api/prompts/test-prompt/diff")
+                        .param("from", "1")
+                        .param("to", "2")
+                        .param("granularity", "WORD"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.chunks[0].type").value("CHANGE"))
+                .andExpect(jsonPath("$.chunks[0].targetText").value("kind"));
+    }
+
+    @Test
+    void diffPromptVersions_InvalidGranularity() throws Exception {
+        mockMvc.perform(get("/api/prompts/test-prompt/diff")
+                        .param("from", "1")
+                        .param("to", "2")
+                        .param("granularity", "SENTENCE"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportPromptVersionDeltas_StreamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<PromptVersionDelta> sink = invocation.getArgument(3);
+            sink.accept(PromptVersionDelta.builder().version(1).content("Test content").build());
+            sink.accept(PromptVersionDelta.builder().version(2).baseVersion(1)
+                    .edits(List.of(new PromptVersionDelta.Edit(0, 1, "New content"))).build());
+            return null;
+        }).when(promptDiffService).exportVersionDeltas(eq(TENANT), eq("test-prompt"), eq(PromptDiffResponse.Granularity.LINE), any());
+
+        MvcResult result = mockMvc.perform(get("/api/prompts/test-prompt/versions/deltas")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"version\":1,\"content\":\"Test content\"}\n"
+                        + "{\"version\":2,\"baseVersion\":1,\"edits\":[{\"position\":0,\"deleted\":1,\"inserted\":\"New content\"}]}\n"));
     }
 
     @Test
@@ -0,0 +1,180 @@
+package com.tahaky.promptmanagement.controller;
+
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.PromptLookupResult;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.service.ReactivePromptService;
+import com.tahaky.promptmanagement.service.TenantRateLimiter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.Mockito.when;
+
+/**
+ * Same scenarios as the read tests in {@link AIIntegrationControllerTest}, run against
+ * the reactive routes.
+ */
+@ExtendWith(MockitoExtension.class)
+class ReactiveAIIntegrationHandlerTest {
+
+    @Mock
+    private ReactivePromptService reactivePromptService;
+
+    private WebTestClient webTestClient;
+
+    private PromptResponse testResponse;
+
+    @BeforeEach
+    void setUp() {
+        webTestClient = client(new TenantRateLimiter(0, 0, 0, 0));
+        testResponse = PromptResponse.builder()
+                .id(3L)
+                .name("test-prompt")
+                .content("Test content")
+                .category("test")
+                .version(2)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private WebTestClient client(TenantRateLimiter tenantRateLimiter) {
+        return WebTestClient.bindToRouterFunction(new ReactiveAIIntegrationHandler(reactivePromptService, tenantRateLimiter).routes())
+                .build();
+    }
+
+    @Test
+    void getCurrentPrompt_Success() {
+        when(reactivePromptService.getCurrentPromptForAI(Prompt.DEFAULT_TENANT, "test-prompt")).thenReturn(Mono.just(testResponse));
+
+        webTestClient.get().uri("/api/integration/prompts/test-prompt")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"3-2\"")
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("test-prompt")
+                .jsonPath("$.version").isEqualTo(2);
+    }
+
+    @Test
+    void getCurrentPrompt_NotFound() {
+        when(reactivePromptService.getCurrentPromptForAI(Prompt.DEFAULT_TENANT, "missing"))
+                .thenReturn(Mono.error(new PromptNotFoundException("Prompt with name 'missing' not found")));
+
+        webTestClient.get().uri("/api/integration/prompts/missing")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Prompt with name 'missing' not found");
+    }
+
+    @Test
+    void getCurrentPrompt_NotModifiedWhenETagMatches() {
+        when(reactivePromptService.findActivePromptVersion(Prompt.DEFAULT_TENANT, "test-prompt"))
+                .thenReturn(Mono.just(new PromptVersionInfo(3L, Prompt.DEFAULT_TENANT, "test-prompt", 2)));
+        // Assembled eagerly by the handler but never subscribed to
+        when(reactivePromptService.getCurrentPromptForAI(Prompt.DEFAULT_TENANT, "test-prompt"))
+                .thenReturn(Mono.error(new AssertionError("content must not be loaded")));
+
+        webTestClient.get().uri("/api/integration/prompts/test-prompt")
+                .header("If-None-Match", "\"1-1\", W/\"3-2\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"3-2\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    void getCurrentPrompt_ReturnsPromptWhenETagIsStale() {
+        when(reactivePromptService.findActivePromptVersion(Prompt.DEFAULT_TENANT, "test-prompt"))
+                .thenReturn(Mono.just(new PromptVersionInfo(3L, Prompt.DEFAULT_TENANT, "test-prompt", 2)));
+        when(reactivePromptService.getCurrentPromptForAI(Prompt.DEFAULT_TENANT, "test-prompt")).thenReturn(Mono.just(testResponse));
+
+        webTestClient.get().uri("/api/integration/prompts/test-prompt")
+                .header("If-None-Match", "\"3-1\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("ETag", "\"3-2\"");
+    }
+
+    @Test
+    void getCurrentPrompts_Success() {
+        when(reactivePromptService.getPromptsByNames(Prompt.DEFAULT_TENANT, List.of("test-prompt", "missing"))).thenReturn(Mono.just(BatchPromptResponse.builder()
+                .prompts(Map.of(
+                        "test-prompt", PromptLookupResult.found(testResponse),
+                        "missing", PromptLookupResult.notFound("missing")))
+                .found(1)
+                .missing(1)
+                .build()));
+
+        webTestClient.get().uri("/api/integration/prompts?names=test-prompt,missing")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.prompts['test-prompt'].prompt.version").isEqualTo(2)
+                .jsonPath("$.prompts.missing.message").isEqualTo("Prompt with name 'missing' not found");
+    }
+
+    @Test
+    void getCurrentPrompts_TooManyNames() {
+        when(reactivePromptService.getPromptsByNames(Prompt.DEFAULT_TENANT, List.of("a", "b")))
+                .thenReturn(Mono.error(new InvalidPromptRequestException("At most 100 prompts can be fetched in one batch")));
+
+        webTestClient.get().uri("/api/integration/prompts?names=a,b")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    void getCurrentPrompt_ReadsTenantHeader() {
+        when(reactivePromptService.getCurrentPromptForAI("acme", "test-prompt")).thenReturn(Mono.just(testResponse));
+
+        webTestClient.get().uri("/api/integration/prompts/test-prompt")
+                .header(Tenants.HEADER, "acme")
+                .exchange()
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void getCurrentPrompt_InvalidTenant() {
+        webTestClient.get().uri("/api/integration/prompts/test-prompt")
+                .header(Tenants.HEADER, "acme/other")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400);
+    }
+
+    @Test
+    void getCurrentPrompt_TenantRateLimitExceeded() {
+        WebTestClient limitedClient = client(new TenantRateLimiter(1, 1, 0, 0));
+        when(reactivePromptService.getCurrentPromptForAI(Prompt.DEFAULT_TENANT, "test-prompt")).thenReturn(Mono.just(testResponse));
+
+        limitedClient.get().uri("/api/integration/prompts/test-prompt")
+                .exchange()
+                .expectStatus().isOk();
+        limitedClient.get().uri("/api/integration/prompts/test-prompt")
+                .exchange()
+                .expectStatus().isEqualTo(429)
+                .expectHeader().valueEquals("Retry-After", "1")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(429);
+    }
+}
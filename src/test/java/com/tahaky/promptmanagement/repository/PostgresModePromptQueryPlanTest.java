@@ -0,0 +1,7 @@
+package com.tahaky.promptmanagement.repository;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:plans-pg;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH")
+class PostgresModePromptQueryPlanTest extends PromptQueryPlanTest {
+}
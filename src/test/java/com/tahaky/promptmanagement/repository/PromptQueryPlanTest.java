@@ -0,0 +1,199 @@
+package com.tahaky.promptmanagement.repository;
+
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.service.PromptContentStore;
+import com.tahaky.promptmanagement.service.PromptTokenizers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the hot prompt lookups are answered from an index rather than a table scan,
+ * in particular that reading active prompts never scans the version history.
+ * {@link PostgresModePromptQueryPlanTest} runs the same checks with H2 in PostgreSQL mode.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:plans-h2")
+@Import({PromptContentStore.class, PromptTokenizers.class})
+class PromptQueryPlanTest {
+
+    private static final String TENANT = "acme";
+    private static final String OTHER_TENANT = "globex";
+
+    @Autowired
+    private PromptRepository promptRepository;
+
+    @Autowired
+    private PromptCurrentRepository promptCurrentRepository;
+
+    @Autowired
+    private PromptContentRepository promptContentRepository;
+
+    @Autowired
+    private PromptContentStore promptContentStore;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Years of history: many versions per name, the newest one current
+        List<Prompt> prompts = new ArrayList<>();
+        List<PromptCurrent> pointers = new ArrayList<>();
+        for (int n = 0; n < 20; n++) {
+            for (int v = 1; v <= 50; v++) {
+                Prompt prompt = Prompt.builder()
+                        .tenant(TENANT)
+                        .name("prompt-" + n)
+                        .content("content " + v)
+                        .category("category-" + (n % 4))
+                        .version(v)
+                        .build();
+                prompts.add(prompt);
+                if (v == 50) {
+                    pointers.add(PromptCurrent.of(prompt));
+                }
+            }
+        }
+        // Another tenant reusing a name of the first one
+        Prompt other = Prompt.builder()
+                .tenant(OTHER_TENANT)
+                .name("prompt-7")
+                .content("content 1")
+                .category("category-1")
+                .version(1)
+                .build();
+        prompts.add(other);
+        pointers.add(PromptCurrent.of(other));
+        promptContentStore.attach(prompts);
+        promptRepository.saveAll(prompts);
+        promptCurrentRepository.saveAll(pointers);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void findActiveByName_UsesPrimaryKeys() {
+        assertNoHistoryScan("SELECT p.* FROM prompt_current c JOIN prompts p ON p.id = c.prompt_id WHERE c.tenant = 'acme' AND c.name = 'prompt-7'");
+        assertThat(explain("SELECT * FROM prompt_current c WHERE c.tenant = 'acme' AND c.name = 'prompt-7'")).containsIgnoringCase("PRIMARY_KEY");
+    }
+
+    @Test
+    void findActiveByCategory_UsesCategoryIndex() {
+        String sql = "SELECT p.* FROM prompt_current c JOIN prompts p ON p.id = c.prompt_id "
+                + "WHERE c.tenant = 'acme' AND c.category = 'category-1' ORDER BY c.prompt_id";
+
+        assertNoHistoryScan(sql);
+        assertThat(explain(sql)).containsIgnoringCase("idx_prompt_current_category");
+    }
+
+    @Test
+    void activeKeysetPage_DoesNotScanHistory() {
+        assertNoHistoryScan("SELECT p.* FROM prompt_current c JOIN prompts p ON p.id = c.prompt_id "
+                + "WHERE c.tenant = 'acme' AND c.prompt_id > 100 ORDER BY c.prompt_id FETCH FIRST 51 ROWS ONLY");
+    }
+
+    @Test
+    void findActiveByName_ReturnsCurrentVersion() {
+        Prompt active = promptRepository.findActiveByName(TENANT, "prompt-7").orElseThrow();
+
+        assertThat(active.getVersion()).isEqualTo(50);
+        assertThat(active.getActive()).isTrue();
+    }
+
+    @Test
+    void findActiveByName_IsScopedToTenant() {
+        Prompt active = promptRepository.findActiveByName(OTHER_TENANT, "prompt-7").orElseThrow();
+
+        assertThat(active.getTenant()).isEqualTo(OTHER_TENANT);
+        assertThat(active.getVersion()).isEqualTo(1);
+        assertThat(allVersions(OTHER_TENANT, "prompt-7")).hasSize(1);
+        assertThat(promptRepository.findActiveByName(OTHER_TENANT, "prompt-3")).isEmpty();
+    }
+
+    @Test
+    void listingQueries_ReturnEveryRowWithUnlimitedLimit() {
+        assertThat(promptRepository.findActiveByIdGreaterThan(TENANT, 0L, Limit.unlimited())).hasSize(20);
+        assertThat(promptRepository.findActiveSummariesByCategoryAndIdGreaterThan(TENANT, "category-1", 0L, Limit.unlimited()))
+                .hasSize(5);
+        assertThat(promptRepository.findActiveByIdGreaterThan(TENANT, 0L, Limit.of(3))).hasSize(3);
+    }
+
+    @Test
+    void versionHistory_DerivesActiveFlagFromPointer() {
+        List<Prompt> versions = allVersions(TENANT, "prompt-3");
+
+        assertThat(versions).hasSize(50);
+        assertThat(versions).filteredOn(Prompt::getActive).extracting(Prompt::getVersion).containsExactly(50);
+    }
+
+    @Test
+    void versionHistory_StoresEachDistinctContentOnce() {
+        List<Prompt> versions = allVersions(TENANT, "prompt-3");
+
+        // 20 names with the same 50 texts share 50 compressed bodies
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM prompt_contents", Integer.class)).isEqualTo(50);
+        assertThat(versions.get(0).getContent()).isEqualTo("content 50");
+        assertThat(versions.get(49).getContent()).isEqualTo("content 1");
+    }
+
+    @Test
+    void findActiveTokenUsageAbove_FiltersOnStoredCounts() {
+        // "content 50" is estimated as "content" (two tokens), " " and "50"
+        List<PromptTokenUsage> usage = promptRepository.findActiveTokenUsageAbove(TENANT, "estimate", 3, Limit.of(5));
+
+        assertThat(usage).hasSize(5);
+        assertThat(usage).extracting(PromptTokenUsage::getTokens).containsOnly(4);
+        assertThat(usage).extracting(PromptTokenUsage::getVersion).containsOnly(50);
+        assertThat(usage.get(0).getCharacterCount()).isEqualTo(10);
+        assertThat(promptRepository.findActiveTokenUsageAbove(TENANT, "estimate", 4, Limit.of(5))).isEmpty();
+    }
+
+    @Test
+    void streamAllActive_FetchesTokenCountsWithoutDuplicatingRows() {
+        try (Stream<Prompt> active = promptRepository.streamAllActive(TENANT)) {
+            List<Prompt> prompts = active.toList();
+
+            assertThat(prompts).hasSize(20).doesNotHaveDuplicates();
+            assertThat(prompts).allSatisfy(prompt -> assertThat(prompt.getBody().getTokenCounts()).containsEntry("estimate", 4));
+        }
+    }
+
+    @Test
+    void findHashesMissingTokenCounts_FindsBodiesWithoutTheConfiguredCounts() {
+        assertThat(promptContentRepository.findHashesMissingTokenCounts(List.of("estimate"), 1)).isEmpty();
+        assertThat(promptContentRepository.findHashesMissingTokenCounts(List.of("estimate", "cl100k_base"), 2)).hasSize(50);
+    }
+
+    private void assertNoHistoryScan(String sql) {
+        assertThat(explain(sql)).doesNotContainIgnoringCase("prompts.tableScan");
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private List<Prompt> allVersions(String tenant, String name) {
+        return promptRepository.findByTenantAndNameAndVersionLessThanOrderByVersionDesc(
+                tenant, name, Integer.MAX_VALUE, Limit.unlimited());
+    }
+}
@@ -0,0 +1,72 @@
+package com.tahaky.promptmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BpeTokenizerTest {
+
+    private static BpeTokenizer tokenizer(String... tokens) throws IOException {
+        StringBuilder vocabulary = new StringBuilder();
+        for (int rank = 0; rank < tokens.length; rank++) {
+            vocabulary.append(Base64.getEncoder().encodeToString(tokens[rank].getBytes(StandardCharsets.UTF_8)))
+                    .append(' ').append(rank).append('\n');
+        }
+        return BpeTokenizer.load("test", new ByteArrayInputStream(vocabulary.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void count_MergesLowestRankFirst() throws IOException {
+        BpeTokenizer bpe = tokenizer("he", "ll", "hell", "hello", " w", "or", " wor", " world");
+
+        assertEquals(1, bpe.count("hello"));
+        // he + ll -> hell, x stays a single byte
+        assertEquals(2, bpe.count("hellx"));
+        // "hello" and " world" are separate pieces
+        assertEquals(2, bpe.count("hello world"));
+        // " w" + o, r -> " w" + "or" -> " wor", d stays a single byte
+        assertEquals(2, bpe.count(" word"));
+        assertEquals(0, bpe.count(""));
+    }
+
+    @Test
+    void count_SplitsTextIntoPiecesBeforeMerging() throws IOException {
+        BpeTokenizer bpe = tokenizer("ab");
+
+        // "ab" never merges across the piece boundary between letters and digits or punctuation
+        assertEquals(1, bpe.count("ab"));
+        assertEquals(3, bpe.count("a1b"));
+        assertEquals(4, bpe.count("ab, ab"));
+        // Digits are grouped in runs of at most three
+        assertEquals(4, bpe.count("1234"));
+    }
+
+    @Test
+    void count_CountsMultiByteCharactersPerByteWithoutVocabulary() throws IOException {
+        BpeTokenizer bpe = tokenizer("ğ");
+
+        assertEquals(1, bpe.count("ğ"));
+        assertEquals(2, bpe.count("ş"));
+    }
+
+    @Test
+    void count_LongPiecesAreCountedInSlices() throws IOException {
+        BpeTokenizer bpe = tokenizer("aa", "aaaa", "aaaaaaaa");
+
+        String run = "a".repeat(BpeTokenizer.MAX_PIECE_BYTES * 40);
+
+        assertEquals(run.length() / 8, bpe.count(run));
+    }
+
+    @Test
+    void load_InvalidVocabulary_ThrowsException() {
+        assertThrows(IOException.class, () -> BpeTokenizer.load("broken",
+                new ByteArrayInputStream("not-base64!\n".getBytes(StandardCharsets.US_ASCII))));
+        assertThrows(IOException.class, () -> BpeTokenizer.load("empty", new ByteArrayInputStream(new byte[0])));
+    }
+}
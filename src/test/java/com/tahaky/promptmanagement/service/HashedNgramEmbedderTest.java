@@ -0,0 +1,50 @@
+package com.tahaky.promptmanagement.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedNgramEmbedderTest {
+
+    private final HashedNgramEmbedder embedder = new HashedNgramEmbedder(256);
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Test
+    void embed_ReturnsDeterministicUnitVectors() {
+        float[] vector = embedder.embed("Summarize the following support ticket.");
+
+        assertEquals(256, vector.length);
+        assertEquals(1.0, dot(vector, vector), 1e-5);
+        assertArrayEquals(vector, embedder.embed("Summarize the following support ticket."));
+        assertArrayEquals(vector, embedder.embed("summarize  THE following support ticket!"));
+    }
+
+    @Test
+    void embed_TextWithoutWords_ReturnsZeroVector() {
+        assertEquals(0.0, dot(embedder.embed(" -- "), embedder.embed(" -- ")));
+        assertEquals(0.0, dot(embedder.embed(""), embedder.embed("")));
+    }
+
+    @Test
+    void embed_SimilarTextsAreCloserThanUnrelatedOnes() {
+        float[] original = embedder.embed("Summarize the following support ticket in three sentences.");
+        float[] edited = embedder.embed("Summarize the following support tickets in two sentences.");
+        float[] unrelated = embedder.embed("Translate questions into PostgreSQL queries.");
+
+        assertTrue(dot(original, edited) > 0.6);
+        assertTrue(dot(original, edited) > dot(original, unrelated) + 0.4);
+    }
+
+    @Test
+    void constructor_TooSmallDimension_ThrowsException() {
+        assertThrows(IllegalArgumentException.class, () -> new HashedNgramEmbedder(4));
+        assertEquals("hashed-ngram-64", new HashedNgramEmbedder(64).id());
+    }
+}
@@ -0,0 +1,106 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptChangeNotifierTest {
+
+    private static final String TENANT = "acme";
+
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private final BlockingQueue<String> delivered = new LinkedBlockingQueue<>();
+    private final List<SseEmitter> emitters = List.of(new BlockedEmitter(), new RecordingEmitter());
+    private int created;
+
+    private final PromptChangeNotifier notifier = new PromptChangeNotifier(Duration.ofMinutes(1), Duration.ofHours(1),
+            100, 2, 4) {
+        @Override
+        SseEmitter createEmitter(long timeoutMillis) {
+            return emitters.get(created++);
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        notifier.shutdown();
+    }
+
+    @Test
+    void onPromptChange_SlowSubscriberDoesNotDelayOthersAndIsDroppedWhenBehind() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        notifier.bindTo(registry);
+        notifier.subscribeToPrompt(TENANT, "refund-policy");
+        notifier.subscribeToPrompt(TENANT, "refund-policy");
+        assertEquals("subscribed", delivered.poll(5, TimeUnit.SECONDS));
+
+        // Every event reaches the reading subscriber while the other one's write is stuck
+        for (int version = 1; version <= 10; version++) {
+            notifier.onPromptChange(PromptChangeEvent.builder()
+                    .type(PromptChangeEvent.Type.UPDATED)
+                    .id((long) version)
+                    .tenant(TENANT)
+                    .name("refund-policy")
+                    .category("support")
+                    .version(version)
+                    .active(true)
+                    .build());
+            assertEquals("prompt-change", delivered.poll(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, notifier.getSubscriberCount());
+        assertEquals(1.0, registry.get("prompt.events.dropped").functionCounter().count());
+    }
+
+    @Test
+    void onPromptChange_CategoryChangeReachesPreviousCategory() throws Exception {
+        notifier.subscribeToPrompt(TENANT, "other-prompt");
+        notifier.subscribeToCategory(TENANT, "general");
+        assertEquals("subscribed", delivered.poll(5, TimeUnit.SECONDS));
+
+        notifier.onPromptChange(PromptChangeEvent.builder()
+                .type(PromptChangeEvent.Type.UPDATED)
+                .id(2L)
+                .tenant(TENANT)
+                .name("refund-policy")
+                .category("support")
+                .previousCategory("general")
+                .version(2)
+                .active(true)
+                .build());
+
+        assertEquals("prompt-change", delivered.poll(5, TimeUnit.SECONDS));
+    }
+
+    // A client that stopped reading: the write blocks until the socket times out
+    private class BlockedEmitter extends SseEmitter {
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                unblock.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+        @Override
+        public void send(SseEventBuilder builder) {
+            // The first line is either ":<comment>" or "event:<name>"
+            String line = builder.build().iterator().next().getData().toString().lines().findFirst().orElseThrow();
+            delivered.add(line.substring(line.indexOf(':') + 1).strip());
+        }
+    }
+}
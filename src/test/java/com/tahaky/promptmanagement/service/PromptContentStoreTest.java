@@ -0,0 +1,102 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.repository.PromptContentRepository;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a pool of a single connection, which the test transaction holds: storing a
+ * body that needed a connection of its own would time out instead of completing.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:content-store",
+        "spring.datasource.hikari.maximum-pool-size=1",
+        "spring.datasource.hikari.connection-timeout=250"
+})
+@Import({PromptContentStore.class, PromptTokenizers.class})
+class PromptContentStoreTest {
+
+    @Autowired
+    private PromptContentStore promptContentStore;
+
+    @Autowired
+    private PromptTokenizers promptTokenizers;
+
+    @Autowired
+    private PromptRepository promptRepository;
+
+    @Autowired
+    private PromptContentRepository promptContentRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void attach_StoresNewBodyInCallersTransaction() {
+        Prompt prompt = prompt("Hello", 1);
+
+        promptContentStore.attach(List.of(prompt));
+        promptRepository.saveAndFlush(prompt);
+        entityManager.clear();
+
+        PromptContent stored = promptContentRepository.findById(prompt.getBody().getHash()).orElseThrow();
+        assertEquals("Hello", stored.text());
+        assertEquals(5, stored.getCharacterCount());
+        assertEquals(promptTokenizers.count("Hello"), Map.copyOf(stored.getTokenCounts()));
+    }
+
+    @Test
+    void attach_ReusesStoredBody() {
+        Prompt first = prompt("Hello", 1);
+        promptContentStore.attach(List.of(first));
+        promptRepository.saveAndFlush(first);
+        entityManager.clear();
+        Prompt second = prompt("Hello", 2);
+        Prompt third = prompt("Hello", 3);
+
+        promptContentStore.attach(List.of(second, third));
+        promptRepository.saveAllAndFlush(List.of(second, third));
+
+        assertSame(second.getBody(), third.getBody());
+        assertEquals(first.getBody().getHash(), second.getBody().getHash());
+        assertEquals(1, promptContentRepository.count());
+    }
+
+    @Test
+    void insertIfAbsent_SkipsBodyStoredMeanwhile() {
+        PromptContent body = PromptContent.of("Hello", Map.of("chars", 5));
+        promptContentStore.insertIfAbsent(List.of(body));
+
+        // A concurrent write that read before the first insert stores the same text again
+        promptContentStore.insertIfAbsent(List.of(PromptContent.of("Hello", Map.of("chars", 5))));
+        entityManager.clear();
+
+        assertEquals(1, promptContentRepository.count());
+        assertEquals("Hello", promptContentRepository.findById(body.getHash()).orElseThrow().text());
+    }
+
+    private static Prompt prompt(String content, int version) {
+        return Prompt.builder()
+                .tenant("acme")
+                .name("greeting")
+                .content(content)
+                .category("test")
+                .version(version)
+                .build();
+    }
+}
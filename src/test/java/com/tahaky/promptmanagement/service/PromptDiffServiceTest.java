@@ -0,0 +1,177 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptDiffChunk;
+import com.tahaky.promptmanagement.dto.PromptDiffResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionDelta;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PromptDiffServiceTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private PromptRepository promptRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @InjectMocks
+    private PromptDiffService promptDiffService;
+
+    @Test
+    void diff_ReportsChangedLines() {
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 2))).thenReturn(List.of(
+                version(1, "You are helpful.\nBe polite.\nAnswer briefly.\n"),
+                version(2, "You are helpful.\nBe polite and kind.\nAnswer briefly.\nCite sources.\n")));
+
+        PromptDiffResponse response = promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.LINE);
+
+        assertEquals(2, response.getChunks().size());
+        PromptDiffChunk changed = response.getChunks().get(0);
+        assertEquals(PromptDiffChunk.Type.CHANGE, changed.getType());
+        assertEquals(1, changed.getSourcePosition());
+        assertEquals("Be polite.\n", changed.getSourceText());
+        assertEquals("Be polite and kind.\n", changed.getTargetText());
+        PromptDiffChunk inserted = response.getChunks().get(1);
+        assertEquals(PromptDiffChunk.Type.INSERT, inserted.getType());
+        assertEquals(3, inserted.getTargetPosition());
+        assertEquals("Cite sources.\n", inserted.getTargetText());
+    }
+
+    @Test
+    void diff_ByWord() {
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 2))).thenReturn(List.of(
+                version(1, "Be polite to customers"),
+                version(2, "Be kind to customers")));
+
+        PromptDiffResponse response = promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.WORD);
+
+        assertEquals(1, response.getChunks().size());
+        assertEquals("polite", response.getChunks().get(0).getSourceText());
+        assertEquals("kind", response.getChunks().get(0).getTargetText());
+    }
+
+    @Test
+    void diff_SharedBodyIsNotCompared() {
+        Prompt first = version(1, "Same content");
+        Prompt second = version(2, null);
+        second.setBody(first.getBody());
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 2))).thenReturn(List.of(first, second));
+
+        PromptDiffResponse response = promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.LINE);
+
+        assertTrue(response.getChunks().isEmpty());
+    }
+
+    @Test
+    void diff_VersionNotFound() {
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 9)))
+                .thenReturn(List.of(version(1, "Content")));
+
+        assertThrows(PromptNotFoundException.class, () -> {
+            promptDiffService.diff(TENANT, "test-prompt", 1, 9, PromptDiffResponse.Granularity.LINE);
+        });
+    }
+
+    @Test
+    void exportVersionDeltas_ReplaysToEveryVersion() {
+        List<String> contents = IntStream.rangeClosed(1, 30)
+                .mapToObj(v -> IntStream.range(0, 200)
+                        .mapToObj(line -> line % 40 == v % 40 ? "edited in " + v + "\n" : "line " + line + "\n")
+                        .collect(Collectors.joining()))
+                .toList();
+        List<Prompt> versions = IntStream.range(0, contents.size())
+                .mapToObj(i -> version(i + 1, contents.get(i)))
+                .toList();
+        when(promptRepository.streamWithBodyByNameOrderByVersion(TENANT, "test-prompt")).thenReturn(versions.stream());
+
+        List<PromptVersionDelta> deltas = new ArrayList<>();
+        promptDiffService.exportVersionDeltas(TENANT, "test-prompt", PromptDiffResponse.Granularity.LINE, deltas::add);
+
+        assertEquals(contents.get(0), deltas.get(0).getContent());
+        List<String> tokens = PromptDiffService.tokenize(deltas.get(0).getContent(), PromptDiffResponse.Granularity.LINE);
+        for (int i = 1; i < deltas.size(); i++) {
+            PromptVersionDelta delta = deltas.get(i);
+            assertNull(delta.getContent());
+            assertEquals(i, delta.getBaseVersion());
+            tokens = new ArrayList<>(tokens);
+            List<PromptVersionDelta.Edit> edits = delta.getEdits();
+            for (int e = edits.size() - 1; e >= 0; e--) {
+                PromptVersionDelta.Edit edit = edits.get(e);
+                tokens.subList(edit.getPosition(), edit.getPosition() + edit.getDeleted()).clear();
+                tokens.addAll(edit.getPosition(), PromptDiffService.tokenize(edit.getInserted(), PromptDiffResponse.Granularity.LINE));
+            }
+            assertEquals(contents.get(i), String.join("", tokens));
+        }
+    }
+
+    @Test
+    void exportVersionDeltas_UnknownPromptIsEmpty() {
+        when(promptRepository.streamWithBodyByNameOrderByVersion(TENANT, "missing")).thenReturn(Stream.empty());
+
+        List<PromptVersionDelta> deltas = new ArrayList<>();
+        promptDiffService.exportVersionDeltas(TENANT, "missing", PromptDiffResponse.Granularity.LINE, deltas::add);
+
+        assertTrue(deltas.isEmpty());
+    }
+
+    @Test
+    void diff_LargePromptWithLocalEdit() {
+        String base = "word ".repeat(40_000);
+        String edited = base.substring(0, 100_000) + "changed " + base.substring(100_000);
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 2)))
+                .thenReturn(List.of(version(1, base), version(2, edited)));
+
+        PromptDiffResponse response = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.WORD));
+
+        assertEquals(1, response.getChunks().size());
+        assertEquals(PromptDiffChunk.Type.INSERT, response.getChunks().get(0).getType());
+    }
+
+    @Test
+    void diff_RewrittenLargePromptFallsBackToSingleChange() {
+        String before = IntStream.range(0, 20_000).mapToObj(i -> "old line " + i + "\n").collect(Collectors.joining());
+        String after = IntStream.range(0, 20_000).mapToObj(i -> "new line " + i + "\n").collect(Collectors.joining());
+        when(promptRepository.findWithBodyByNameAndVersionIn(TENANT, "test-prompt", List.of(1, 2)))
+                .thenReturn(List.of(version(1, before), version(2, after)));
+
+        PromptDiffResponse response = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> promptDiffService.diff(TENANT, "test-prompt", 1, 2, PromptDiffResponse.Granularity.LINE));
+
+        assertEquals(1, response.getChunks().size());
+        assertEquals(before, response.getChunks().get(0).getSourceText());
+        assertEquals(after, response.getChunks().get(0).getTargetText());
+    }
+
+    private static Prompt version(int version, String content) {
+        return Prompt.builder()
+                .id((long) version)
+                .name("test-prompt")
+                .content(content)
+                .body(content != null ? PromptContent.of(content) : null)
+                .category("test")
+                .version(version)
+                .build();
+    }
+}
@@ -0,0 +1,287 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.PromptImportItem;
+import com.tahaky.promptmanagement.dto.PromptImportResponse;
+import com.tahaky.promptmanagement.dto.PromptImportResult;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PromptImportServiceTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private PromptRepository promptRepository;
+
+    @Mock
+    private PromptCurrentRepository promptCurrentRepository;
+
+    @Mock
+    private PromptContentStore promptContentStore;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private PromptImportService promptImportService;
+
+    private final AtomicLong ids = new AtomicLong(100);
+
+    @BeforeEach
+    void setUp() {
+        promptImportService = new PromptImportService(promptRepository,
+                promptCurrentRepository,
+                promptContentStore,
+                new ActivePromptCache(100, Duration.ofMinutes(1)),
+                eventPublisher,
+                transactionTemplate,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                2);
+
+        lenient().doAnswer(invocation -> {
+            Consumer<Object> callback = invocation.getArgument(0);
+            callback.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(promptRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Prompt> prompts = invocation.getArgument(0);
+            prompts.forEach(prompt -> prompt.setId(ids.incrementAndGet()));
+            return prompts;
+        });
+    }
+
+    @Test
+    void importPrompts_CreatesUpdatesAndReportsPerItem() {
+        Prompt existing = Prompt.builder()
+                .id(1L)
+                .tenant(TENANT)
+                .name("existing")
+                .content("Old content")
+                .category("test")
+                .version(3)
+                .active(true)
+                .build();
+        PromptCurrent current = PromptCurrent.of(existing);
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection()))
+                .thenReturn(List.of(current))
+                .thenReturn(List.of());
+        when(promptRepository.findLatestVersionsByNameIn(eq(TENANT), anyCollection()))
+                .thenReturn(List.of(latestVersion("existing", 3)))
+                .thenReturn(List.of());
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(PromptImportItem.Operation.UPSERT, "existing", "New content", null),
+                item(PromptImportItem.Operation.CREATE, "fresh", "Fresh content", "test"),
+                item(PromptImportItem.Operation.UPDATE, "missing", "Content", null)));
+
+        assertEquals(3, response.getTotal());
+        assertEquals(1, response.getCreated());
+        assertEquals(1, response.getUpdated());
+        assertEquals(1, response.getFailed());
+
+        PromptImportResult updated = response.getResults().get(0);
+        assertEquals(PromptImportResult.Status.UPDATED, updated.getStatus());
+        assertEquals(4, updated.getVersion());
+        assertFalse(existing.getActive());
+        // Activating "fresh" afterwards moves only its own pointer, "existing" stays active
+        verify(promptCurrentRepository, never()).deleteAll(List.of(current));
+        assertEquals(PromptImportResult.Status.CREATED, response.getResults().get(1).getStatus());
+        assertEquals(1, response.getResults().get(1).getVersion());
+        assertEquals(PromptImportResult.Status.FAILED, response.getResults().get(2).getStatus());
+        assertEquals(2, response.getResults().get(2).getIndex());
+
+        // Two chunks of at most two items, each written with one saveAll
+        verify(transactionTemplate, times(2)).executeWithoutResult(any());
+        verify(promptRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void importPrompts_SkipsUnchangedContent() {
+        Prompt existing = Prompt.builder()
+                .id(1L)
+                .tenant(TENANT)
+                .name("existing")
+                .content("Same content")
+                .category("test")
+                .version(2)
+                .active(true)
+                .build();
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection())).thenReturn(List.of(PromptCurrent.of(existing)));
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(null, "existing", "Same content", "test")));
+
+        assertEquals(1, response.getUnchanged());
+        assertEquals(2, response.getResults().get(0).getVersion());
+        assertTrue(existing.getActive());
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void importPrompts_AssignsConsecutiveVersionsWithinChunk() {
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection())).thenReturn(List.of());
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(PromptImportItem.Operation.CREATE, "fresh", "First", "test"),
+                item(PromptImportItem.Operation.UPDATE, "fresh", "Second", null)));
+
+        assertEquals(1, response.getResults().get(0).getVersion());
+        assertEquals(2, response.getResults().get(1).getVersion());
+        assertEquals(PromptImportResult.Status.UPDATED, response.getResults().get(1).getStatus());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Prompt>> saved = ArgumentCaptor.forClass(List.class);
+        verify(promptRepository).saveAll(saved.capture());
+        assertFalse(saved.getValue().get(0).getActive());
+        assertTrue(saved.getValue().get(1).getActive());
+        assertTrue(saved.getValue().stream().allMatch(prompt -> TENANT.equals(prompt.getTenant())));
+    }
+
+    @Test
+    void importPrompts_ReportsValidationErrors() {
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(PromptImportItem.Operation.CREATE, "", "Content", "test"),
+                item(PromptImportItem.Operation.CREATE, "no-category", "Content", null)));
+
+        assertEquals(2, response.getFailed());
+        assertEquals("Name is required", response.getResults().get(0).getMessage());
+        assertEquals("Category is required to create a prompt", response.getResults().get(1).getMessage());
+    }
+
+    @Test
+    void importPrompts_ReportsNullItemsAndImportsTheRest() {
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection())).thenReturn(List.of());
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                null,
+                item(PromptImportItem.Operation.CREATE, "a", "Content", "test"),
+                null));
+
+        assertEquals(3, response.getTotal());
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getFailed());
+        PromptImportResult empty = response.getResults().get(0);
+        assertEquals(PromptImportResult.Status.FAILED, empty.getStatus());
+        assertEquals(0, empty.getIndex());
+        assertNull(empty.getName());
+        assertEquals("Import item is empty", empty.getMessage());
+        assertEquals(PromptImportResult.Status.CREATED, response.getResults().get(1).getStatus());
+        assertEquals(2, response.getResults().get(2).getIndex());
+    }
+
+    @Test
+    void importPrompts_RollbackReportsNullItems() {
+        // Fails before any item of the chunk has a result
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection()))
+                .thenThrow(new QueryTimeoutException("timeout"));
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(PromptImportItem.Operation.CREATE, "a", "Content", "test"),
+                null));
+
+        assertEquals(2, response.getFailed());
+        assertEquals("a", response.getResults().get(0).getName());
+        assertNull(response.getResults().get(1).getName());
+        assertTrue(response.getResults().get(1).getMessage().startsWith("Chunk rolled back"));
+    }
+
+    @Test
+    void importPrompts_FailsWholeChunkWhenWriteFails() {
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection())).thenReturn(List.of());
+        when(promptRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, iterator(
+                item(PromptImportItem.Operation.CREATE, "a", "Content", "test"),
+                item(PromptImportItem.Operation.CREATE, "b", "Content", "test")));
+
+        assertEquals(2, response.getFailed());
+        assertTrue(response.getResults().get(0).getMessage().startsWith("Chunk rolled back"));
+    }
+
+    @Test
+    void importPrompts_StopsAtMalformedItem() {
+        when(promptCurrentRepository.findWithPromptByTenantAndNameIn(eq(TENANT), anyCollection())).thenReturn(List.of());
+        List<PromptImportItem> items = new ArrayList<>(List.of(item(PromptImportItem.Operation.CREATE, "a", "Content", "test")));
+        Iterator<PromptImportItem> delegate = items.iterator();
+        Iterator<PromptImportItem> broken = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public PromptImportItem next() {
+                if (delegate.hasNext()) {
+                    return delegate.next();
+                }
+                throw new IllegalStateException("Unexpected character");
+            }
+        };
+
+        PromptImportResponse response = promptImportService.importPrompts(TENANT, broken);
+
+        assertEquals(2, response.getTotal());
+        assertEquals(PromptImportResult.Status.CREATED, response.getResults().get(0).getStatus());
+        assertEquals(PromptImportResult.Status.FAILED, response.getResults().get(1).getStatus());
+    }
+
+    private static PromptImportItem item(PromptImportItem.Operation operation, String name, String content, String category) {
+        return PromptImportItem.builder()
+                .operation(operation)
+                .name(name)
+                .content(content)
+                .category(category)
+                .build();
+    }
+
+    private static PromptRepository.NameVersion latestVersion(String name, int version) {
+        return new PromptRepository.NameVersion() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public Integer getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static Iterator<PromptImportItem> iterator(PromptImportItem... items) {
+        // Arrays.asList keeps null items, which a JSON null line or array element parses to
+        return Arrays.asList(items).iterator();
+    }
+}
@@ -0,0 +1,151 @@
+package com.tahaky.promptmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tahaky.promptmanagement.dto.PromptRenderResponse;
+import com.tahaky.promptmanagement.dto.PromptRenderResult;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PromptRenderServiceTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private PromptService promptService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private PromptTemplateCache promptTemplateCache;
+    private PromptRenderService promptRenderService;
+
+    @BeforeEach
+    void setUp() {
+        promptTemplateCache = new PromptTemplateCache(100);
+        promptRenderService = new PromptRenderService(promptService, promptTemplateCache, objectMapper, 3);
+    }
+
+    @AfterEach
+    void tearDown() {
+        promptRenderService.shutdown();
+    }
+
+    private List<PromptRenderResult> renderBatch(PromptResponse prompt, String input) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        promptRenderService.renderBatch(prompt, new StringReader(input), out);
+        return out.toString(StandardCharsets.UTF_8).lines()
+                .map(line -> {
+                    try {
+                        return objectMapper.readValue(line, PromptRenderResult.class);
+                    } catch (Exception ex) {
+                        throw new IllegalStateException(ex);
+                    }
+                })
+                .toList();
+    }
+
+    private static PromptResponse prompt(long id, int version, String content) {
+        return PromptResponse.builder()
+                .id(id)
+                .name("greeting")
+                .content(content)
+                .version(version)
+                .active(true)
+                .build();
+    }
+
+    @Test
+    void render_CompilesEachVersionOnce() {
+        when(promptService.getCurrentPromptForAI(TENANT, "greeting")).thenReturn(prompt(1L, 1, "Hi {{name}}"));
+
+        PromptRenderResponse first = promptRenderService.render(TENANT, "greeting", Map.of("name", "Ada"));
+        PromptRenderResponse second = promptRenderService.render(TENANT, "greeting", Map.of("name", "Linus"));
+
+        assertEquals("Hi Ada", first.getContent());
+        assertEquals("Hi Linus", second.getContent());
+        assertEquals(1, first.getVersion());
+        assertEquals(1, promptTemplateCache.size());
+    }
+
+    @Test
+    void render_NewVersion_UsesItsOwnTemplate() {
+        when(promptService.getCurrentPromptForAI(TENANT, "greeting"))
+                .thenReturn(prompt(1L, 1, "Hi {{name}}"))
+                .thenReturn(prompt(2L, 2, "Hello {{name}}"));
+
+        promptRenderService.render(TENANT, "greeting", Map.of("name", "Ada"));
+        PromptRenderResponse response = promptRenderService.render(TENANT, "greeting", Map.of("name", "Ada"));
+
+        assertEquals("Hello Ada", response.getContent());
+        assertEquals(2L, response.getId());
+        assertEquals(2, promptTemplateCache.size());
+    }
+
+    @Test
+    void render_PromptNotFound_ThrowsException() {
+        when(promptService.getCurrentPromptForAI(TENANT, "missing"))
+                .thenThrow(new PromptNotFoundException("Prompt with name 'missing' not found"));
+
+        assertThrows(PromptNotFoundException.class, () -> promptRenderService.render(TENANT, "missing", Map.of()));
+    }
+
+    @Test
+    void renderBatch_PreservesInputOrderAcrossChunks() throws Exception {
+        int count = PromptRenderService.BATCH_CHUNK_SIZE * 20 + 7;
+        String input = IntStream.range(0, count)
+                .mapToObj(i -> "{\"variables\":{\"name\":\"user-" + i + "\"}}")
+                .collect(Collectors.joining("\n", "", "\n"));
+
+        List<PromptRenderResult> results = renderBatch(prompt(1L, 1, "Hi {{name}}"), input);
+
+        assertEquals(count, results.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals("Hi user-" + i, results.get(i).getContent());
+        }
+    }
+
+    @Test
+    void renderBatch_ReportsInvalidLinesAndContinues() throws Exception {
+        String input = """
+                {"variables":{"name":"Ada"}}
+
+                {"variables":{}}
+                not json
+                {}
+                {"variables":{"name":"Linus"}}
+                """;
+
+        List<PromptRenderResult> results = renderBatch(prompt(1L, 1, "Hi {{name}}"), input);
+
+        assertEquals(5, results.size());
+        assertEquals("Hi Ada", results.get(0).getContent());
+        assertEquals("Missing variables: name", results.get(1).getMessage());
+        assertTrue(results.get(2).getMessage().startsWith("Malformed variable set"));
+        assertEquals("Variables are required", results.get(3).getMessage());
+        assertEquals(4, results.get(4).getIndex());
+        assertEquals("Hi Linus", results.get(4).getContent());
+    }
+
+    @Test
+    void renderBatch_EmptyInput_WritesNothing() throws Exception {
+        assertEquals(List.of(), renderBatch(prompt(1L, 1, "Hi {{name}}"), ""));
+    }
+}
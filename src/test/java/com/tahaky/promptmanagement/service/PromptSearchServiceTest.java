@@ -0,0 +1,257 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptSearchHit;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PromptSearchServiceTest {
+
+    private static final String TENANT = "acme";
+    private static final String OTHER_TENANT = "globex";
+
+    @Mock
+    private PromptRepository promptRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PromptService promptService;
+
+    private PromptSearchIndex promptSearchIndex;
+    private PromptSearchService promptSearchService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        List<Prompt> prompts = List.of(
+                prompt(1L, "refund-policy", "support", 1, "Explain the refund policy and ask for the order number."),
+                prompt(2L, "refund-policy", "support", 2, "Explain the refund policy politely and ask for the order number."),
+                prompt(3L, "tone-of-voice", "style", 1, "Answer in a friendly tone. Mention the refund policy only when asked."),
+                prompt(4L, "sql-assistant", "engineering", 1, "Translate questions into PostgreSQL queries."),
+                prompt(5L, OTHER_TENANT, "refund-policy", "support", 1, "Refunds of other tenants are never mentioned here."));
+        when(promptRepository.streamWithBodyByIdGreaterThanOrderById(0L)).thenAnswer(invocation -> prompts.stream());
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(
+                new PromptVersionInfo(2L, TENANT, "refund-policy", 2),
+                new PromptVersionInfo(3L, TENANT, "tone-of-voice", 1),
+                new PromptVersionInfo(4L, TENANT, "sql-assistant", 1),
+                new PromptVersionInfo(5L, OTHER_TENANT, "refund-policy", 1)));
+
+        promptSearchIndex = new PromptSearchIndex(promptRepository, entityManager, transactionManager,
+                new HashedNgramEmbedder(256), "", Duration.ofSeconds(30));
+        promptSearchIndex.run(null);
+        promptSearchService = new PromptSearchService(promptSearchIndex, promptService);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        promptSearchIndex.shutdown();
+    }
+
+    private static Prompt prompt(long id, String name, String category, int version, String content) {
+        return prompt(id, TENANT, name, category, version, content);
+    }
+
+    private static Prompt prompt(long id, String tenant, String name, String category, int version, String content) {
+        return Prompt.builder()
+                .id(id)
+                .tenant(tenant)
+                .name(name)
+                .category(category)
+                .version(version)
+                .content(content)
+                .active(true)
+                .build();
+    }
+
+    private List<PromptSearchHit> search(String query, boolean activeOnly, boolean fuzzy) {
+        return promptSearchService.search(TENANT, query, activeOnly, fuzzy, null, 20).getItems();
+    }
+
+    private static List<Long> ids(List<PromptSearchHit> hits) {
+        return hits.stream().map(PromptSearchHit::getId).toList();
+    }
+
+    @Test
+    void search_RanksNameMatchesFirstAndReportsActiveVersions() {
+        List<PromptSearchHit> hits = search("refund", false, false);
+
+        assertEquals(3, hits.size());
+        assertEquals("tone-of-voice", hits.get(2).getName());
+        assertEquals(List.of(1L, 2L), ids(hits.subList(0, 2)).stream().sorted().toList());
+        assertFalse(hits.stream().filter(hit -> hit.getId() == 1L).findFirst().orElseThrow().isActive());
+        assertTrue(hits.stream().filter(hit -> hit.getId() == 2L).findFirst().orElseThrow().isActive());
+    }
+
+    @Test
+    void search_SupportsPhrasesAndPrefixes() {
+        assertEquals(List.of(2L), ids(search("\"policy politely\"", false, false)));
+        assertEquals(List.of(4L), ids(search("postgre*", false, false)));
+        assertEquals(List.of(), ids(search("refund postgresql", false, false)));
+    }
+
+    @Test
+    void search_FuzzyMatchesMisspelledTerms() {
+        assertEquals(List.of(), search("polcy", false, false));
+        assertEquals(3, search("polcy", false, true).size());
+        assertEquals(List.of(4L), ids(search("postgrsql", true, true)));
+    }
+
+    @Test
+    void search_ActiveOnly_FollowsIncrementalChanges() throws Exception {
+        when(promptRepository.findWithBodyByIdIn(anyCollection())).thenReturn(List.of(
+                prompt(6L, "refund-policy", "support", 3, "Refunds are handled by the billing team.")));
+
+        promptSearchIndex.onPromptChange(event(PromptChangeEvent.Type.UPDATED, 6L, "refund-policy", true));
+        promptSearchIndex.onPromptChange(event(PromptChangeEvent.Type.DEACTIVATED, 3L, "tone-of-voice", false));
+        promptSearchIndex.awaitIndexing();
+
+        assertEquals(List.of(6L), ids(search("billing", false, false)));
+        assertEquals(List.of(6L), ids(search("refund*", true, false)));
+        assertEquals(4, search("refund*", false, false).size());
+    }
+
+    @Test
+    void search_IndexesVersionsCommittedOutOfIdOrder() throws Exception {
+        when(promptRepository.findWithBodyByIdIn(List.of(8L))).thenReturn(List.of(
+                prompt(8L, "shipping-policy", "support", 1, "Parcels ship within two days.")));
+        when(promptRepository.findWithBodyByIdIn(List.of(7L))).thenReturn(List.of(
+                prompt(7L, "returns-policy", "support", 1, "Parcels can be returned within thirty days.")));
+
+        // Id 7 was assigned first but its transaction committed after the one of id 8
+        promptSearchIndex.onPromptChange(event(PromptChangeEvent.Type.CREATED, 8L, "shipping-policy", true));
+        promptSearchIndex.awaitIndexing();
+        promptSearchIndex.onPromptChange(event(PromptChangeEvent.Type.CREATED, 7L, "returns-policy", true));
+        promptSearchIndex.awaitIndexing();
+
+        assertEquals(List.of(7L, 8L), ids(search("parcels", true, false)).stream().sorted().toList());
+    }
+
+    @Test
+    void catchUp_FillsVersionsMissingBelowTheCommittedMaximum(@TempDir Path indexDir) throws Exception {
+        when(promptRepository.findWithBodyByIdIn(List.of(8L))).thenReturn(List.of(
+                prompt(8L, "shipping-policy", "support", 1, "Parcels ship within two days.")));
+        PromptSearchIndex persistentIndex = new PromptSearchIndex(promptRepository, entityManager, transactionManager,
+                new HashedNgramEmbedder(256), indexDir.toString(), Duration.ofSeconds(30));
+        persistentIndex.run(null);
+        // Id 7 is still uncommitted when id 8 is indexed and the index is committed at shutdown
+        persistentIndex.onPromptChange(event(PromptChangeEvent.Type.CREATED, 8L, "shipping-policy", true));
+        persistentIndex.shutdown();
+
+        when(promptRepository.streamWithBodyByIdGreaterThanOrderById(8L)).thenReturn(Stream.empty());
+        when(promptRepository.findIdsByIdLessThanEqualOrderById(8L)).thenReturn(List.of(1L, 2L, 3L, 4L, 5L, 7L, 8L));
+        when(promptRepository.findWithBodyByIdIn(List.of(7L))).thenReturn(List.of(
+                prompt(7L, "returns-policy", "support", 1, "Parcels can be returned within thirty days.")));
+        PromptSearchIndex restartedIndex = new PromptSearchIndex(promptRepository, entityManager, transactionManager,
+                new HashedNgramEmbedder(256), indexDir.toString(), Duration.ofSeconds(30));
+        try {
+            restartedIndex.run(null);
+
+            List<PromptSearchHit> hits = new PromptSearchService(restartedIndex, promptService)
+                    .search(TENANT, "parcels", false, false, null, 20).getItems();
+            assertEquals(List.of(7L, 8L), ids(hits).stream().sorted().toList());
+        } finally {
+            restartedIndex.shutdown();
+        }
+    }
+
+    @Test
+    void search_IsScopedToTenant() {
+        assertEquals(List.of(5L), ids(promptSearchService.search(OTHER_TENANT, "refund*", false, false, null, 20).getItems()));
+        assertEquals(List.of(), search("tenants", false, false));
+        assertEquals(List.of(), promptSearchService.search("unknown", "refund", false, false, null, 20).getItems());
+    }
+
+    @Test
+    void search_PagesThroughHits() {
+        CursorPage<PromptSearchHit> first = promptSearchService.search(TENANT, "the", false, false, null, 2);
+        CursorPage<PromptSearchHit> second = promptSearchService.search(TENANT, "the", false, false, first.getNextCursor(), 2);
+
+        assertTrue(first.isHasMore());
+        assertEquals(2, first.getItems().size());
+        assertFalse(second.isHasMore());
+        assertNull(second.getNextCursor());
+        assertEquals(1, second.getItems().size());
+        assertTrue(Stream.concat(first.getItems().stream(), second.getItems().stream())
+                .map(PromptSearchHit::getId).distinct().count() == 3);
+    }
+
+    @Test
+    void search_InvalidRequests_ThrowException() {
+        assertThrows(InvalidPromptRequestException.class, () -> promptSearchService.search(TENANT, " ", false, false, null, 20));
+        assertThrows(InvalidPromptRequestException.class, () -> promptSearchService.search(TENANT, "refund", false, false, null, 101));
+        assertThrows(InvalidPromptRequestException.class, () -> promptSearchService.search(TENANT, "refund", false, false, "%%%", 20));
+    }
+
+    @Test
+    void similar_RanksNearDuplicatesFirst() {
+        when(promptService.getPromptByName(TENANT, "refund-copy")).thenReturn(PromptResponse.builder()
+                .name("refund-copy")
+                .content("Explain our refund policy politely and ask for the order number.")
+                .build());
+
+        List<PromptSearchHit> hits = promptSearchService.similar(TENANT, "refund-copy", 10, false, 0);
+
+        assertEquals(List.of(1L, 2L), ids(hits.subList(0, 2)).stream().sorted().toList());
+        assertTrue(hits.get(0).getScore() > 0.8f);
+        assertTrue(hits.get(0).getScore() >= hits.get(hits.size() - 1).getScore());
+    }
+
+    @Test
+    void similar_ExcludesThePromptItselfAndAppliesFilters() {
+        when(promptService.getPromptByName(TENANT, "refund-policy")).thenReturn(PromptResponse.builder()
+                .name("refund-policy")
+                .content("Explain the refund policy politely and ask for the order number.")
+                .build());
+
+        List<PromptSearchHit> hits = promptSearchService.similar(TENANT, "refund-policy", 10, true, 0);
+
+        assertFalse(hits.isEmpty());
+        assertEquals(3L, hits.get(0).getId());
+        assertTrue(hits.stream().noneMatch(hit -> hit.getName().equals("refund-policy")));
+        assertTrue(hits.stream().allMatch(PromptSearchHit::isActive));
+        assertEquals(List.of(), promptSearchService.similar(TENANT, "refund-policy", 10, true, 0.99));
+    }
+
+    @Test
+    void similar_InvalidRequests_ThrowException() {
+        assertThrows(InvalidPromptRequestException.class, () -> promptSearchService.similar(TENANT, "refund-policy", 0, false, 0));
+        assertThrows(InvalidPromptRequestException.class, () -> promptSearchService.similar(TENANT, "refund-policy", 10, false, 1.5));
+    }
+
+    private static PromptChangeEvent event(PromptChangeEvent.Type type, long id, String name, boolean active) {
+        return PromptChangeEvent.builder()
+                .type(type)
+                .id(id)
+                .tenant(TENANT)
+                .name(name)
+                .active(active)
+                .build();
+    }
+}
@@ -1,25 +1,54 @@
 package com.tahaky.promptmanagement.service;
 
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.CursorPage;
+import com.tahaky.promptmanagement.dto.PromptChangeEvent;
+import com.tahaky.promptmanagement.dto.PromptLookupResult;
 import com.tahaky.promptmanagement.dto.PromptRequest;
 import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptSummary;
+import com.tahaky.promptmanagement.dto.PromptTokenUsage;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
 import com.tahaky.promptmanagement.dto.UpdatePromptRequest;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
 import com.tahaky.promptmanagement.exception.PromptAlreadyExistsException;
 import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.exception.PromptPreconditionFailedException;
+import com.tahaky.promptmanagement.exception.PromptUpdateConflictException;
 import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.model.PromptContent;
+import com.tahaky.promptmanagement.model.PromptCurrent;
+import com.tahaky.promptmanagement.repository.PromptCurrentRepository;
 import com.tahaky.promptmanagement.repository.PromptRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -27,9 +56,29 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class PromptServiceTest {
 
+    private static final String TENANT = "acme";
+
     @Mock
     private PromptRepository promptRepository;
 
+    @Mock
+    private PromptCurrentRepository promptCurrentRepository;
+
+    @Mock
+    private PromptContentStore promptContentStore;
+
+    @Mock
+    private PromptTokenizers promptTokenizers;
+
+    @Spy
+    private ActivePromptCache activePromptCache = new ActivePromptCache(100, Duration.ofMinutes(1));
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
     @InjectMocks
     private PromptService promptService;
 
@@ -38,8 +87,14 @@ class PromptServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+
         testPrompt = Prompt.builder()
                 .id(1L)
+                .tenant(TENANT)
                 .name("test-prompt")
                 .content("Test content")
                 .category("test")
@@ -59,23 +114,24 @@ class PromptServiceTest {
 
     @Test
     void createPrompt_Success() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.empty());
+        when(promptCurrentRepository.existsById(new PromptCurrent.Key(TENANT, "test-prompt"))).thenReturn(false);
         when(promptRepository.save(any(Prompt.class))).thenReturn(testPrompt);
 
-        PromptResponse response = promptService.createPrompt(testRequest);
+        PromptResponse response = promptService.createPrompt(TENANT, testRequest);
 
         assertNotNull(response);
         assertEquals("test-prompt", response.getName());
         assertEquals("Test content", response.getContent());
         verify(promptRepository, times(1)).save(any(Prompt.class));
+        verify(promptCurrentRepository).save(any(PromptCurrent.class));
     }
 
     @Test
     void createPrompt_AlreadyExists() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.of(testPrompt));
+        when(promptCurrentRepository.existsById(new PromptCurrent.Key(TENANT, "test-prompt"))).thenReturn(true);
 
         assertThrows(PromptAlreadyExistsException.class, () -> {
-            promptService.createPrompt(testRequest);
+            promptService.createPrompt(TENANT, testRequest);
         });
 
         verify(promptRepository, never()).save(any(Prompt.class));
@@ -87,10 +143,12 @@ class PromptServiceTest {
                 .content("Updated content")
                 .build();
 
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.of(testPrompt));
+        PromptCurrent current = PromptCurrent.of(testPrompt);
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(current));
         
         Prompt updatedPrompt = Prompt.builder()
                 .id(2L)
+                .tenant(TENANT)
                 .name("test-prompt")
                 .content("Updated content")
                 .category("test")
@@ -102,117 +160,603 @@ class PromptServiceTest {
         
         when(promptRepository.save(any(Prompt.class))).thenReturn(updatedPrompt);
 
-        PromptResponse response = promptService.updatePrompt("test-prompt", updateRequest);
+        PromptResponse response = promptService.updatePrompt(TENANT, "test-prompt", updateRequest);
 
         assertNotNull(response);
         assertEquals(2, response.getVersion());
         assertEquals("Updated content", response.getContent());
-        verify(promptRepository, times(2)).save(any(Prompt.class));
+        verify(promptRepository).save(any(Prompt.class));
+        assertSame(updatedPrompt, current.getPrompt());
+        verify(promptCurrentRepository, never()).delete(any(PromptCurrent.class));
     }
 
     @Test
     void getPromptByName_Success() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.of(testPrompt));
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
 
-        PromptResponse response = promptService.getPromptByName("test-prompt");
+        PromptResponse response = promptService.getPromptByName(TENANT, "test-prompt");
 
         assertNotNull(response);
         assertEquals("test-prompt", response.getName());
-        verify(promptRepository, times(1)).findByNameAndActive(anyString(), any());
+        verify(promptRepository, times(1)).findActiveByName(eq(TENANT), anyString());
     }
 
     @Test
     void getPromptByName_NotFound() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.empty());
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.empty());
 
         assertThrows(PromptNotFoundException.class, () -> {
-            promptService.getPromptByName("non-existent");
+            promptService.getPromptByName(TENANT, "non-existent");
         });
     }
 
     @Test
-    void getAllActivePrompts_Success() {
-        when(promptRepository.findByActive(true)).thenReturn(List.of(testPrompt));
+    void listActivePrompts_WithoutLimitReturnsSinglePage() {
+        when(promptRepository.findActiveByIdGreaterThan(TENANT, 0L, Limit.unlimited())).thenReturn(List.of(testPrompt));
 
-        List<PromptResponse> responses = promptService.getAllActivePrompts();
+        CursorPage<PromptResponse> page = promptService.listActivePrompts(TENANT, null, null);
 
-        assertNotNull(responses);
-        assertEquals(1, responses.size());
-        verify(promptRepository, times(1)).findByActive(true);
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        verify(promptRepository, times(1)).findActiveByIdGreaterThan(TENANT, 0L, Limit.unlimited());
     }
 
     @Test
-    void getPromptsByCategory_Success() {
-        when(promptRepository.findByCategoryAndActive(anyString(), any())).thenReturn(List.of(testPrompt));
+    void listPromptsByCategory_WithoutLimitReturnsSinglePage() {
+        when(promptRepository.findActiveByCategoryAndIdGreaterThan(eq(TENANT), anyString(), eq(0L), eq(Limit.unlimited())))
+                .thenReturn(List.of(testPrompt));
 
-        List<PromptResponse> responses = promptService.getPromptsByCategory("test");
+        CursorPage<PromptResponse> page = promptService.listPromptsByCategory(TENANT, "test", null, null);
 
-        assertNotNull(responses);
-        assertEquals(1, responses.size());
-        verify(promptRepository, times(1)).findByCategoryAndActive(anyString(), any());
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        verify(promptRepository, times(1)).findActiveByCategoryAndIdGreaterThan(eq(TENANT), anyString(), eq(0L), eq(Limit.unlimited()));
     }
 
     @Test
     void deletePrompt_Success() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.of(testPrompt));
-        when(promptRepository.save(any(Prompt.class))).thenReturn(testPrompt);
+        PromptCurrent current = PromptCurrent.of(testPrompt);
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(current));
 
-        assertDoesNotThrow(() -> promptService.deletePrompt("test-prompt"));
+        assertDoesNotThrow(() -> promptService.deletePrompt(TENANT, "test-prompt"));
 
-        verify(promptRepository, times(1)).save(any(Prompt.class));
+        verify(promptCurrentRepository, times(1)).delete(current);
+        verify(promptRepository, never()).save(any(Prompt.class));
     }
 
     @Test
     void getActivePrompt_Success() {
-        when(promptRepository.findFirstByActive(true)).thenReturn(Optional.of(testPrompt));
+        when(promptCurrentRepository.findFirstWithPromptByTenantOrderByUpdatedAtDesc(TENANT)).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
 
-        PromptResponse response = promptService.getActivePrompt();
+        PromptResponse response = promptService.getActivePrompt(TENANT, null);
 
         assertNotNull(response);
         assertEquals("test-prompt", response.getName());
-        verify(promptRepository, times(1)).findFirstByActive(true);
+        verify(promptCurrentRepository, times(1)).findFirstWithPromptByTenantOrderByUpdatedAtDesc(TENANT);
+    }
+
+    @Test
+    void getActivePrompt_WithinCategory() {
+        when(promptCurrentRepository.findFirstWithPromptByTenantAndCategoryOrderByUpdatedAtDesc(TENANT, "test"))
+                .thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+
+        PromptResponse response = promptService.getActivePrompt(TENANT, "test");
+
+        assertEquals("test-prompt", response.getName());
+        verify(promptCurrentRepository, never()).findFirstWithPromptByTenantOrderByUpdatedAtDesc(TENANT);
     }
 
     @Test
     void getActivePrompt_NotFound() {
-        when(promptRepository.findFirstByActive(true)).thenReturn(Optional.empty());
+        when(promptCurrentRepository.findFirstWithPromptByTenantOrderByUpdatedAtDesc(TENANT)).thenReturn(Optional.empty());
 
         assertThrows(PromptNotFoundException.class, () -> {
-            promptService.getActivePrompt();
+            promptService.getActivePrompt(TENANT, null);
         });
     }
 
     @Test
-    void createPrompt_DeactivatesPreviousActivePrompt() {
-        Prompt otherActivePrompt = Prompt.builder()
-                .id(99L)
-                .name("other-prompt")
-                .content("Other content")
-                .category("other")
+    void createPrompt_LeavesOtherActivePromptsUntouched() {
+        when(promptCurrentRepository.existsById(new PromptCurrent.Key(TENANT, "test-prompt"))).thenReturn(false);
+        when(promptRepository.save(any(Prompt.class))).thenReturn(testPrompt);
+
+        promptService.createPrompt(TENANT, testRequest);
+
+        verify(promptCurrentRepository, never()).delete(any(PromptCurrent.class));
+        ArgumentCaptor<PromptChangeEvent> event = ArgumentCaptor.forClass(PromptChangeEvent.class);
+        verify(eventPublisher, times(1)).publishEvent(event.capture());
+        assertEquals(PromptChangeEvent.Type.CREATED, event.getValue().getType());
+    }
+
+    @Test
+    void getCurrentPromptForAI_Success() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+
+        PromptResponse response = promptService.getCurrentPromptForAI(TENANT, "test-prompt");
+
+        assertNotNull(response);
+        assertEquals("test-prompt", response.getName());
+        verify(promptRepository, times(1)).findActiveByName(eq(TENANT), anyString());
+    }
+
+    @Test
+    void getPromptByName_ServedFromCacheOnSecondRead() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+
+        // The tenant's cache only exists once its first prompt is cached, so start from there
+        promptService.getPromptByName(TENANT, "test-prompt");
+        activePromptCache.invalidate(TENANT, "test-prompt");
+
+        promptService.getPromptByName(TENANT, "test-prompt");
+        PromptResponse response = promptService.getPromptByName(TENANT, "test-prompt");
+
+        assertEquals("test-prompt", response.getName());
+        verify(promptRepository, times(2)).findActiveByName(eq(TENANT), anyString());
+        assertEquals(1, promptService.getCacheStats(TENANT).getHitCount());
+        assertEquals(1, promptService.getCacheStats(TENANT).getMissCount());
+    }
+
+    @Test
+    void getPromptByName_CachesEachTenantSeparately() {
+        Prompt otherTenantPrompt = Prompt.builder()
+                .id(9L)
+                .tenant("globex")
+                .name("test-prompt")
+                .content("Other tenant content")
+                .category("test")
                 .version(1)
                 .active(true)
+                .build();
+        when(promptRepository.findActiveByName(TENANT, "test-prompt")).thenReturn(Optional.of(testPrompt));
+        when(promptRepository.findActiveByName("globex", "test-prompt")).thenReturn(Optional.of(otherTenantPrompt));
+
+        assertEquals("Test content", promptService.getPromptByName(TENANT, "test-prompt").getContent());
+        assertEquals("Other tenant content", promptService.getPromptByName("globex", "test-prompt").getContent());
+        activePromptCache.invalidate(TENANT, "test-prompt");
+
+        assertNull(activePromptCache.getIfPresent(TENANT, "test-prompt"));
+        assertEquals("globex", activePromptCache.getIfPresent("globex", "test-prompt").getTenant());
+    }
+
+    @Test
+    void createPrompt_AssignsTenant() {
+        when(promptRepository.save(any(Prompt.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        promptService.createPrompt("globex", testRequest);
+
+        ArgumentCaptor<Prompt> saved = ArgumentCaptor.forClass(Prompt.class);
+        verify(promptRepository).save(saved.capture());
+        assertEquals("globex", saved.getValue().getTenant());
+        verify(promptCurrentRepository).existsById(new PromptCurrent.Key("globex", "test-prompt"));
+        ArgumentCaptor<PromptChangeEvent> event = ArgumentCaptor.forClass(PromptChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("globex", event.getValue().getTenant());
+    }
+
+    @Test
+    void getPromptByName_CacheMetricsPublished() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        activePromptCache.bindTo(registry);
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+
+        promptService.getPromptByName(TENANT, "test-prompt");
+        activePromptCache.invalidate(TENANT, "test-prompt");
+        promptService.getPromptByName(TENANT, "test-prompt");
+        promptService.getPromptByName(TENANT, "test-prompt");
+
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "active-prompts").tag("tenant", TENANT).tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("cache", "active-prompts").tag("tenant", TENANT).tag("result", "miss").functionCounter().count());
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "active-prompts").tag("tenant", TENANT).gauge().value());
+    }
+
+    @Test
+    void getPromptByName_UnknownTenantDoesNotCreateCache() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        activePromptCache.bindTo(registry);
+        when(promptRepository.findActiveByName(anyString(), anyString())).thenReturn(Optional.empty());
+
+        for (int i = 0; i < 10; i++) {
+            String tenant = "tenant-" + i;
+            assertThrows(PromptNotFoundException.class, () -> promptService.getPromptByName(tenant, "test-prompt"));
+            assertFalse(promptService.getPromptsByNames(tenant, List.of("test-prompt")).getPrompts().isEmpty());
+        }
+
+        assertEquals(0, activePromptCache.tenantCount());
+        assertTrue(registry.find("cache.gets").meters().isEmpty());
+    }
+
+    @Test
+    void activePromptCache_DropsIdleTenantsWithTheirMeters() {
+        ActivePromptCache cache = new ActivePromptCache(100, Duration.ofMinutes(1), 2, Duration.ofHours(1));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+        PromptResponse response = PromptResponse.builder().name("test-prompt").build();
+
+        for (String tenant : List.of("acme", "globex", "initech")) {
+            cache.putIfNotInvalidatedSince(tenant, "test-prompt", response, cache.stamp());
+        }
+
+        assertEquals(2, cache.tenantCount());
+        assertEquals(2, registry.find("cache.size").tag("cache", "active-prompts").gauges().size());
+    }
+
+    @Test
+    void getPromptByName_NotFoundIsNotCached() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.empty());
+
+        assertThrows(PromptNotFoundException.class, () -> promptService.getPromptByName(TENANT, "non-existent"));
+        assertThrows(PromptNotFoundException.class, () -> promptService.getPromptByName(TENANT, "non-existent"));
+
+        verify(promptRepository, times(2)).findActiveByName(eq(TENANT), anyString());
+    }
+
+    @Test
+    void updatePrompt_ExpectedVersionMismatch() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(TENANT, "test-prompt")).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+        UpdatePromptRequest updateRequest = UpdatePromptRequest.builder().content("Updated content").build();
+
+        assertThrows(PromptPreconditionFailedException.class, () -> {
+            promptService.updatePrompt(TENANT, "test-prompt", updateRequest, version -> version.getVersion() == 2);
+        });
+
+        verify(promptRepository, never()).save(any(Prompt.class));
+    }
+
+    @Test
+    void updatePrompt_RetriesAfterConcurrentUpdate() {
+        Prompt concurrentVersion = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .content("Concurrent content")
+                .category("test")
+                .version(2)
+                .active(true)
+                .build();
+        when(promptCurrentRepository.findWithPromptByTenantAndName(TENANT, "test-prompt"))
+                .thenReturn(Optional.of(PromptCurrent.of(testPrompt)))
+                .thenReturn(Optional.of(PromptCurrent.of(concurrentVersion)));
+        when(promptRepository.save(any(Prompt.class)))
+                .thenThrow(integrityViolation("PUBLIC.UK_PROMPTS_TENANT_NAME_VERSION_INDEX_8"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        PromptResponse response = promptService.updatePrompt(TENANT, "test-prompt",
+                UpdatePromptRequest.builder().content("Updated content").build());
+
+        // The second attempt builds on the version the concurrent update created
+        assertEquals(3, response.getVersion());
+        verify(promptRepository, times(2)).save(any(Prompt.class));
+    }
+
+    @Test
+    void updatePrompt_OtherIntegrityViolationsAreNotRetried() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(TENANT, "test-prompt"))
+                .thenAnswer(invocation -> Optional.of(PromptCurrent.of(testPrompt)));
+        DataIntegrityViolationException violation = integrityViolation("PUBLIC.CONSTRAINT_8");
+        when(promptRepository.save(any(Prompt.class))).thenThrow(violation);
+        UpdatePromptRequest updateRequest = UpdatePromptRequest.builder().content("Updated content").build();
+
+        assertSame(violation, assertThrows(DataIntegrityViolationException.class,
+                () -> promptService.updatePrompt(TENANT, "test-prompt", updateRequest)));
+        verify(promptRepository, times(1)).save(any(Prompt.class));
+    }
+
+    @Test
+    void updatePrompt_ExpectedVersionIsRecheckedOnRetry() {
+        Prompt concurrentVersion = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .category("test")
+                .version(2)
+                .active(true)
+                .build();
+        when(promptCurrentRepository.findWithPromptByTenantAndName(TENANT, "test-prompt"))
+                .thenReturn(Optional.of(PromptCurrent.of(testPrompt)))
+                .thenReturn(Optional.of(PromptCurrent.of(concurrentVersion)));
+        when(promptRepository.save(any(Prompt.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(PromptCurrent.class, "test-prompt"));
+        UpdatePromptRequest updateRequest = UpdatePromptRequest.builder().content("Updated content").build();
+
+        assertThrows(PromptPreconditionFailedException.class, () -> {
+            promptService.updatePrompt(TENANT, "test-prompt", updateRequest, version -> version.getVersion() == 1);
+        });
+    }
+
+    @Test
+    void updatePrompt_ConflictAfterMaxAttempts() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(TENANT, "test-prompt"))
+                .thenAnswer(invocation -> Optional.of(PromptCurrent.of(testPrompt)));
+        when(promptRepository.save(any(Prompt.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(PromptCurrent.class, "test-prompt"));
+        UpdatePromptRequest updateRequest = UpdatePromptRequest.builder().content("Updated content").build();
+
+        assertThrows(PromptUpdateConflictException.class, () -> {
+            promptService.updatePrompt(TENANT, "test-prompt", updateRequest);
+        });
+
+        verify(promptRepository, times(PromptService.MAX_UPDATE_ATTEMPTS)).save(any(Prompt.class));
+    }
+
+    @Test
+    void updatePrompt_InvalidatesCachedPrompt() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+        promptService.getPromptByName(TENANT, "test-prompt");
+
+        Prompt updatedPrompt = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .content("Updated content")
+                .category("test")
+                .version(2)
+                .active(true)
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        when(promptRepository.save(any(Prompt.class))).thenReturn(updatedPrompt);
 
-        when(promptRepository.findByNameAndActive(anyString(), eq(true))).thenReturn(Optional.empty());
-        when(promptRepository.findFirstByActive(eq(true))).thenReturn(Optional.of(otherActivePrompt));
-        when(promptRepository.save(any(Prompt.class))).thenReturn(testPrompt);
+        promptService.updatePrompt(TENANT, "test-prompt", UpdatePromptRequest.builder().content("Updated content").build());
+
+        assertNull(activePromptCache.getIfPresent(TENANT, "test-prompt"));
+        verify(activePromptCache).invalidate(TENANT, "test-prompt");
+    }
+
+    @Test
+    void deletePrompt_InvalidatesCachedPrompt() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+        promptService.getPromptByName(TENANT, "test-prompt");
 
-        promptService.createPrompt(testRequest);
+        promptService.deletePrompt(TENANT, "test-prompt");
 
-        assertFalse(otherActivePrompt.getActive());
-        verify(promptRepository, atLeast(2)).save(any(Prompt.class));
+        assertNull(activePromptCache.getIfPresent(TENANT, "test-prompt"));
     }
 
     @Test
-    void getCurrentPromptForAI_Success() {
-        when(promptRepository.findByNameAndActive(anyString(), any())).thenReturn(Optional.of(testPrompt));
+    void updatePrompt_PublishesChangeEvent() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+        Prompt updatedPrompt = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .content("Updated content")
+                .category("test")
+                .version(2)
+                .active(true)
+                .build();
+        when(promptRepository.save(any(Prompt.class))).thenReturn(updatedPrompt);
 
-        PromptResponse response = promptService.getCurrentPromptForAI("test-prompt");
+        promptService.updatePrompt(TENANT, "test-prompt", UpdatePromptRequest.builder().content("Updated content").build());
 
-        assertNotNull(response);
-        assertEquals("test-prompt", response.getName());
-        verify(promptRepository, times(1)).findByNameAndActive(anyString(), any());
+        ArgumentCaptor<PromptChangeEvent> event = ArgumentCaptor.forClass(PromptChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(PromptChangeEvent.Type.UPDATED, event.getValue().getType());
+        assertEquals("test-prompt", event.getValue().getName());
+        assertEquals(2, event.getValue().getVersion());
+        assertNull(event.getValue().getPreviousCategory());
+    }
+
+    @Test
+    void updatePrompt_CategoryChangeReportsPreviousCategory() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString())).thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+        Prompt updatedPrompt = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .content("Test content")
+                .category("support")
+                .version(2)
+                .active(true)
+                .build();
+        when(promptRepository.save(any(Prompt.class))).thenReturn(updatedPrompt);
+
+        promptService.updatePrompt(TENANT, "test-prompt", UpdatePromptRequest.builder()
+                .content("Test content")
+                .category("support")
+                .build());
+
+        ArgumentCaptor<PromptChangeEvent> event = ArgumentCaptor.forClass(PromptChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals("support", event.getValue().getCategory());
+        assertEquals("test", event.getValue().getPreviousCategory());
+    }
+
+    @Test
+    void deletePrompt_PublishesDeactivatedEvent() {
+        when(promptCurrentRepository.findWithPromptByTenantAndName(eq(TENANT), anyString()))
+                .thenReturn(Optional.of(PromptCurrent.of(testPrompt)));
+
+        promptService.deletePrompt(TENANT, "test-prompt");
+
+        ArgumentCaptor<PromptChangeEvent> event = ArgumentCaptor.forClass(PromptChangeEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(PromptChangeEvent.Type.DEACTIVATED, event.getValue().getType());
+        assertFalse(event.getValue().getActive());
+    }
+
+    @Test
+    void findActivePromptVersion_QueriesOnlyOnCacheMiss() {
+        PromptVersionInfo stored = new PromptVersionInfo(1L, TENANT, "test-prompt", 1);
+        when(promptRepository.findActiveVersionInfoByName(TENANT, "test-prompt")).thenReturn(Optional.of(stored));
+
+        assertEquals(Optional.of(stored), promptService.findActivePromptVersion(TENANT, "test-prompt"));
+
+        when(promptRepository.findActiveByName(TENANT, "test-prompt")).thenReturn(Optional.of(testPrompt));
+        promptService.getPromptByName(TENANT, "test-prompt");
+        assertEquals(Optional.of(stored), promptService.findActivePromptVersion(TENANT, "test-prompt"));
+
+        verify(promptRepository, times(1)).findActiveVersionInfoByName(TENANT, "test-prompt");
+    }
+
+    @Test
+    void getPromptsByNames_LoadsMissesWithSingleQueryAndReportsMissing() {
+        when(promptRepository.findActiveByName(eq(TENANT), anyString())).thenReturn(Optional.of(testPrompt));
+        promptService.getPromptByName(TENANT, "test-prompt");
+
+        Prompt otherPrompt = Prompt.builder()
+                .id(5L)
+                .tenant(TENANT)
+                .name("other-prompt")
+                .content("Other content")
+                .category("test")
+                .version(1)
+                .active(true)
+                .build();
+        when(promptRepository.findActiveByNameIn(eq(TENANT), anyCollection())).thenReturn(List.of(otherPrompt));
+
+        BatchPromptResponse response = promptService.getPromptsByNames(TENANT, 
+                List.of("test-prompt", "other-prompt", "missing-prompt", "other-prompt"));
+
+        assertEquals(List.of("test-prompt", "other-prompt", "missing-prompt"), List.copyOf(response.getPrompts().keySet()));
+        assertEquals(2, response.getFound());
+        assertEquals(1, response.getMissing());
+        assertEquals(PromptLookupResult.Status.NOT_FOUND, response.getPrompts().get("missing-prompt").getStatus());
+        assertEquals("Other content", response.getPrompts().get("other-prompt").getPrompt().getContent());
+        verify(promptRepository).findActiveByNameIn(TENANT, List.of("other-prompt", "missing-prompt"));
+        assertNotNull(activePromptCache.getIfPresent(TENANT, "other-prompt"));
+    }
+
+    @Test
+    void getPromptsByNames_RejectsOversizedBatch() {
+        List<String> names = IntStream.rangeClosed(0, PromptService.MAX_BATCH_NAMES)
+                .mapToObj(i -> "prompt-" + i)
+                .toList();
+
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.getPromptsByNames(TENANT, names));
+        verify(promptRepository, never()).findActiveByNameIn(eq(TENANT), anyCollection());
+    }
+
+    @Test
+    void activePromptCache_SkipsPutAfterConcurrentInvalidation() {
+        long stamp = activePromptCache.stamp();
+        activePromptCache.invalidate(TENANT, "test-prompt");
+
+        activePromptCache.putIfNotInvalidatedSince(TENANT, "test-prompt", PromptResponse.builder().name("test-prompt").build(), stamp);
+
+        assertNull(activePromptCache.getIfPresent(TENANT, "test-prompt"));
+    }
+
+    @Test
+    void activePromptCache_DoesNotCacheLoadRacingAnInvalidation() {
+        PromptResponse stale = PromptResponse.builder().name("test-prompt").version(1).build();
+
+        PromptResponse loaded = activePromptCache.get(TENANT, "test-prompt", name -> {
+            // A write commits while the (unlocked) loader is reading the old version
+            activePromptCache.invalidate(TENANT, name);
+            return stale;
+        });
+
+        assertSame(stale, loaded);
+        assertNull(activePromptCache.getIfPresent(TENANT, "test-prompt"));
+    }
+
+    @Test
+    void listActivePrompts_PageReturnsCursorWhenMoreRowsExist() {
+        Prompt secondPrompt = Prompt.builder()
+                .id(2L)
+                .tenant(TENANT)
+                .name("second-prompt")
+                .content("Second content")
+                .category("test")
+                .version(1)
+                .active(true)
+                .build();
+        when(promptRepository.findActiveByIdGreaterThan(TENANT, 0L, Limit.of(2)))
+                .thenReturn(List.of(testPrompt, secondPrompt));
+
+        CursorPage<PromptResponse> firstPage = promptService.listActivePrompts(TENANT, null, 1);
+
+        assertEquals(1, firstPage.getItems().size());
+        assertTrue(firstPage.isHasMore());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(promptRepository.findActiveByIdGreaterThan(TENANT, 1L, Limit.of(2)))
+                .thenReturn(List.of(secondPrompt));
+
+        CursorPage<PromptResponse> secondPage = promptService.listActivePrompts(TENANT, firstPage.getNextCursor(), 1);
+
+        assertEquals("second-prompt", secondPage.getItems().get(0).getName());
+        assertFalse(secondPage.isHasMore());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void listActivePrompts_RejectsInvalidCursorAndPageSize() {
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.listActivePrompts(TENANT, "not a cursor!", 10));
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.listActivePrompts(TENANT, null, 0));
+        assertThrows(InvalidPromptRequestException.class,
+                () -> promptService.listActivePrompts(TENANT, null, PromptService.MAX_PAGE_SIZE + 1));
+        // A cursor continues a paginated listing, so it needs a page size
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.listActivePromptSummaries(TENANT, "MQ", null));
+        verifyNoInteractions(promptRepository);
+    }
+
+    @Test
+    void listPromptVersions_PageNotFound() {
+        when(promptRepository.findByTenantAndNameAndVersionLessThanOrderByVersionDesc(eq(TENANT), eq("non-existent"), eq(Integer.MAX_VALUE), any()))
+                .thenReturn(List.of());
+
+        assertThrows(PromptNotFoundException.class,
+                () -> promptService.listPromptVersions(TENANT, "non-existent", null, 10));
+    }
+
+    @Test
+    void listActivePromptSummaries_PageUsesContentFreeProjection() {
+        PromptSummary first = new PromptSummary(1L, "test-prompt", "test", 1, true, null, null);
+        PromptSummary second = new PromptSummary(2L, "second-prompt", "test", 1, true, null, null);
+        when(promptRepository.findActiveSummariesByIdGreaterThan(TENANT, 0L, Limit.of(2)))
+                .thenReturn(List.of(first, second));
+
+        CursorPage<PromptSummary> page = promptService.listActivePromptSummaries(TENANT, null, 1);
+
+        assertEquals(List.of(first), page.getItems());
+        assertTrue(page.isHasMore());
+        verify(promptRepository, never()).findActiveByIdGreaterThan(any(), any(), any());
+    }
+
+    @Test
+    void listPromptVersionSummaries_NotFound() {
+        when(promptRepository.findSummariesByTenantAndNameAndVersionLessThanOrderByVersionDesc(TENANT, "non-existent",
+                Integer.MAX_VALUE, Limit.unlimited())).thenReturn(List.of());
+
+        assertThrows(PromptNotFoundException.class, () -> promptService.listPromptVersionSummaries(TENANT, "non-existent", null, null));
+    }
+
+    @Test
+    void convertToResponse_IncludesSizesStoredWithTheContent() {
+        testPrompt.setBody(PromptContent.of("Grüße", Map.of(ApproximateTokenizer.NAME, 1)));
+
+        PromptResponse response = PromptService.convertToResponse(testPrompt);
+
+        assertEquals(5, response.getCharacterCount());
+        assertEquals(7, response.getByteCount());
+        assertEquals(Map.of(ApproximateTokenizer.NAME, 1), response.getTokenCounts());
+    }
+
+    @Test
+    void getActivePromptsOverTokenBudget_QueriesStoredCounts() {
+        PromptTokenUsage usage = new PromptTokenUsage(1L, "test-prompt", "test", 1, "estimate", 5000, 24000, 24100);
+        when(promptRepository.findActiveTokenUsageAbove(TENANT, "estimate", 4096, Limit.of(100))).thenReturn(List.of(usage));
+
+        assertEquals(List.of(usage), promptService.getActivePromptsOverTokenBudget(TENANT, "estimate", 4096, 100));
+        verify(promptTokenizers).requireKnown("estimate");
+    }
+
+    @Test
+    void getActivePromptsOverTokenBudget_InvalidRequests_ThrowException() {
+        doThrow(new InvalidPromptRequestException("Unknown tokenizer")).when(promptTokenizers).requireKnown("unknown");
+
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.getActivePromptsOverTokenBudget(TENANT, "unknown", 10, 10));
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.getActivePromptsOverTokenBudget(TENANT, "estimate", -1, 10));
+        assertThrows(InvalidPromptRequestException.class, () -> promptService.getActivePromptsOverTokenBudget(TENANT, "estimate", 10, 0));
+        verify(promptRepository, never()).findActiveTokenUsageAbove(anyString(), anyString(), anyInt(), any());
+    }
+
+    private static DataIntegrityViolationException integrityViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException("duplicate"), constraintName));
     }
 }
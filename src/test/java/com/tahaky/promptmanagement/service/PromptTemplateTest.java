@@ -0,0 +1,66 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptTemplateTest {
+
+    @Test
+    void render_SubstitutesEveryOccurrence() {
+        PromptTemplate template = PromptTemplate.compile("Hello {{name}}, welcome to {{ product }}. Bye {{name}}!");
+
+        assertEquals(List.of("name", "product"), template.variables());
+        assertEquals("Hello Ada, welcome to Router X2. Bye Ada!",
+                template.render(Map.of("name", "Ada", "product", "Router X2")));
+    }
+
+    @Test
+    void render_WithoutPlaceholders_ReturnsContent() {
+        PromptTemplate template = PromptTemplate.compile("You are a helpful assistant.");
+
+        assertEquals(List.of(), template.variables());
+        assertEquals("You are a helpful assistant.", template.render(Map.of()));
+    }
+
+    @Test
+    void compile_KeepsNonPlaceholderBracesLiteral() {
+        PromptTemplate template = PromptTemplate.compile("{{ not a var }} {{{id}}} {{1st}} {{}} {{open");
+
+        assertEquals(List.of("id"), template.variables());
+        assertEquals("{{ not a var }} {42} {{1st}} {{}} {{open", template.render(Map.of("id", "42")));
+    }
+
+    @Test
+    void render_ValuesAreNotReinterpreted() {
+        PromptTemplate template = PromptTemplate.compile("{{a}}{{b}}");
+
+        assertEquals("{{b}}x", template.render(Map.of("a", "{{b}}", "b", "x")));
+    }
+
+    @Test
+    void render_MissingVariables_ThrowsException() {
+        PromptTemplate template = PromptTemplate.compile("{{b}} {{a}} {{c}}");
+        Map<String, String> values = new HashMap<>();
+        values.put("a", "1");
+        values.put("c", null);
+
+        InvalidPromptRequestException ex = assertThrows(InvalidPromptRequestException.class,
+                () -> template.render(values));
+        assertEquals("Missing variables: b, c", ex.getMessage());
+    }
+
+    @Test
+    void render_UnknownVariables_ThrowsException() {
+        PromptTemplate template = PromptTemplate.compile("{{a}}");
+
+        InvalidPromptRequestException ex = assertThrows(InvalidPromptRequestException.class,
+                () -> template.render(Map.of("b", "2", "z", "3")));
+        assertEquals("Missing variables: a; Unknown variables: b, z", ex.getMessage());
+    }
+}
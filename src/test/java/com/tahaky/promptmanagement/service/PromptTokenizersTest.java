@@ -0,0 +1,60 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromptTokenizersTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void count_WithoutVocabularies_UsesEstimate() {
+        PromptTokenizers tokenizers = new PromptTokenizers(new DefaultResourceLoader(), List.of());
+
+        assertEquals(List.of(ApproximateTokenizer.NAME), List.copyOf(tokenizers.names()));
+        // Hello | world | , | how | are | you | ? and "internationalization" as four tokens
+        assertEquals(Map.of(ApproximateTokenizer.NAME, 7), tokenizers.count("Hello world, how are you?"));
+        assertEquals(4, tokenizers.count("internationalization").get(ApproximateTokenizer.NAME));
+        assertEquals(0, tokenizers.count("").get(ApproximateTokenizer.NAME));
+    }
+
+    @Test
+    void count_LoadsConfiguredVocabularies() throws IOException {
+        Path vocabulary = directory.resolve("test.tiktoken");
+        Files.writeString(vocabulary, Base64.getEncoder().encodeToString("hi".getBytes(StandardCharsets.UTF_8)) + " 0\n");
+
+        PromptTokenizers tokenizers = new PromptTokenizers(new DefaultResourceLoader(),
+                List.of("small=" + vocabulary.toUri()));
+
+        assertEquals(List.of(ApproximateTokenizer.NAME, "small"), List.copyOf(tokenizers.names()));
+        assertEquals(3, tokenizers.count("hi hi").get("small"));
+        tokenizers.requireKnown("small");
+        assertThrows(InvalidPromptRequestException.class, () -> tokenizers.requireKnown("cl100k_base"));
+    }
+
+    @Test
+    void constructor_InvalidConfiguration_ThrowsException() {
+        DefaultResourceLoader resourceLoader = new DefaultResourceLoader();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> new PromptTokenizers(resourceLoader, List.of("no-location")));
+        assertThrows(IllegalArgumentException.class,
+                () -> new PromptTokenizers(resourceLoader, List.of("estimate=file:/dev/null")));
+        assertThrows(UncheckedIOException.class,
+                () -> new PromptTokenizers(resourceLoader, List.of("missing=" + directory.resolve("missing").toUri())));
+    }
+}
@@ -0,0 +1,153 @@
+package com.tahaky.promptmanagement.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.dto.PromptVersionInfo;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.PromptRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PromptWarmupTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private PromptRepository promptRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    private ActivePromptCache activePromptCache;
+
+    @BeforeEach
+    void setUp() {
+        activePromptCache = new ActivePromptCache(100, Duration.ofMinutes(1));
+    }
+
+    private PromptWarmup warmup(String snapshotFile, ActivePromptCache cache) {
+        return new PromptWarmup(promptRepository, cache, objectMapper, new TenantRateLimiter(0, 0, 0, 0),
+                new MockEnvironment(),
+                snapshotFile, 0, Duration.ofSeconds(1));
+    }
+
+    private static Prompt prompt(long id, String name, int version) {
+        return prompt(id, TENANT, name, version);
+    }
+
+    private static Prompt prompt(long id, String tenant, String name, int version) {
+        return Prompt.builder()
+                .id(id)
+                .tenant(tenant)
+                .name(name)
+                .content(name + " v" + version)
+                .category("test")
+                .version(version)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void preloadActivePrompts_LoadsFromDatabaseWithoutSnapshot() {
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(
+                new PromptVersionInfo(1L, TENANT, "a", 1), new PromptVersionInfo(2L, TENANT, "b", 1)));
+        when(promptRepository.findActiveByNameIn(TENANT, List.of("a", "b"))).thenReturn(List.of(prompt(1L, "a", 1), prompt(2L, "b", 1)));
+
+        List<PromptVersionInfo> preloaded = warmup("", activePromptCache).preloadActivePrompts();
+
+        assertEquals(List.of("a", "b"), preloaded.stream().map(PromptVersionInfo::getName).toList());
+        assertEquals("a v1", activePromptCache.getIfPresent(TENANT, "a").getContent());
+        assertEquals("b v1", activePromptCache.getIfPresent(TENANT, "b").getContent());
+    }
+
+    @Test
+    void preloadActivePrompts_ReusesSnapshotForUnchangedVersions() {
+        String snapshotFile = tempDir.resolve("prompts.ndjson").toString();
+        activePromptCache.putIfNotInvalidatedSince(TENANT, "a", PromptService.convertToResponse(prompt(1L, "a", 1)), activePromptCache.stamp());
+        activePromptCache.putIfNotInvalidatedSince(TENANT, "b", PromptService.convertToResponse(prompt(2L, "b", 1)), activePromptCache.stamp());
+        warmup(snapshotFile, activePromptCache).writeSnapshot();
+
+        // "b" got a new version while the instance was down
+        ActivePromptCache restartedCache = new ActivePromptCache(100, Duration.ofMinutes(1));
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(
+                new PromptVersionInfo(1L, TENANT, "a", 1), new PromptVersionInfo(3L, TENANT, "b", 2)));
+        when(promptRepository.findActiveByNameIn(TENANT, List.of("b"))).thenReturn(List.of(prompt(3L, "b", 2)));
+
+        warmup(snapshotFile, restartedCache).preloadActivePrompts();
+
+        PromptResponse a = restartedCache.getIfPresent(TENANT, "a");
+        assertEquals("a v1", a.getContent());
+        assertEquals(1L, a.getId());
+        assertEquals(2, restartedCache.getIfPresent(TENANT, "b").getVersion());
+        verify(promptRepository).findActiveByNameIn(TENANT, List.of("b"));
+    }
+
+    @Test
+    void preloadActivePrompts_IgnoresUnreadableSnapshot() throws Exception {
+        Path snapshotFile = tempDir.resolve("prompts.ndjson");
+        Files.writeString(snapshotFile, "{not json");
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(new PromptVersionInfo(1L, TENANT, "a", 1)));
+        when(promptRepository.findActiveByNameIn(TENANT, List.of("a"))).thenReturn(List.of(prompt(1L, "a", 1)));
+
+        warmup(snapshotFile.toString(), activePromptCache).preloadActivePrompts();
+
+        assertNotNull(activePromptCache.getIfPresent(TENANT, "a"));
+    }
+
+    @Test
+    void preloadActivePrompts_StopsAtCacheSize() {
+        ActivePromptCache smallCache = new ActivePromptCache(1, Duration.ofMinutes(1));
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(
+                new PromptVersionInfo(1L, TENANT, "a", 1), new PromptVersionInfo(2L, TENANT, "b", 1)));
+        when(promptRepository.findActiveByNameIn(TENANT, List.of("a"))).thenReturn(List.of(prompt(1L, "a", 1)));
+
+        List<PromptVersionInfo> preloaded = warmup("", smallCache).preloadActivePrompts();
+
+        assertEquals(List.of("a"), preloaded.stream().map(PromptVersionInfo::getName).toList());
+        verify(promptRepository, times(1)).findActiveByNameIn(anyString(), anyCollection());
+    }
+
+    @Test
+    void preloadActivePrompts_FillsEachTenantsCacheSeparately() {
+        ActivePromptCache smallCache = new ActivePromptCache(1, Duration.ofMinutes(1));
+        when(promptRepository.findAllActiveVersionInfos()).thenReturn(List.of(
+                new PromptVersionInfo(1L, TENANT, "a", 1), new PromptVersionInfo(2L, "other", "a", 1)));
+        when(promptRepository.findActiveByNameIn(TENANT, List.of("a"))).thenReturn(List.of(prompt(1L, "a", 1)));
+        when(promptRepository.findActiveByNameIn("other", List.of("a"))).thenReturn(List.of(prompt(2L, "other", "a", 1)));
+
+        warmup("", smallCache).preloadActivePrompts();
+
+        assertEquals(1L, smallCache.getIfPresent(TENANT, "a").getId());
+        assertEquals(2L, smallCache.getIfPresent("other", "a").getId());
+    }
+
+    @Test
+    void integrationUri_EncodesPromptName() {
+        assertEquals("http://localhost:8080/api/integration/prompts/customer%20support%2Fv2%3F",
+                PromptWarmup.integrationUri(8080, "customer support/v2?").toString());
+    }
+}
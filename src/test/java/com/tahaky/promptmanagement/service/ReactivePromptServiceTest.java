@@ -0,0 +1,112 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.dto.BatchPromptResponse;
+import com.tahaky.promptmanagement.dto.PromptResponse;
+import com.tahaky.promptmanagement.exception.InvalidPromptRequestException;
+import com.tahaky.promptmanagement.exception.PromptNotFoundException;
+import com.tahaky.promptmanagement.model.Prompt;
+import com.tahaky.promptmanagement.repository.ReactivePromptRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactivePromptServiceTest {
+
+    private static final String TENANT = "acme";
+
+    @Mock
+    private ReactivePromptRepository reactivePromptRepository;
+
+    @Spy
+    private ActivePromptCache activePromptCache = new ActivePromptCache(100, Duration.ofMinutes(1));
+
+    @InjectMocks
+    private ReactivePromptService reactivePromptService;
+
+    private Prompt testPrompt;
+
+    @BeforeEach
+    void setUp() {
+        testPrompt = Prompt.builder()
+                .id(1L)
+                .tenant(TENANT)
+                .name("test-prompt")
+                .content("Test content")
+                .category("test")
+                .version(1)
+                .active(true)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void getCurrentPromptForAI_LoadsOnceThenServesFromCache() {
+        when(reactivePromptRepository.findActiveByName(TENANT, "test-prompt")).thenReturn(Mono.just(testPrompt));
+
+        reactivePromptService.getCurrentPromptForAI(TENANT, "test-prompt").block();
+        PromptResponse response = reactivePromptService.getCurrentPromptForAI(TENANT, "test-prompt").block();
+
+        assertEquals("test-prompt", response.getName());
+        verify(reactivePromptRepository, times(1)).findActiveByName(anyString(), anyString());
+    }
+
+    @Test
+    void getCurrentPromptForAI_NotFound() {
+        when(reactivePromptRepository.findActiveByName(TENANT, "missing")).thenReturn(Mono.empty());
+
+        Mono<PromptResponse> result = reactivePromptService.getCurrentPromptForAI(TENANT, "missing");
+
+        assertThrows(PromptNotFoundException.class, result::block);
+        assertNull(activePromptCache.getIfPresent(TENANT, "missing"));
+    }
+
+    @Test
+    void findActivePromptVersion_UsesCachedPrompt() {
+        when(reactivePromptRepository.findActiveByName(TENANT, "test-prompt")).thenReturn(Mono.just(testPrompt));
+        reactivePromptService.getCurrentPromptForAI(TENANT, "test-prompt").block();
+
+        assertEquals(1, reactivePromptService.findActivePromptVersion(TENANT, "test-prompt").block().getVersion());
+        verify(reactivePromptRepository, never()).findActiveVersionInfoByName(anyString(), anyString());
+    }
+
+    @Test
+    void getPromptsByNames_LoadsOnlyMisses() {
+        when(reactivePromptRepository.findActiveByName(TENANT, "test-prompt")).thenReturn(Mono.just(testPrompt));
+        reactivePromptService.getCurrentPromptForAI(TENANT, "test-prompt").block();
+        when(reactivePromptRepository.findActiveByNameIn(TENANT, List.of("missing"))).thenReturn(Flux.empty());
+
+        BatchPromptResponse response = reactivePromptService.getPromptsByNames(TENANT, List.of("test-prompt", "missing")).block();
+
+        assertEquals(1, response.getFound());
+        assertEquals(1, response.getMissing());
+        verify(reactivePromptRepository).findActiveByNameIn(TENANT, List.of("missing"));
+    }
+
+    @Test
+    void getPromptsByNames_TooManyNames() {
+        List<String> names = IntStream.range(0, PromptService.MAX_BATCH_NAMES + 1).mapToObj(i -> "prompt-" + i).toList();
+
+        Mono<BatchPromptResponse> result = reactivePromptService.getPromptsByNames(TENANT, names);
+
+        assertThrows(InvalidPromptRequestException.class, result::block);
+        verify(reactivePromptRepository, never()).findActiveByNameIn(anyString(), anyCollection());
+    }
+}
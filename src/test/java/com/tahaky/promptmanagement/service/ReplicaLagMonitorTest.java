@@ -0,0 +1,188 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.config.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Routes through two embedded H2 databases. H2 does not replicate, so the tests copy the
+ * heartbeat table from the primary to the replica to simulate replication catching up.
+ */
+class ReplicaLagMonitorTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000);
+
+    private EmbeddedDatabase primary;
+    private EmbeddedDatabase replica;
+    private ReplicaLagMonitor monitor;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readOnlyTransaction;
+    private TransactionTemplate writeTransaction;
+
+    @BeforeEach
+    void setUp() {
+        primary = database("primary");
+        replica = database("replica");
+        monitor = new ReplicaLagMonitor(primary, Map.of("replica-1", replica),
+                Duration.ofMillis(200), Duration.ofSeconds(2), now::get);
+
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primary, monitor));
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        writeTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        monitor.shutdown();
+        primary.shutdown();
+        replica.shutdown();
+    }
+
+    private static EmbeddedDatabase database(String role) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(database);
+        jdbc.execute("CREATE TABLE replica_heartbeat (instance_id VARCHAR(36) PRIMARY KEY, "
+                + "position BIGINT NOT NULL, beat_at_millis BIGINT NOT NULL)");
+        jdbc.execute("CREATE TABLE server_role (role VARCHAR(16))");
+        jdbc.update("INSERT INTO server_role VALUES (?)", role);
+        return database;
+    }
+
+    private String readOnlyRole() {
+        return readOnlyTransaction.execute(status -> role());
+    }
+
+    private String role() {
+        return jdbcTemplate.queryForObject("SELECT role FROM server_role", String.class);
+    }
+
+    // Stands in for replication: the replica receives the primary's heartbeat rows
+    private void replicate() {
+        JdbcTemplate replicaJdbc = new JdbcTemplate(replica);
+        replicaJdbc.update("DELETE FROM replica_heartbeat");
+        new JdbcTemplate(primary).query("SELECT instance_id, position, beat_at_millis FROM replica_heartbeat",
+                rs -> {
+                    replicaJdbc.update("INSERT INTO replica_heartbeat VALUES (?, ?, ?)",
+                            rs.getString(1), rs.getLong(2), rs.getLong(3));
+                });
+    }
+
+    private void catchUp() {
+        monitor.beat();
+        replicate();
+        monitor.poll();
+    }
+
+    @Test
+    void readOnlyTransactions_StayOnPrimaryUntilReplicaReportsHeartbeat() {
+        monitor.tick();
+        assertEquals("primary", readOnlyRole());
+
+        replicate();
+        monitor.poll();
+
+        assertEquals("replica", readOnlyRole());
+        assertEquals("primary", writeTransaction.execute(status -> role()));
+        assertEquals("primary", role());
+    }
+
+    @Test
+    void recordWrite_KeepsReadsOnPrimaryUntilReplicaAppliedNextHeartbeat() {
+        catchUp();
+        assertEquals("replica", readOnlyRole());
+
+        monitor.recordWrite();
+        assertEquals("primary", readOnlyRole());
+
+        // The replica still shows the heartbeat written before the update
+        monitor.poll();
+        assertEquals("primary", readOnlyRole());
+
+        catchUp();
+        assertEquals("replica", readOnlyRole());
+    }
+
+    @Test
+    void laggingReplica_IsSkipped() {
+        catchUp();
+        assertEquals("replica", readOnlyRole());
+
+        // The primary keeps beating, but replication has stalled
+        now.addAndGet(2_500);
+        monitor.beat();
+        monitor.poll();
+
+        assertEquals("primary", readOnlyRole());
+
+        replicate();
+        monitor.poll();
+        assertEquals("replica", readOnlyRole());
+    }
+
+    @Test
+    void unreachableReplica_IsSkipped() {
+        catchUp();
+        replica.shutdown();
+
+        monitor.poll();
+
+        assertEquals("primary", readOnlyRole());
+        assertNull(monitor.selectReplica());
+    }
+
+    @Test
+    void selectReplica_RoundRobinsOverEligibleReplicas() {
+        EmbeddedDatabase second = database("replica");
+        try {
+            ReplicaLagMonitor twoReplicas = new ReplicaLagMonitor(primary, Map.of("replica-1", replica, "replica-2", second),
+                    Duration.ofMillis(200), Duration.ofSeconds(2), now::get);
+            twoReplicas.beat();
+            replicate();
+            new JdbcTemplate(primary).query("SELECT instance_id, position, beat_at_millis FROM replica_heartbeat",
+                    rs -> {
+                        new JdbcTemplate(second).update("INSERT INTO replica_heartbeat VALUES (?, ?, ?)",
+                                rs.getString(1), rs.getLong(2), rs.getLong(3));
+                    });
+            twoReplicas.poll();
+
+            String first = twoReplicas.selectReplica();
+            String next = twoReplicas.selectReplica();
+
+            assertNotNull(first);
+            assertNotNull(next);
+            assertNotEquals(first, next);
+            assertEquals(first, twoReplicas.selectReplica());
+        } finally {
+            second.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_RejectsMaxLagWithinTwoHeartbeats() {
+        assertThrows(IllegalArgumentException.class, () -> new ReplicaLagMonitor(primary, Map.of("replica-1", replica),
+                Duration.ofSeconds(1), Duration.ofSeconds(2), now::get));
+        assertThrows(IllegalArgumentException.class, () -> new ReplicaLagMonitor(primary, Map.of(),
+                Duration.ofMillis(200), Duration.ofSeconds(2), now::get));
+    }
+}
@@ -0,0 +1,66 @@
+package com.tahaky.promptmanagement.service;
+
+import com.tahaky.promptmanagement.exception.TenantRateLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TenantRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tryAcquire_AllowsBurstThenRefillsAtRate() {
+        TenantRateLimiter limiter = new TenantRateLimiter(2, 3, 0, 0, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+        }
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+    }
+
+    @Test
+    void tryAcquire_KeepsSeparateBucketsPerTenantAndTraffic() {
+        TenantRateLimiter limiter = new TenantRateLimiter(1, 1, 1, 1, now::get);
+
+        assertEquals(0, limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+        assertTrue(limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION) > 0);
+        assertEquals(0, limiter.tryAcquire("acme", TenantRateLimiter.Traffic.MANAGEMENT));
+        assertEquals(0, limiter.tryAcquire("globex", TenantRateLimiter.Traffic.INTEGRATION));
+    }
+
+    @Test
+    void tryAcquire_ZeroRateDisablesLimit() {
+        TenantRateLimiter limiter = new TenantRateLimiter(0, 0, 1, 1, now::get);
+
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(0, limiter.tryAcquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+        }
+    }
+
+    @Test
+    void acquire_ReportsRetryAfterInWholeSeconds() {
+        TenantRateLimiter limiter = new TenantRateLimiter(0.4, 1, 0, 0, now::get);
+        limiter.acquire("acme", TenantRateLimiter.Traffic.INTEGRATION);
+
+        TenantRateLimitExceededException ex = assertThrows(TenantRateLimitExceededException.class,
+                () -> limiter.acquire("acme", TenantRateLimiter.Traffic.INTEGRATION));
+
+        assertEquals(3, ex.getRetryAfterSeconds());
+    }
+
+    @Test
+    void isInternal_OnlyAcceptsTheInstanceToken() {
+        TenantRateLimiter limiter = new TenantRateLimiter(1, 1, 1, 1, now::get);
+
+        assertTrue(limiter.isInternal(limiter.internalToken()));
+        assertFalse(limiter.isInternal(null));
+        assertFalse(limiter.isInternal(new TenantRateLimiter(1, 1, 1, 1, now::get).internalToken()));
+    }
+}